@@ -0,0 +1,155 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.bson.Document;
+
+import com.juegocartas.juegocartas.model.Carta;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.CartaRepository;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.juegocartas.juegocartas.repository.RondaRepository;
+import com.juegocartas.juegocartas.service.EventPublisher;
+
+/**
+ * Datos compartidos por los benchmarks: un mazo de 32 cartas con Ki y transformaciones
+ * en el formato de la Dragon Ball API, y repositorios en memoria sin MongoDB.
+ */
+public final class DatosBenchmark {
+
+    private static final String[] KI_BASE = {
+            "60.000.000", "54.000.000", "45.000.000", "3.000.000", "250.000", "1.500", "970.000", "40"
+    };
+    private static final String[] KI_TRANSFORMACION = {
+            "3 Billion", "90 Billion", "5 Trillion", "11.2 Septillion", "100 Septillion", "969 Googolplex"
+    };
+
+    private DatosBenchmark() {
+    }
+
+    /**
+     * 32 cartas (paquetes 1..4, letras A..H) con entre 0 y 5 transformaciones cada una.
+     */
+    public static List<Carta> cartas() {
+        List<Carta> cartas = new ArrayList<>();
+        int idx = 0;
+        for (int paquete = 1; paquete <= 4; paquete++) {
+            for (char letra = 'A'; letra <= 'H'; letra++) {
+                Carta c = new Carta(paquete + String.valueOf(letra), "DB_" + paquete + letra);
+                c.setPaquete(paquete);
+                c.setKiOriginal(KI_BASE[idx % KI_BASE.length]);
+                Map<String, Integer> atributos = new HashMap<>();
+                atributos.put("poder", 5000 + idx * 10);
+                atributos.put("velocidad", 4000 + idx * 5);
+                atributos.put("ki", 4500 + idx * 7);
+                atributos.put("defensa", 3000 + idx * 4);
+                List<Carta.Transformacion> transformaciones = new ArrayList<>();
+                for (int t = 0; t < idx % 6; t++) {
+                    transformaciones.add(new Carta.Transformacion("Transformacion " + t, null,
+                            KI_TRANSFORMACION[(idx + t) % KI_TRANSFORMACION.length]));
+                }
+                atributos.put("transformaciones", transformaciones.size());
+                c.setAtributos(atributos);
+                c.setTransformaciones(transformaciones);
+                cartas.add(c);
+                idx++;
+            }
+        }
+        return cartas;
+    }
+
+    /**
+     * CartaRepository que sólo implementa findAll y findFirstByCodigo sobre una lista fija.
+     */
+    public static CartaRepository cartaRepository(List<Carta> cartas) {
+        return (CartaRepository) Proxy.newProxyInstance(CartaRepository.class.getClassLoader(),
+                new Class<?>[] { CartaRepository.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findAll" -> cartas;
+                    case "findFirstByCodigo" -> cartas.stream()
+                            .filter(c -> c.getCodigo().equals(args[0])).findFirst();
+                    case "toString" -> "CartaRepository(en memoria)";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    /**
+     * PartidaRepository en memoria: findByCodigo devuelve siempre la misma instancia y las
+     * escrituras (save y actualizaciones parciales) no hacen nada, como si MongoDB respondiera
+     * al instante.
+     */
+    public static PartidaRepository partidaRepository(Map<String, Partida> partidas) {
+        return (PartidaRepository) Proxy.newProxyInstance(PartidaRepository.class.getClassLoader(),
+                new Class<?>[] { PartidaRepository.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findByCodigo" -> Optional.ofNullable(partidas.get((String) args[0]));
+                    case "findByEstado" -> partidas.values().stream()
+                            .filter(p -> args[0].equals(p.getEstado())).toList();
+                    case "save" -> args[0];
+                    case "escribirCambios" -> Set.of();
+                    case "cambios" -> new Document();
+                    case "inicializarVersiones", "migrarHistorialRondas", "inicializarActividad" -> 0L;
+                    case "actualizarAtributo", "registrarCartaJugada", "actualizarJugador", "agregarJugador",
+                            "actualizarJugadores", "guardarCambios", "delete" -> null;
+                    case "toString" -> "PartidaRepository(en memoria)";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    /**
+     * RondaRepository cuyas escrituras no hacen nada.
+     */
+    public static RondaRepository rondaRepository() {
+        return (RondaRepository) Proxy.newProxyInstance(RondaRepository.class.getClassLoader(),
+                new Class<?>[] { RondaRepository.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "saveAll" -> args[0];
+                    case "findByPartidaIdAndNumeroGreaterThanOrderByNumeroAsc" -> List.of();
+                    case "toString" -> "RondaRepository(en memoria)";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    /**
+     * EventPublisher que sólo retiene el último evento (para que el JIT no elimine su construcción).
+     */
+    public static final class PublicadorEnMemoria implements EventPublisher {
+        private Object ultimo;
+        private long publicados;
+
+        @Override
+        public void publish(String topic, Object payload) {
+            ultimo = payload;
+            publicados++;
+        }
+
+        @Override
+        public void publishToUser(String user, String destination, Object payload) {
+            ultimo = payload;
+            publicados++;
+        }
+
+        @Override
+        public void publishToSession(String sessionId, String subscriptionId, String destination, Object payload) {
+            ultimo = payload;
+            publicados++;
+        }
+
+        public Object getUltimo() {
+            return ultimo;
+        }
+
+        public long getPublicados() {
+            return publicados;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.juegocartas.juegocartas.model.Carta;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.service.impl.DeckServiceImpl;
+
+/**
+ * Preparación de una partida con DeckServiceImpl: barajar las 32 cartas, repartirlas y
+ * determinar el primer turno.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckServiceBenchmark {
+
+    @Param({ "2", "7" })
+    public int jugadores;
+
+    private DeckServiceImpl deckService;
+    private List<String> codigos;
+    private List<String> baraja;
+    private Partida repartida;
+
+    @Setup
+    public void setup() {
+        deckService = new DeckServiceImpl();
+        codigos = new ArrayList<>();
+        for (Carta c : DatosBenchmark.cartas()) codigos.add(c.getCodigo());
+        baraja = new ArrayList<>(codigos);
+        Collections.shuffle(baraja, new Random(42));
+        repartida = partidaVacia();
+        deckService.repartir(repartida, baraja);
+    }
+
+    private Partida partidaVacia() {
+        Partida p = new Partida("DECK01");
+        for (int i = 1; i <= jugadores; i++) {
+            Jugador j = new Jugador("j" + i, "u" + i, "Jugador" + i);
+            j.setOrden(i);
+            p.getJugadores().add(j);
+        }
+        return p;
+    }
+
+    @Benchmark
+    public List<String> generarBaraja() {
+        return deckService.generarBaraja(codigos);
+    }
+
+    /**
+     * Incluye crear la partida y los jugadores vacíos (repartir modifica las manos).
+     */
+    @Benchmark
+    public Partida repartir() {
+        Partida p = partidaVacia();
+        deckService.repartir(p, baraja);
+        return p;
+    }
+
+    @Benchmark
+    public String determinarPrimerTurno() {
+        return deckService.determinarPrimerTurno(repartida);
+    }
+}
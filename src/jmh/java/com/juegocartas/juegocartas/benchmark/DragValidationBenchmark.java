@@ -0,0 +1,87 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.juegocartas.juegocartas.dto.event.PlayerDragEvent;
+import com.juegocartas.juegocartas.model.EstadoPartida;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.service.ActiveGameRegistry;
+import com.juegocartas.juegocartas.service.DragRateLimiter;
+import com.juegocartas.juegocartas.service.EventBatcher;
+import com.juegocartas.juegocartas.service.IndiceJugadoresPartida;
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.juegocartas.juegocartas.service.impl.DragValidationServiceImpl;
+
+/**
+ * Eventos de drag validados por segundo (DragValidationServiceImpl.validateDragEvent) en una
+ * partida en curso de 7 jugadores, con el índice de jugadores ya construido: ni lectura de la
+ * partida ni recorrido de sus jugadores por evento.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragValidationBenchmark {
+
+    private static final String CODIGO = "BENCH1";
+
+    private DragValidationServiceImpl validacion;
+    private PlayerDragEvent[] eventos;
+    private int siguiente;
+
+    @Setup
+    public void setup() {
+        Map<String, Partida> partidas = new HashMap<>();
+        Partida partida = new Partida(CODIGO);
+        partida.setId("65f1a2b3c4d5e6f7a8b9c0d1");
+        partida.setVersion(0L);
+        partida.setEstado(EstadoPartida.EN_CURSO.name());
+        for (int i = 1; i <= 7; i++) {
+            Jugador j = new Jugador("j" + i, "u" + i, "Jugador" + i);
+            j.setOrden(i);
+            j.setConectado(true);
+            j.setCartasEnMano(List.of(i + "A", i + "B", i + "C", i + "D"));
+            partida.getJugadores().add(j);
+        }
+        partidas.put(CODIGO, partida);
+
+        MetricsService metricsService = new MetricsService();
+        ActiveGameRegistry registry = new ActiveGameRegistry(DatosBenchmark.partidaRepository(partidas),
+                metricsService, new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, true, 100, 3);
+        validacion = new DragValidationServiceImpl(new IndiceJugadoresPartida(registry, metricsService),
+                new DragRateLimiter(metricsService, 20, 5, 60000));
+
+        eventos = new PlayerDragEvent[7];
+        for (int i = 0; i < eventos.length; i++) {
+            PlayerDragEvent e = new PlayerDragEvent("j" + (i + 1), "Jugador" + (i + 1), true);
+            e.setCardIndex(i % 4);
+            e.setNormalizedX(0.5);
+            e.setNormalizedY(0.25);
+            eventos[i] = e;
+        }
+    }
+
+    @Benchmark
+    public boolean validar() {
+        PlayerDragEvent e = eventos[siguiente];
+        siguiente = (siguiente + 1) % eventos.length;
+        return validacion.validateDragEvent(CODIGO, e.getJugadorId(), e);
+    }
+}
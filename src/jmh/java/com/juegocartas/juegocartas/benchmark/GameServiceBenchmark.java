@@ -0,0 +1,123 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.juegocartas.juegocartas.model.Carta;
+import com.juegocartas.juegocartas.model.EstadoPartida;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.service.ActiveGameRegistry;
+import com.juegocartas.juegocartas.service.CartaCatalog;
+import com.juegocartas.juegocartas.service.EventBatcher;
+import com.juegocartas.juegocartas.service.HistorialRondas;
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.juegocartas.juegocartas.service.impl.DeckServiceImpl;
+import com.juegocartas.juegocartas.service.impl.GameServiceImpl;
+
+/**
+ * Una ronda completa de GameServiceImpl: seleccionarAtributo y un jugarCarta por cada jugador
+ * con cartas (el último dispara resolverRonda).
+ *
+ * La partida vive en un repositorio en memoria (registro deshabilitado, escrituras sin coste),
+ * así que se mide sólo la lógica de juego y la construcción de eventos. Cuando la partida
+ * termina (o llega a MAX_RONDAS) se vuelve a repartir con una semilla fija; ese reparto entra
+ * en la medida pero ocurre una vez cada muchas rondas. Las rondas encoladas en HistorialRondas
+ * se escriben (en un repositorio que no hace nada) en cada reparto.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameServiceBenchmark {
+
+    private static final String CODIGO = "BENCH1";
+    private static final int MAX_RONDAS = 500;
+
+    @Param({ "2", "7" })
+    public int jugadores;
+
+    private final Map<String, Partida> partidas = new HashMap<>();
+    private final Random random = new Random(42);
+    private List<String> codigos;
+    private DeckServiceImpl deckService;
+    private GameServiceImpl gameService;
+    private HistorialRondas historialRondas;
+    private Partida partida;
+
+    @Setup
+    public void setup() {
+        List<Carta> cartas = DatosBenchmark.cartas();
+        MetricsService metricsService = new MetricsService();
+        CartaCatalog catalog = new CartaCatalog(DatosBenchmark.cartaRepository(cartas), metricsService);
+        catalog.recargar();
+        ActiveGameRegistry registry = new ActiveGameRegistry(DatosBenchmark.partidaRepository(partidas),
+                metricsService, new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), false, false, 100, 3);
+        deckService = new DeckServiceImpl();
+        historialRondas = new HistorialRondas(DatosBenchmark.rondaRepository(), metricsService, 500, 100_000);
+        gameService = new GameServiceImpl(registry, catalog, deckService, new DatosBenchmark.PublicadorEnMemoria(),
+                historialRondas);
+        codigos = catalog.codigos();
+        reiniciar();
+    }
+
+    private void reiniciar() {
+        historialRondas.flush();
+        partida = new Partida(CODIGO);
+        partida.setId("65f1a2b3c4d5e6f7a8b9c0d1");
+        partida.setVersion(0L);
+        for (int i = 1; i <= jugadores; i++) {
+            Jugador j = new Jugador("j" + i, "u" + i, "Jugador" + i);
+            j.setOrden(i);
+            j.setConectado(true);
+            // la mitad juega con la primera transformación activa
+            j.setIndiceTransformacion(i % 2 == 0 ? 0 : -1);
+            partida.getJugadores().add(j);
+        }
+        List<String> baraja = new ArrayList<>(codigos);
+        Collections.shuffle(baraja, random);
+        deckService.repartir(partida, baraja);
+        partida.setEstado(EstadoPartida.EN_CURSO.name());
+        partida.setTiempoInicio(Instant.now());
+        partida.setTurnoActual(deckService.determinarPrimerTurno(partida));
+        partidas.put(CODIGO, partida);
+    }
+
+    @Benchmark
+    public int ronda() {
+        // partidas que terminan o se alargan indefinidamente (manos que ciclan): nuevo reparto
+        if (!EstadoPartida.EN_CURSO.name().equals(partida.getEstado())
+                || partida.getRondasJugadas() >= MAX_RONDAS) {
+            reiniciar();
+        }
+        gameService.seleccionarAtributo(CODIGO, partida.getTurnoActual(), "poder");
+        List<String> conCartas = new ArrayList<>(jugadores);
+        for (Jugador j : partida.getJugadores()) {
+            if (j.getNumeroCartas() > 0) conCartas.add(j.getId());
+        }
+        for (String jugadorId : conCartas) {
+            gameService.jugarCarta(CODIGO, jugadorId);
+        }
+        return partida.getRondasJugadas();
+    }
+}
@@ -0,0 +1,76 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.juegocartas.juegocartas.util.RuedaTemporizadores;
+
+/**
+ * Desconexión masiva: programar y cancelar (reconexión) el grace de 10.000 jugadores, con el
+ * ScheduledExecutorService que usaba antes el grace local y con la RuedaTemporizadores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraceTimerBenchmark {
+
+    private static final int JUGADORES = 10_000;
+    private static final Runnable NADA = () -> { };
+
+    private ScheduledExecutorService scheduler;
+    private RuedaTemporizadores<Runnable> rueda;
+    private final ScheduledFuture<?>[] futuros = new ScheduledFuture<?>[JUGADORES];
+    private final RuedaTemporizadores.Temporizador<?>[] temporizadores = new RuedaTemporizadores.Temporizador<?>[JUGADORES];
+
+    @Setup
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        rueda = new RuedaTemporizadores<>("bench-rueda", 100, 512, vencidos -> { });
+    }
+
+    @TearDown
+    public void cerrar() {
+        scheduler.shutdownNow();
+        rueda.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JUGADORES)
+    public void scheduledExecutor() {
+        for (int i = 0; i < JUGADORES; i++) {
+            futuros[i] = scheduler.schedule(NADA, 5, TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < JUGADORES; i++) {
+            futuros[i].cancel(false);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JUGADORES)
+    public void ruedaTemporizadores() {
+        for (int i = 0; i < JUGADORES; i++) {
+            temporizadores[i] = rueda.programar(5000, NADA);
+        }
+        for (int i = 0; i < JUGADORES; i++) {
+            temporizadores[i].cancelar();
+        }
+    }
+}
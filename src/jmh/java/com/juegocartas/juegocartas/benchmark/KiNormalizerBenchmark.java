@@ -0,0 +1,36 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.juegocartas.juegocartas.util.KiNormalizer;
+
+/**
+ * KiNormalizer.normalizar con los formatos de Ki que devuelve la Dragon Ball API.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KiNormalizerBenchmark {
+
+    @Param({ "60.000.000", "3 Billion", "11.2 Septillion", "969 Googolplex", "unknown" })
+    public String ki;
+
+    @Benchmark
+    public double normalizar() {
+        return KiNormalizer.normalizar(ki);
+    }
+}
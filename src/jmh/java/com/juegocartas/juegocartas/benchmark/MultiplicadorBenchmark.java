@@ -0,0 +1,88 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.juegocartas.juegocartas.model.Carta;
+import com.juegocartas.juegocartas.service.CartaCatalog;
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.juegocartas.juegocartas.util.TransformacionMultiplicador;
+
+/**
+ * Coste de calcular el valor de una carta jugada con una transformación activa.
+ *
+ * - calculado: lo que hacía jugarCarta antes (normaliza los dos Ki en cada jugada).
+ * - precalculado: atributo y multiplicador leídos de las tablas de CartaCatalog.
+ *
+ * Cada invocación juega la siguiente carta de una secuencia fija de (carta, transformación).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiplicadorBenchmark {
+
+    private static final String ATRIBUTO = "poder";
+
+    private CartaCatalog catalog;
+    private Carta[] cartas;
+    private int[] indices;
+    private int siguiente;
+
+    @Setup
+    public void setup() {
+        List<Carta> mazo = DatosBenchmark.cartas();
+        catalog = new CartaCatalog(DatosBenchmark.cartaRepository(mazo), new MetricsService());
+        catalog.recargar();
+
+        List<Carta> jugadas = new ArrayList<>();
+        List<Integer> transformaciones = new ArrayList<>();
+        for (Carta c : mazo) {
+            for (int i = 0; i < c.getTransformaciones().size(); i++) {
+                jugadas.add(c);
+                transformaciones.add(i);
+            }
+        }
+        cartas = jugadas.toArray(new Carta[0]);
+        indices = transformaciones.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int avanzar() {
+        int i = siguiente;
+        siguiente = (i + 1) % cartas.length;
+        return i;
+    }
+
+    @Benchmark
+    public int calculado() {
+        int i = avanzar();
+        Carta carta = cartas[i];
+        Integer v = carta.getAtributos().get(ATRIBUTO);
+        int valorBase = v != null ? v : 0;
+        double multiplicador = TransformacionMultiplicador.calcularMultiplicador(carta, indices[i]);
+        return TransformacionMultiplicador.aplicarMultiplicador(valorBase, multiplicador);
+    }
+
+    @Benchmark
+    public int precalculado() {
+        int i = avanzar();
+        Carta carta = cartas[i];
+        int valorBase = catalog.valorAtributo(carta, ATRIBUTO);
+        double multiplicador = catalog.multiplicador(carta, indices[i]);
+        return TransformacionMultiplicador.aplicarMultiplicador(valorBase, multiplicador);
+    }
+}
@@ -0,0 +1,69 @@
+package com.juegocartas.juegocartas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juegocartas.juegocartas.dto.event.RondaResueltaEvent;
+import com.juegocartas.juegocartas.dto.response.PartidaResponse;
+import com.juegocartas.juegocartas.model.Jugador;
+
+/**
+ * Serialización JSON de los mensajes más frecuentes del WebSocket, con 7 jugadores.
+ * El ObjectMapper se construye igual que el de Spring Boot (Jackson2ObjectMapperBuilder).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    private ObjectMapper objectMapper;
+    private RondaResueltaEvent rondaResuelta;
+    private PartidaResponse partidaResponse;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<RondaResueltaEvent.ResultadoJugador> resultados = new ArrayList<>();
+        List<Jugador> jugadores = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            resultados.add(new RondaResueltaEvent.ResultadoJugador("j" + i, "Jugador" + i, i + "A", 5000 + i * 10));
+            Jugador j = new Jugador("j" + i, "u" + i, "Jugador" + i);
+            j.setOrden(i);
+            j.setConectado(true);
+            j.setCartasEnMano(new ArrayList<>(List.of(i + "B", i + "C", i + "D", i + "E")));
+            j.setNumeroCartas(4);
+            j.setCartaActual(i + "B");
+            jugadores.add(j);
+        }
+        rondaResuelta = new RondaResueltaEvent("j7", "Jugador7", "poder", 5070, resultados, false);
+        partidaResponse = new PartidaResponse("BENCH1", "j1", jugadores);
+    }
+
+    @Benchmark
+    public byte[] rondaResuelta() throws Exception {
+        return objectMapper.writeValueAsBytes(rondaResuelta);
+    }
+
+    @Benchmark
+    public byte[] partidaResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(partidaResponse);
+    }
+}
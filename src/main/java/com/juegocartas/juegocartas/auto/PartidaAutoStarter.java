@@ -1,8 +1,9 @@
 package com.juegocartas.juegocartas.auto;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
@@ -13,12 +14,11 @@ import com.juegocartas.juegocartas.service.GameService;
 @Component
 public class PartidaAutoStarter {
 
+    private static final Logger log = LoggerFactory.getLogger(PartidaAutoStarter.class);
+
     private final PartidaRepository partidaRepository;
     private final GameService gameService;
 
-    // locks per codigo de partida para evitar doble inicio concurrente
-    private final Map<String, Object> locks = new ConcurrentHashMap<>();
-
     private static final int UMBRAL_AUTO_START = 7;
 
     public PartidaAutoStarter(PartidaRepository partidaRepository, GameService gameService) {
@@ -39,23 +39,21 @@ public class PartidaAutoStarter {
             }
             if (codigo == null) return;
 
-            // lock per partida
-            Object lock = locks.computeIfAbsent(codigo, k -> new Object());
-            synchronized (lock) {
-                Partida p = partidaRepository.findByCodigo(codigo).orElse(null);
-                if (p == null) return;
-                if ("EN_CURSO".equals(p.getEstado())) return; // ya iniciada
-                if (p.getJugadores().size() >= UMBRAL_AUTO_START) {
-                    try {
-                        gameService.iniciarPartida(codigo);
-                    } catch (Exception ex) {
-                        // no propagar; log
-                        System.err.println("Error iniciando partida automaticamente: " + ex.getMessage());
-                    }
+            // Sin lock local: iniciarPartida es idempotente y la versión de la partida evita
+            // el doble inicio aunque el evento llegue a varias instancias a la vez
+            Partida p = partidaRepository.findByCodigo(codigo).orElse(null);
+            if (p == null) return;
+            if ("EN_CURSO".equals(p.getEstado())) return; // ya iniciada
+            if (p.getJugadores().size() >= UMBRAL_AUTO_START) {
+                try {
+                    gameService.iniciarPartida(codigo);
+                } catch (Exception ex) {
+                    // no propagar: el inicio manual sigue disponible
+                    log.warn("Error iniciando automáticamente la partida {}: {}", codigo, ex.getMessage(), ex);
                 }
             }
         } catch (Exception e) {
-            System.err.println("Error en PartidaAutoStarter: " + e.getMessage());
+            log.warn("Error procesando el evento de jugador unido: {}", e.getMessage(), e);
         }
     }
 }
@@ -0,0 +1,335 @@
+package com.juegocartas.juegocartas.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+
+/**
+ * Índices de las colecciones de partidas, rondas, cartas, usuarios, sesiones y desconexiones
+ * pendientes, y comprobación de que las consultas de los repositorios los usan.
+ *
+ * La creación automática de índices de Spring Data está desactivada (los @Indexed del modelo no
+ * crean nada), así que los índices se declaran aquí y se crean al arrancar, antes de rehidratar
+ * partidas o cargar el catálogo. createIndex no hace nada si el índice ya existe.
+ *
+ * Después se ejecuta explain() de cada consulta de los repositorios y se buscan planes COLLSCAN.
+ * app.mongo.indices.verificacion decide qué hacer con lo que no cumple: FALLO detiene el arranque
+ * si hay consultas sin índice o si un índice único no se puede crear porque ya hay valores
+ * repetidos; AVISO registra las consultas sin índice y deja ese índice sin crear (con un error en
+ * el log en cada arranque, ver {@link #crear}); NO omite la comprobación de planes. Al añadir una
+ * consulta a un repositorio hay que añadirla a {@link #CONSULTAS} (IndicesMongoTest lo comprueba).
+ *
+ * Si MongoDB no responde, se registra una vez y no se intenta nada más: cada operación esperaría
+ * el timeout de selección de servidor y retrasaría el arranque.
+ *
+ * Además crea la colección partidas_archivo comprimida con zstd (si no existe), el índice TTL que
+ * borra las partidas EN_ESPERA sin actividad en app.archivo.espera.inactividadMin minutos (0 lo
+ * quita) y el que borra las sesiones de sesiones_ws sin renovar en app.sesiones.ttlSeconds. Si un
+ * índice TTL ya existe con otro plazo, se cambia con collMod.
+ *
+ * Sin MongoTemplate (pruebas con repositorios en memoria) no hace nada.
+ */
+@Component
+public class IndicesMongo {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicesMongo.class);
+
+    public enum Verificacion { NO, AVISO, FALLO }
+
+    record Indice(String coleccion, String nombre, Bson claves, boolean unico) {
+    }
+
+    /**
+     * Una consulta de repositorio con un filtro de la misma forma que el que genera Spring Data
+     * (el valor no importa para el plan).
+     */
+    record Consulta(String nombre, String coleccion, Bson filtro) {
+    }
+
+    private static final String VALOR = "explain";
+
+    static final List<Indice> INDICES = List.of(
+            new Indice("partidas", "codigo_1", Indexes.ascending("codigo"), true),
+            // partidas por estado (rehidratación) y por estado y antigüedad
+            new Indice("partidas", "estado_1_fechaCreacion_1", Indexes.ascending("estado", "fechaCreacion"), false),
+            // "mi partida en espera" al iniciar sesión
+            new Indice("partidas", "estado_1_jugadores.userId_1", Indexes.ascending("estado", "jugadores.userId"), false),
+            // partidas finalizadas por archivar
+            new Indice("partidas", "estado_1_ultimaActividad_1", Indexes.ascending("estado", "ultimaActividad"), false),
+            // historial de rondas de una partida archivada
+            new Indice("partidas_archivo", "codigo_1", Indexes.ascending("codigo"), false),
+            // historial de rondas de una partida, paginado por número
+            new Indice("rondas", "partidaId_1_numero_1", Indexes.ascending("partidaId", "numero"), false),
+            new Indice("cartas", "codigo_1", Indexes.ascending("codigo"), true),
+            new Indice("usuarios", "username_1", Indexes.ascending("username"), true),
+            new Indice("usuarios", "email_1", Indexes.ascending("email"), true),
+            // registro de sesiones y desconexiones pendientes compartidos (app.sesiones.registro=MONGO)
+            new Indice("sesiones_ws", "jugadorId_1", Indexes.ascending("jugadorId"), false),
+            new Indice("desconexiones_pendientes", "venceEn_1", Indexes.ascending("venceEn"), false));
+
+    static final List<Consulta> CONSULTAS = List.of(
+            new Consulta("PartidaRepository.findByCodigo", "partidas", Filters.eq("codigo", VALOR)),
+            new Consulta("PartidaRepository.findByEstado", "partidas", Filters.eq("estado", VALOR)),
+            new Consulta("PartidaRepository.findPublicaByCodigo", "partidas", Filters.eq("codigo", VALOR)),
+            new Consulta("PartidaRepository.findDetalleByCodigo", "partidas", Filters.eq("codigo", VALOR)),
+            new Consulta("PartidaRepository.findByEstadoAndJugadorUserId", "partidas",
+                    new Document("estado", VALOR).append("jugadores.userId", VALOR)),
+            new Consulta("PartidaRepository.findCodigosByCodigoIn", "partidas", Filters.in("codigo", VALOR)),
+            new Consulta("PartidaRepository.archivarFinalizadas", "partidas",
+                    Filters.and(Filters.eq("estado", VALOR), Filters.lt("ultimaActividad", 0))),
+            new Consulta("PartidaRepository.buscarArchivada", "partidas_archivo", Filters.eq("codigo", VALOR)),
+            new Consulta("RondaRepository.findByPartidaIdAndNumeroGreaterThanOrderByNumeroAsc", "rondas",
+                    Filters.and(Filters.eq("partidaId", VALOR), Filters.gt("numero", 0))),
+            new Consulta("CartaRepository.findFirstByCodigo", "cartas", Filters.eq("codigo", VALOR)),
+            new Consulta("UsuarioRepository.findByUsername", "usuarios", Filters.eq("username", VALOR)),
+            new Consulta("UsuarioRepository.findByEmail", "usuarios", Filters.eq("email", VALOR)),
+            new Consulta("UsuarioRepository.existsByUsername", "usuarios", Filters.eq("username", VALOR)),
+            new Consulta("UsuarioRepository.existsByEmail", "usuarios", Filters.eq("email", VALOR)));
+
+    static final String COLECCION_ARCHIVO = "partidas_archivo";
+    static final String INDICE_ESPERA = "ultimaActividad_1_ttl_espera";
+    static final String COLECCION_SESIONES = "sesiones_ws";
+    static final String INDICE_SESIONES = "renovada_1";
+
+    private static final int NAMESPACE_EXISTS = 48;
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_NOT_FOUND = 27;
+
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final Verificacion verificacion;
+    private final long inactividadEsperaMin;
+    private final long ttlSesionesSegundos;
+
+    public IndicesMongo(ObjectProvider<MongoTemplate> mongoTemplate,
+                        @Value("${app.mongo.indices.verificacion:AVISO}") Verificacion verificacion,
+                        @Value("${app.archivo.espera.inactividadMin:120}") long inactividadEsperaMin,
+                        @Value("${app.sesiones.ttlSeconds:90}") long ttlSesionesSegundos) {
+        this.mongoTemplate = mongoTemplate;
+        this.verificacion = verificacion;
+        this.inactividadEsperaMin = inactividadEsperaMin;
+        this.ttlSesionesSegundos = ttlSesionesSegundos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void crearAlIniciar() {
+        mongoTemplate.ifAvailable(this::preparar);
+    }
+
+    void preparar(MongoTemplate template) {
+        try {
+            crear(template, verificacion);
+        } catch (IllegalStateException e) {
+            // índice único imposible con FALLO
+            throw e;
+        } catch (Exception e) {
+            if (sinConexion(e)) {
+                // cada operación más esperaría el timeout de selección de servidor: no se sigue
+                log.error("MongoDB no responde; no se crean ni comprueban los índices: {}", e.getMessage());
+                return;
+            }
+            // las consultas funcionan igual, sólo más lentas
+            log.error("Error creando índices de MongoDB: {}", e.getMessage(), e);
+            return;
+        }
+        try {
+            caducidadEspera(template, inactividadEsperaMin);
+        } catch (Exception e) {
+            log.error("Error preparando la caducidad de partidas en espera: {}", e.getMessage(), e);
+        }
+        try {
+            caducidadSesiones(template, ttlSesionesSegundos);
+        } catch (Exception e) {
+            log.error("Error preparando la caducidad de sesiones: {}", e.getMessage(), e);
+        }
+        if (verificacion == Verificacion.NO) return;
+
+        List<String> sinIndice;
+        try {
+            sinIndice = consultasSinIndice(template);
+        } catch (Exception e) {
+            log.error("Error comprobando los planes de las consultas: {}", e.getMessage(), e);
+            return;
+        }
+        if (sinIndice.isEmpty()) {
+            log.info("Planes de consulta comprobados: {} consultas usan índice", CONSULTAS.size());
+        } else if (verificacion == Verificacion.FALLO) {
+            throw new IllegalStateException("Consultas sin índice (COLLSCAN): " + sinIndice);
+        } else {
+            log.warn("Consultas sin índice (COLLSCAN): {}", sinIndice);
+        }
+    }
+
+    /**
+     * Crea los índices. Un índice único que choca con valores repetidos no se crea: con FALLO
+     * detiene el arranque y si no se registra un error en cada arranque hasta que se eliminen los
+     * repetidos (mientras, las consultas que lo usan recorren la colección). No se crea sin unique
+     * porque con el mismo nombre impediría crear el único más adelante; uno así, que dejaron
+     * versiones anteriores, se reemplaza por el único en cuanto los datos lo permiten.
+     *
+     * Un error de conexión corta la creación y se propaga: el resto fallaría igual, cada uno
+     * tras el timeout de selección de servidor.
+     */
+    public static void crear(MongoTemplate template, Verificacion verificacion) {
+        crearArchivo(template);
+        for (Indice indice : INDICES) {
+            MongoCollection<Document> coleccion = template.getCollection(indice.coleccion());
+            try {
+                crearIndice(coleccion, indice);
+            } catch (MongoException e) {
+                if (sinConexion(e)) throw e;
+                if (indice.unico() && ErrorCategory.fromErrorCode(e.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                    if (verificacion == Verificacion.FALLO) {
+                        throw new IllegalStateException("Valores repetidos en " + indice.coleccion()
+                                + ": no se puede crear el índice único " + indice.nombre(), e);
+                    }
+                    log.error("Valores repetidos en {}: no se crea el índice único {} hasta que se eliminen",
+                            indice.coleccion(), indice.nombre());
+                } else {
+                    // p. ej. ya existe un índice con las mismas claves y otro nombre u opciones
+                    log.warn("No se creó el índice {}.{}: {}", indice.coleccion(), indice.nombre(), e.getMessage());
+                }
+            }
+        }
+        log.info("Índices de MongoDB comprobados: {}", INDICES.size());
+    }
+
+    private static void crearIndice(MongoCollection<Document> coleccion, Indice indice) {
+        IndexOptions opciones = new IndexOptions().name(indice.nombre()).unique(indice.unico());
+        try {
+            coleccion.createIndex(indice.claves(), opciones);
+        } catch (MongoException e) {
+            if (!indice.unico() || e.getCode() != INDEX_OPTIONS_CONFLICT || !existeSinUnique(coleccion, indice.nombre())) {
+                throw e;
+            }
+            log.info("Reemplazando el índice {} sin unique por el único", indice.nombre());
+            coleccion.dropIndex(indice.nombre());
+            coleccion.createIndex(indice.claves(), opciones);
+        }
+    }
+
+    private static boolean existeSinUnique(MongoCollection<Document> coleccion, String nombre) {
+        for (Document existente : coleccion.listIndexes().into(new ArrayList<>())) {
+            if (nombre.equals(existente.getString("name"))) return !Boolean.TRUE.equals(existente.get("unique"));
+        }
+        return false;
+    }
+
+    /**
+     * Si el error es que MongoDB no responde (timeout de selección de servidor o de socket).
+     */
+    static boolean sinConexion(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof MongoTimeoutException || causa instanceof MongoSocketException) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Crea partidas_archivo con compresión zstd: los documentos archivados sólo se leen para
+     * consultar el historial, así que se prima el espacio sobre la CPU de la lectura.
+     */
+    static void crearArchivo(MongoTemplate template) {
+        try {
+            template.executeCommand(new Document("create", COLECCION_ARCHIVO)
+                    .append("storageEngine", new Document("wiredTiger",
+                            new Document("configString", "block_compressor=zstd"))));
+            log.info("Creada la colección {} (zstd)", COLECCION_ARCHIVO);
+        } catch (RuntimeException e) {
+            if (sinConexion(e)) throw e;
+            if (codigo(e) != NAMESPACE_EXISTS) {
+                // sin la colección comprimida, el archivo se crea al escribir con la compresión por defecto
+                log.warn("No se creó la colección {}: {}", COLECCION_ARCHIVO, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Índice TTL parcial que borra las partidas EN_ESPERA cuya última actividad es anterior a
+     * minutos minutos; con 0 se quita.
+     */
+    static void caducidadEspera(MongoTemplate template, long minutos) {
+        MongoCollection<Document> partidas = template.getCollection("partidas");
+        if (minutos <= 0) {
+            try {
+                partidas.dropIndex(INDICE_ESPERA);
+                log.info("Quitada la caducidad de partidas en espera");
+            } catch (MongoException e) {
+                if (e.getCode() != INDEX_NOT_FOUND) throw e;
+            }
+            return;
+        }
+        indiceTtl(template, "partidas", Indexes.ascending("ultimaActividad"), new IndexOptions()
+                .name(INDICE_ESPERA)
+                .expireAfter(TimeUnit.MINUTES.toSeconds(minutos), TimeUnit.SECONDS)
+                .partialFilterExpression(Filters.eq("estado", "EN_ESPERA")));
+        log.info("Partidas en espera caducan tras {} min sin actividad", minutos);
+    }
+
+    /**
+     * Índice TTL que borra las sesiones de sesiones_ws que su nodo dejó de renovar (un nodo
+     * caído) tras segundos segundos; ver MongoSessionRegistry.
+     */
+    static void caducidadSesiones(MongoTemplate template, long segundos) {
+        indiceTtl(template, COLECCION_SESIONES, Indexes.ascending("renovada"), new IndexOptions()
+                .name(INDICE_SESIONES)
+                .expireAfter(segundos, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Crea el índice TTL; si ya existe con otro plazo, lo cambia con collMod.
+     */
+    private static void indiceTtl(MongoTemplate template, String coleccion, Bson claves, IndexOptions opciones) {
+        try {
+            template.getCollection(coleccion).createIndex(claves, opciones);
+        } catch (MongoException e) {
+            if (e.getCode() != INDEX_OPTIONS_CONFLICT) throw e;
+            template.executeCommand(new Document("collMod", coleccion)
+                    .append("index", new Document("name", opciones.getName())
+                            .append("expireAfterSeconds", opciones.getExpireAfter(TimeUnit.SECONDS))));
+        }
+    }
+
+    private static int codigo(RuntimeException e) {
+        if (e instanceof MongoException m) return m.getCode();
+        return e.getCause() instanceof MongoException m ? m.getCode() : -1;
+    }
+
+    /**
+     * Nombres de las consultas cuyo plan ganador recorre la colección completa.
+     */
+    public static List<String> consultasSinIndice(MongoTemplate template) {
+        List<String> sinIndice = new ArrayList<>();
+        for (Consulta consulta : CONSULTAS) {
+            Document plan = template.getCollection(consulta.coleccion()).find(consulta.filtro()).explain();
+            Document planificador = plan.get("queryPlanner", Document.class);
+            Document ganador = planificador != null ? planificador.get("winningPlan", Document.class) : null;
+            if (ganador == null || ganador.toJson().contains("COLLSCAN")) {
+                sinIndice.add(consulta.nombre());
+            }
+        }
+        return sinIndice;
+    }
+}
@@ -0,0 +1,69 @@
+package com.juegocartas.juegocartas.config;
+
+import java.security.Principal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.model.Usuario;
+import com.juegocartas.juegocartas.service.JwtService;
+
+/**
+ * Autentica la sesión STOMP con el JWT del header Authorization del frame CONNECT.
+ *
+ * La sesión queda asociada al id del usuario, que es el 'user' de
+ * {@link com.juegocartas.juegocartas.service.EventPublisher#publishToUser}: sólo así recibe lo
+ * que se le envía en /user/queue/... (su mano, errores). Sin token, o con uno inválido, la
+ * sesión sigue siendo anónima y sólo recibe los topics públicos.
+ */
+@Component
+public class WebSocketAuthInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketAuthInterceptor.class);
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+
+    public WebSocketAuthInterceptor(JwtService jwtService, UserDetailsService userDetailsService) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) return message;
+
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) return message;
+
+        try {
+            String jwt = authHeader.substring(7);
+            String username = jwtService.extractUsername(jwt);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (userDetails instanceof Usuario usuario && jwtService.isTokenValid(jwt, userDetails)) {
+                accessor.setUser(new UsuarioPrincipal(usuario.getId()));
+            }
+        } catch (Exception e) {
+            logger.debug("Token inválido en CONNECT STOMP, sesión anónima: {}", e.getMessage());
+        }
+        return message;
+    }
+
+    record UsuarioPrincipal(String userId) implements Principal {
+        @Override
+        public String getName() {
+            return userId;
+        }
+    }
+}
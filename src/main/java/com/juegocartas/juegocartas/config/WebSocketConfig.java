@@ -1,19 +1,97 @@
 package com.juegocartas.juegocartas.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+/**
+ * Broker STOMP según app.websocket.broker.modo:
+ * - SIMPLE: broker en memoria; las suscripciones viven en este nodo (una sola instancia).
+ * - RELAY: reenvía /topic y /queue a un broker STOMP externo (ActiveMQ Artemis, RabbitMQ...).
+ *   Cada nodo entrega a sus sesiones lo que publique cualquier otro, así que un jugador puede
+ *   conectarse a cualquier réplica sin sesiones pegajosas (con transporte WebSocket; los
+ *   fallbacks HTTP de SockJS sí las necesitan). Los destinos /user/... se resuelven entre
+ *   nodos con los topics de difusión de usuarios.
+ *
+ * En ambos modos servidor y cliente negocian heartbeats de app.websocket.heartbeatMs, y en
+ * RELAY la conexión de sistema con el broker usa el mismo intervalo.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    public enum ModoBroker { SIMPLE, RELAY }
+
+    private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+    private final TaskScheduler messageBrokerTaskScheduler;
+    private final ModoBroker modo;
+    private final long heartbeatMs;
+    private final String relayHost;
+    private final int relayPort;
+    private final String relayLogin;
+    private final String relayPasscode;
+    private final String relayVirtualHost;
+
+    public WebSocketConfig(WebSocketAuthInterceptor webSocketAuthInterceptor,
+                           @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler messageBrokerTaskScheduler,
+                           @Value("${app.websocket.broker.modo:SIMPLE}") ModoBroker modo,
+                           @Value("${app.websocket.heartbeatMs:10000}") long heartbeatMs,
+                           @Value("${app.websocket.broker.relay.host:localhost}") String relayHost,
+                           @Value("${app.websocket.broker.relay.port:61613}") int relayPort,
+                           @Value("${app.websocket.broker.relay.login:guest}") String relayLogin,
+                           @Value("${app.websocket.broker.relay.passcode:guest}") String relayPasscode,
+                           @Value("${app.websocket.broker.relay.virtualHost:}") String relayVirtualHost) {
+        this.webSocketAuthInterceptor = webSocketAuthInterceptor;
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+        this.modo = modo;
+        this.heartbeatMs = heartbeatMs;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.relayLogin = relayLogin;
+        this.relayPasscode = relayPasscode;
+        this.relayVirtualHost = relayVirtualHost;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /queue: destinos por usuario (/user/queue/...), p. ej. la mano de cada jugador
+        if (modo == ModoBroker.RELAY) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs)
+                    .setTaskScheduler(messageBrokerTaskScheduler)
+                    // /user/...: un nodo que no tiene la sesión del usuario lo difunde al resto
+                    .setUserDestinationBroadcast("/topic/simp-usuarios-sin-resolver")
+                    .setUserRegistryBroadcast("/topic/simp-registro-usuarios");
+            if (!relayVirtualHost.isBlank()) relay.setVirtualHost(relayVirtualHost);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         config.setApplicationDestinationPrefixes("/app");
+        // los mensajes a una misma sesión salen en el orden en que se publicaron, aunque vayan a
+        // suscripciones distintas (p. ej. RONDA_RESUELTA y el CARD_COUNTS que la sigue en /counts)
+        config.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(webSocketAuthInterceptor);
     }
 
     @Override
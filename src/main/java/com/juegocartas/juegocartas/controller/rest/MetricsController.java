@@ -0,0 +1,34 @@
+package com.juegocartas.juegocartas.controller.rest;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.juegocartas.juegocartas.service.MetricsService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/metricas")
+@Tag(name = "Métricas", description = "Métricas internas del servidor de juego")
+public class MetricsController {
+
+    private final MetricsService metricsService;
+
+    public MetricsController(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    @GetMapping
+    @Operation(
+        summary = "Obtener métricas",
+        description = "Devuelve un snapshot de contadores, gauges y duraciones registrados por los componentes del juego."
+    )
+    public ResponseEntity<Map<String, Object>> obtener() {
+        return ResponseEntity.ok(metricsService.snapshot());
+    }
+}
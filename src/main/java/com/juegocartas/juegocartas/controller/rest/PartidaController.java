@@ -1,10 +1,14 @@
 package com.juegocartas.juegocartas.controller.rest;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,7 +19,11 @@ import com.juegocartas.juegocartas.dto.request.UnirsePartidaRequest;
 import com.juegocartas.juegocartas.dto.response.ErrorResponse;
 import com.juegocartas.juegocartas.dto.response.PartidaDetailResponse;
 import com.juegocartas.juegocartas.dto.response.PartidaResponse;
+import com.juegocartas.juegocartas.dto.response.RondasResponse;
+import com.juegocartas.juegocartas.exception.PartidaNotFoundException;
 import com.juegocartas.juegocartas.service.PartidaService;
+import com.juegocartas.juegocartas.service.PartidaSnapshotCache;
+import com.juegocartas.juegocartas.service.VistasPartida;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -31,9 +39,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class PartidaController {
 
     private final PartidaService partidaService;
+    private final PartidaSnapshotCache partidaSnapshotCache;
+    private final VistasPartida vistasPartida;
 
-    public PartidaController(PartidaService partidaService) {
+    public PartidaController(PartidaService partidaService, PartidaSnapshotCache partidaSnapshotCache,
+                             VistasPartida vistasPartida) {
         this.partidaService = partidaService;
+        this.partidaSnapshotCache = partidaSnapshotCache;
+        this.vistasPartida = vistasPartida;
     }
 
     @PostMapping("/crear")
@@ -89,20 +102,50 @@ public class PartidaController {
     @GetMapping("/{codigo}")
     @Operation(
         summary = "Obtener información básica de partida",
-        description = "Consulta el estado actual de una partida (número de jugadores, estado, etc.)"
+        description = """
+            Consulta el estado actual de una partida (número de jugadores, estado, etc.).
+            La respuesta lleva ETag: si se envía en If-None-Match y la partida no ha cambiado, responde 304 sin cuerpo.
+            """
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Partida encontrada",
                     content = @Content(schema = @Schema(implementation = PartidaResponse.class))),
+        @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag enviado"),
         @ApiResponse(responseCode = "404", description = "Partida no encontrada",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<PartidaResponse> obtener(
+            @Parameter(description = "Código único de la partida", example = "ABC123")
+            @PathVariable String codigo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return responder(vistasPartida.publica(codigo, siNoCoincide));
+    }
+
+    @GetMapping("/{codigo}/estado")
+    @Operation(
+        summary = "Estado de la partida para resincronizar",
+        description = """
+            Devuelve el mismo PartidaResponse que se envía al suscribirse al topic de la partida, con el campo "seq"
+            del último evento que ya refleja. El cliente lo pide cuando detecta un salto en los seq de los eventos
+            y descarta después los eventos con seq menor o igual.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado actual de la partida",
+                    content = @Content(schema = @Schema(implementation = PartidaResponse.class))),
+        @ApiResponse(responseCode = "404", description = "Partida no encontrada",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<byte[]> obtenerEstado(
             @Parameter(description = "Código único de la partida", example = "ABC123")
             @PathVariable String codigo) {
-        return ResponseEntity.ok(partidaService.obtenerPartida(codigo));
+        // el snapshot ya está serializado: se devuelven sus bytes tal cual
+        byte[] json = partidaSnapshotCache.obtener(codigo)
+                .orElseThrow(() -> new PartidaNotFoundException(codigo))
+                .mensaje().getPayload();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
     }
-    
+
     @GetMapping("/{codigo}/detalle")
     @Operation(
         summary = "Obtener detalle completo de partida",
@@ -110,11 +153,14 @@ public class PartidaController {
             Obtiene información detallada de la partida para un jugador específico.
             Incluye las cartas en mano del jugador solicitante pero oculta las de otros jugadores (privacidad).
             Ideal para actualizar el estado del juego en el frontend.
+            La respuesta lleva ETag: si se envía en If-None-Match y nada ha cambiado (tampoco el tiempo restante),
+            responde 304 sin cuerpo.
             """
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Detalle obtenido exitosamente",
                     content = @Content(schema = @Schema(implementation = PartidaDetailResponse.class))),
+        @ApiResponse(responseCode = "304", description = "Sin cambios desde el ETag enviado"),
         @ApiResponse(responseCode = "404", description = "Partida o jugador no encontrado",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
@@ -122,8 +168,34 @@ public class PartidaController {
             @Parameter(description = "Código único de la partida", example = "ABC123")
             @PathVariable String codigo,
             @Parameter(description = "ID del jugador solicitante", example = "player-uuid-1234")
-            @RequestParam String jugadorId) {
-        return ResponseEntity.ok(partidaService.obtenerPartidaDetalle(codigo, jugadorId));
+            @RequestParam String jugadorId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        return responder(vistasPartida.detalle(codigo, jugadorId, siNoCoincide));
+    }
+
+    @GetMapping("/{codigo}/rondas")
+    @Operation(
+        summary = "Historial de rondas de la partida",
+        description = """
+            Devuelve las rondas resueltas de la partida con número mayor que "desde", ordenadas por número,
+            hasta "limite" rondas (máximo 100). Para la página siguiente se pide desde=siguiente; "siguiente"
+            es null en la última página.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página del historial",
+                    content = @Content(schema = @Schema(implementation = RondasResponse.class))),
+        @ApiResponse(responseCode = "404", description = "Partida no encontrada",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<RondasResponse> obtenerRondas(
+            @Parameter(description = "Código único de la partida", example = "ABC123")
+            @PathVariable String codigo,
+            @Parameter(description = "Número de la última ronda ya recibida", example = "0")
+            @RequestParam(defaultValue = "0") int desde,
+            @Parameter(description = "Número máximo de rondas", example = "20")
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(partidaService.obtenerRondas(codigo, desde, limite));
     }
 
     @Operation(summary = "Reconectar a una partida",
@@ -198,19 +270,8 @@ public class PartidaController {
             throw new IllegalArgumentException("Usuario no autenticado o no disponible para determinar jugadorId");
         }
 
-        // Obtener la partida y buscar el jugador que tenga este userId
-        var partidaResp = partidaService.obtenerPartida(codigo);
-        if (partidaResp == null || partidaResp.getJugadores() == null) {
-            throw new IllegalArgumentException("Partida no encontrada o sin jugadores: " + codigo);
-        }
-
-        String resolvedJugadorId = null;
-        for (com.juegocartas.juegocartas.model.Jugador j : partidaResp.getJugadores()) {
-            if (userId.equals(j.getUserId())) {
-                resolvedJugadorId = j.getId();
-                break;
-            }
-        }
+        // Buscar en la partida el jugador que tenga este userId
+        String resolvedJugadorId = partidaService.obtenerJugadorIdDeUsuario(codigo, userId);
 
         if (resolvedJugadorId == null) {
             throw new IllegalArgumentException("Usuario no es jugador en la partida: " + codigo);
@@ -218,4 +279,11 @@ public class PartidaController {
 
         return ResponseEntity.ok(partidaService.reorderMano(codigo, resolvedJugadorId, request));
     }
+
+    private static <T> ResponseEntity<T> responder(VistasPartida.Vista<T> vista) {
+        if (vista.noModificada()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(vista.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(vista.etag()).body(vista.cuerpo());
+    }
 }
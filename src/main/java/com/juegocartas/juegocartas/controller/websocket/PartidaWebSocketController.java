@@ -1,5 +1,7 @@
 package com.juegocartas.juegocartas.controller.websocket;
 
+import java.security.Principal;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Controller;
 import com.juegocartas.juegocartas.dto.event.PlayerDragEvent;
 import com.juegocartas.juegocartas.dto.event.ServerErrorEvent;
 import com.juegocartas.juegocartas.dto.request.ReconectarRequest;
+import com.juegocartas.juegocartas.service.DragRelay;
 import com.juegocartas.juegocartas.service.DragValidationService;
 import com.juegocartas.juegocartas.service.EventPublisher;
 
@@ -25,17 +28,20 @@ public class PartidaWebSocketController {
     private final WebSocketEventListener wsListener;
     private final com.juegocartas.juegocartas.service.PartidaService partidaService;
     private final DragValidationService dragValidationService;
+    private final DragRelay dragRelay;
     private final EventPublisher eventPublisher;
     private final com.juegocartas.juegocartas.service.GameService gameService;
 
     public PartidaWebSocketController(WebSocketEventListener wsListener,
                                       com.juegocartas.juegocartas.service.PartidaService partidaService,
                                       DragValidationService dragValidationService,
+                                      DragRelay dragRelay,
                                       EventPublisher eventPublisher,
                                       com.juegocartas.juegocartas.service.GameService gameService) {
         this.wsListener = wsListener;
         this.partidaService = partidaService;
         this.dragValidationService = dragValidationService;
+        this.dragRelay = dragRelay;
         this.eventPublisher = eventPublisher;
         this.gameService = gameService;
     }
@@ -89,7 +95,8 @@ public class PartidaWebSocketController {
     @MessageMapping("/partida/{codigo}/drag")
     public void handleDrag(@Payload PlayerDragEvent event, 
                           @DestinationVariable("codigo") String partidaCodigo,
-                          @Header("simpSessionId") String sessionId) {
+                          @Header("simpSessionId") String sessionId,
+                          Principal principal) {
         try {
             // Obtener jugadorId desde la sesión registrada
             String jugadorId = wsListener.getJugadorId(sessionId);
@@ -98,7 +105,7 @@ public class PartidaWebSocketController {
                 return;
             }
 
-            // Aplicar throttling (máximo 20 eventos/segundo)
+            // Aplicar throttling (token bucket por jugador; el evento aceptado ya consume su token)
             if (dragValidationService.shouldThrottle(jugadorId)) {
                 // Silenciosamente ignorar (no loggear para evitar spam)
                 return;
@@ -110,11 +117,8 @@ public class PartidaWebSocketController {
                 return;
             }
 
-            // Registrar evento para throttling
-            dragValidationService.recordEvent(jugadorId);
-
-            // Publicar evento a todos los suscriptores de la partida
-            eventPublisher.publish("/topic/partida/" + partidaCodigo + "/drag", event);
+            // Reenviar a los suscriptores de la partida (al momento o en fotogramas, según app.drag.relay.modo)
+            dragRelay.reenviar(partidaCodigo, event);
 
             logger.debug("Drag event published: jugador={}, partida={}, dragging={}", 
                     jugadorId, partidaCodigo, event.isDragging());
@@ -136,8 +140,11 @@ public class PartidaWebSocketController {
                 try {
                     String userDestination = "/queue/partida/" + partidaCodigo + "/errors";
                     ServerErrorEvent err = new ServerErrorEvent("PLAY_ERROR", e.getMessage(), null);
-                    // publishToUser enviará a /user/{jugadorId}{userDestination} internamente
-                    eventPublisher.publishToUser(jugadorId, userDestination, err);
+                    // publishToUser enviará a /user/{userId}{userDestination}; sólo lo reciben las
+                    // sesiones autenticadas con JWT en el CONNECT
+                    if (principal != null) {
+                        eventPublisher.publishToUser(principal.getName(), userDestination, err);
+                    }
                 } catch (Exception ex) {
                     logger.warn("Error publicando mensaje de error al usuario tras fallo en jugarCarta: {}", ex.getMessage());
                 }
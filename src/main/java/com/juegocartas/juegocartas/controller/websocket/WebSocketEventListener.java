@@ -1,8 +1,5 @@
 package com.juegocartas.juegocartas.controller.websocket;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,37 +9,32 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
 /**
  * Listener para eventos de conexión/desconexión WebSocket.
- * Gestiona las sesiones activas y las suscripciones a partidas.
+ * Gestiona las sesiones activas y las suscripciones a partidas (en el SessionRegistry).
  */
 @Component
 public class WebSocketEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketEventListener.class);
     
-    // Mapa de sessionId -> partidaSubscripta
-    private final Map<String, String> sessionPartidaMap = new ConcurrentHashMap<>();
-    
-    // Mapa de sessionId -> jugadorId (se puede poblar desde headers si se envía info adicional)
-    private final Map<String, String> sessionJugadorMap = new ConcurrentHashMap<>();
-
-    private final com.juegocartas.juegocartas.repository.PartidaRepository partidaRepository;
-    private final com.juegocartas.juegocartas.service.EventPublisher eventPublisher;
+    private final com.juegocartas.juegocartas.service.SessionRegistry sessionRegistry;
     private final com.juegocartas.juegocartas.service.DisconnectGraceService disconnectGraceService;
     private final long graceSeconds;
     private final com.juegocartas.juegocartas.service.PlayerSyncService playerSyncService;
+    private final com.juegocartas.juegocartas.service.SuscripcionSnapshotService suscripcionSnapshotService;
 
-    public WebSocketEventListener(com.juegocartas.juegocartas.repository.PartidaRepository partidaRepository,
-                                  com.juegocartas.juegocartas.service.EventPublisher eventPublisher,
+    public WebSocketEventListener(com.juegocartas.juegocartas.service.SessionRegistry sessionRegistry,
                                   com.juegocartas.juegocartas.service.DisconnectGraceService disconnectGraceService,
                                   com.juegocartas.juegocartas.service.PlayerSyncService playerSyncService,
+                                  com.juegocartas.juegocartas.service.SuscripcionSnapshotService suscripcionSnapshotService,
                                   @Value("${app.disconnect.graceSeconds:5}") long graceSeconds) {
-        this.partidaRepository = partidaRepository;
-        this.eventPublisher = eventPublisher;
+        this.sessionRegistry = sessionRegistry;
         this.disconnectGraceService = disconnectGraceService;
         this.playerSyncService = playerSyncService;
+        this.suscripcionSnapshotService = suscripcionSnapshotService;
         this.graceSeconds = graceSeconds;
     }
 
@@ -72,63 +64,44 @@ public class WebSocketEventListener {
             String rest = destination.substring("/topic/partida/".length());
             String partidaCodigo = rest.contains("/") ? rest.substring(0, rest.indexOf('/')) : rest;
             // almacenar sólo el código de partida (sin subpaths)
-            sessionPartidaMap.put(sessionId, partidaCodigo);
+            sessionRegistry.registrarPartida(sessionId, partidaCodigo);
             logger.info("Cliente {} suscrito a partida {} (raw destination={})", sessionId, partidaCodigo, destination);
 
-            // Publicar el estado actual de la partida al topic principal /topic/partida/{codigo}
+            // Enviar el estado actual sólo a esta suscripción (no a todo el topic), una vez por
+            // sesión y partida; las suscripciones a /counts, /drag, etc. no lo reciben
             try {
-                var opt = partidaRepository.findByCodigo(partidaCodigo);
-                if (opt.isPresent()) {
-                    var partida = opt.get();
-                    var partidaResp = new com.juegocartas.juegocartas.dto.response.PartidaResponse(partidaCodigo, null, partida.getJugadores());
-                    // siempre publicar en el topic principal, no en subtopics (evita mensajes inesperados en /counts, /drag, etc.)
-                    eventPublisher.publish("/topic/partida/" + partidaCodigo, partidaResp);
-                }
+                suscripcionSnapshotService.alSuscribirse(sessionId, headerAccessor.getSubscriptionId(), destination);
             } catch (Exception e) {
-                logger.error("Error publicando estado inicial de la partida al suscribirse: {}", e.getMessage(), e);
+                logger.error("Error enviando estado inicial de la partida al suscribirse: {}", e.getMessage(), e);
             }
         }
     }
 
+    @EventListener
+    public void handleWebSocketUnsubscribeListener(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        suscripcionSnapshotService.alDesuscribirse(headerAccessor.getSessionId(), headerAccessor.getSubscriptionId());
+    }
+
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
         String sessionId = headerAccessor.getSessionId();
         
         logger.info("Desconexión WebSocket: sessionId={}", sessionId);
+        suscripcionSnapshotService.alDesconectar(sessionId);
         
-        String partidaCodigo = sessionPartidaMap.remove(sessionId);
-        String jugadorId = sessionJugadorMap.remove(sessionId);
+        var sesion = sessionRegistry.eliminar(sessionId).orElse(null);
+        String partidaCodigo = sesion != null ? sesion.partidaCodigo() : null;
+        String jugadorId = sesion != null ? sesion.jugadorId() : null;
         
         if (partidaCodigo != null && jugadorId != null) {
             logger.info("Cliente desconectado (programando grace) sessionId={}, partida={}, jugador={}", 
                        sessionId, partidaCodigo, jugadorId);
 
             // Ejecutar la programación bajo lock por jugador para evitar races con cancelaciones
-            String graceKey = jugadorId;
-            playerSyncService.runLockedVoid(graceKey, () -> {
-                disconnectGraceService.scheduleDisconnect(graceKey, () -> {
-                    try {
-                        var opt = partidaRepository.findByCodigo(partidaCodigo);
-                        if (opt.isPresent()) {
-                            com.juegocartas.juegocartas.model.Partida partida = opt.get();
-                            for (com.juegocartas.juegocartas.model.Jugador j : partida.getJugadores()) {
-                                if (jugadorId.equals(j.getId())) {
-                                    j.setConectado(false);
-                                    partidaRepository.save(partida);
-
-                                    // Publicar estado actualizado de la partida
-                                    eventPublisher.publish("/topic/partida/" + partidaCodigo,
-                                            new com.juegocartas.juegocartas.dto.response.PartidaResponse(partidaCodigo, j.getId(), partida.getJugadores()));
-                                    break;
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error marcando jugador desconectado tras grace: {}", e.getMessage(), e);
-                    }
-                }, this.graceSeconds);
-            });
+            playerSyncService.runLockedVoid(jugadorId, () ->
+                    disconnectGraceService.scheduleDisconnect(jugadorId, partidaCodigo, this.graceSeconds));
         }
     }
     
@@ -139,7 +112,7 @@ public class WebSocketEventListener {
     public void registrarJugador(String sessionId, String jugadorId) {
         // Registrar y cancelar bajo lock para evitar race con la tarea programada
         playerSyncService.runLockedVoid(jugadorId, () -> {
-            sessionJugadorMap.put(sessionId, jugadorId);
+            sessionRegistry.registrarJugador(sessionId, jugadorId);
             logger.debug("Jugador {} registrado en sesión {}", jugadorId, sessionId);
 
             // Si había una tarea pendiente de desconexión, cancelarla (jugador reconectó rápido)
@@ -153,7 +126,7 @@ public class WebSocketEventListener {
     public void registrarJugadorEnPartida(String sessionId, String jugadorId, String partidaCodigo) {
         registrarJugador(sessionId, jugadorId);
         if (partidaCodigo != null) {
-            sessionPartidaMap.put(sessionId, partidaCodigo);
+            sessionRegistry.registrarPartida(sessionId, partidaCodigo);
             logger.debug("Sesión {} asociada a partida {} y jugador {}", sessionId, partidaCodigo, jugadorId);
         }
     }
@@ -162,13 +135,13 @@ public class WebSocketEventListener {
      * Obtiene el jugadorId asociado a una sesión.
      */
     public String getJugadorId(String sessionId) {
-        return sessionJugadorMap.get(sessionId);
+        return sessionRegistry.buscar(sessionId).map(com.juegocartas.juegocartas.service.SessionRegistry.Sesion::jugadorId).orElse(null);
     }
     
     /**
      * Obtiene el código de partida asociado a una sesión.
      */
     public String getPartidaCodigo(String sessionId) {
-        return sessionPartidaMap.get(sessionId);
+        return sessionRegistry.buscar(sessionId).map(com.juegocartas.juegocartas.service.SessionRegistry.Sesion::partidaCodigo).orElse(null);
     }
 }
@@ -0,0 +1,22 @@
+package com.juegocartas.juegocartas.dto.event;
+
+import java.util.List;
+
+/**
+ * Fotograma de arrastre (app.drag.relay.modo=FOTOGRAMAS): la última posición de cada jugador
+ * que movió una carta desde el fotograma anterior. Cada elemento tiene el formato de
+ * PlayerDragEvent.
+ */
+public class DragFrameEvent extends BaseGameEvent {
+
+    private final List<PlayerDragEvent> posiciones;
+
+    public DragFrameEvent(List<PlayerDragEvent> posiciones) {
+        super("DRAG_FRAME");
+        this.posiciones = posiciones;
+    }
+
+    public List<PlayerDragEvent> getPosiciones() {
+        return posiciones;
+    }
+}
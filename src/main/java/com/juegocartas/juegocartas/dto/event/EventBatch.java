@@ -0,0 +1,26 @@
+package com.juegocartas.juegocartas.dto.event;
+
+import java.util.List;
+
+/**
+ * Lote de eventos publicados en un mismo topic durante una operación, en orden de publicación.
+ * Se envía a {topic}/lote (ver EventBatcher); cada elemento tiene el mismo formato que el evento
+ * individual.
+ */
+public class EventBatch extends BaseGameEvent {
+
+    private final List<Object> eventos;
+
+    public EventBatch(List<Object> eventos) {
+        super("EVENT_BATCH");
+        this.eventos = eventos;
+    }
+
+    public List<Object> getEventos() {
+        return eventos;
+    }
+
+    public int getTotal() {
+        return eventos.size();
+    }
+}
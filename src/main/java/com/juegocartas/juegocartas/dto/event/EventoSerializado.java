@@ -0,0 +1,59 @@
+package com.juegocartas.juegocartas.dto.event;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+/**
+ * Evento ya convertido a JSON. El mensaje se construye una sola vez y se reutiliza en cada
+ * envío (topics, lotes, suscripciones). Dentro de otro objeto (p. ej. un EventBatch) se
+ * escribe tal cual, sin volver a serializar el evento.
+ */
+public final class EventoSerializado {
+
+    private final byte[] json;
+    private final Message<byte[]> mensaje;
+
+    public EventoSerializado(byte[] json) {
+        this.json = json;
+        this.mensaje = MessageBuilder.withPayload(json)
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build();
+    }
+
+    /**
+     * Copia del evento con "seq" como primer campo (sólo para eventos que son objetos JSON).
+     */
+    public EventoSerializado conSecuencia(long seq) {
+        if (json.length < 2 || json[0] != '{') return this;
+        byte[] campo = ("{\"seq\":" + seq + (json[1] == '}' ? "" : ",")).getBytes(StandardCharsets.UTF_8);
+        byte[] resultado = new byte[campo.length + json.length - 1];
+        System.arraycopy(campo, 0, resultado, 0, campo.length);
+        System.arraycopy(json, 1, resultado, campo.length, json.length - 1);
+        return new EventoSerializado(resultado);
+    }
+
+    public Message<byte[]> mensaje() {
+        return mensaje;
+    }
+
+    public int tamano() {
+        return json.length;
+    }
+
+    @JsonValue
+    public RawValue json() {
+        return new RawValue(toString());
+    }
+
+    @Override
+    public String toString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,24 @@
+package com.juegocartas.juegocartas.dto.event;
+
+/**
+ * Evento enviado cuando un jugador se reconecta o se desconecta (modo DELTAS).
+ */
+public class JugadorConexionEvent extends BaseGameEvent {
+
+    private final String jugadorId;
+    private final boolean conectado;
+
+    public JugadorConexionEvent(String jugadorId, boolean conectado) {
+        super("JUGADOR_CONEXION");
+        this.jugadorId = jugadorId;
+        this.conectado = conectado;
+    }
+
+    public String getJugadorId() {
+        return jugadorId;
+    }
+
+    public boolean isConectado() {
+        return conectado;
+    }
+}
@@ -0,0 +1,32 @@
+package com.juegocartas.juegocartas.dto.event;
+
+/**
+ * Evento enviado cuando un jugador que no es el creador sale de la partida (modo DELTAS).
+ * Los jugadores restantes conservan su posición y se renumeran 1..N; turnoActual es el
+ * jugador al que le toca tras la salida.
+ */
+public class JugadorSalioEvent extends BaseGameEvent {
+
+    private final String jugadorId;
+    private final String turnoActual;
+    private final int totalJugadores;
+
+    public JugadorSalioEvent(String jugadorId, String turnoActual, int totalJugadores) {
+        super("JUGADOR_SALIO");
+        this.jugadorId = jugadorId;
+        this.turnoActual = turnoActual;
+        this.totalJugadores = totalJugadores;
+    }
+
+    public String getJugadorId() {
+        return jugadorId;
+    }
+
+    public String getTurnoActual() {
+        return turnoActual;
+    }
+
+    public int getTotalJugadores() {
+        return totalJugadores;
+    }
+}
@@ -1,7 +1,10 @@
 package com.juegocartas.juegocartas.dto.event;
 
+import com.juegocartas.juegocartas.dto.response.JugadorPublicDTO;
+
 /**
  * Evento enviado cuando un jugador se une a una partida.
+ * En modo DELTAS lleva además los datos públicos del jugador nuevo.
  */
 public class JugadorUnidoEvent extends BaseGameEvent {
     
@@ -9,13 +12,20 @@ public class JugadorUnidoEvent extends BaseGameEvent {
     private final String nombreJugador;
     private final int totalJugadores;
     private final int jugadoresRequeridos;
+    private final JugadorPublicDTO jugador;
 
     public JugadorUnidoEvent(String jugadorId, String nombreJugador, int totalJugadores, int jugadoresRequeridos) {
+        this(jugadorId, nombreJugador, totalJugadores, jugadoresRequeridos, null);
+    }
+
+    public JugadorUnidoEvent(String jugadorId, String nombreJugador, int totalJugadores, int jugadoresRequeridos,
+                             JugadorPublicDTO jugador) {
         super("JUGADOR_UNIDO");
         this.jugadorId = jugadorId;
         this.nombreJugador = nombreJugador;
         this.totalJugadores = totalJugadores;
         this.jugadoresRequeridos = jugadoresRequeridos;
+        this.jugador = jugador;
     }
 
     public String getJugadorId() {
@@ -33,4 +43,8 @@ public class JugadorUnidoEvent extends BaseGameEvent {
     public int getJugadoresRequeridos() {
         return jugadoresRequeridos;
     }
+
+    public JugadorPublicDTO getJugador() {
+        return jugador;
+    }
 }
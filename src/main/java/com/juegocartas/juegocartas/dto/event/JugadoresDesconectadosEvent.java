@@ -0,0 +1,21 @@
+package com.juegocartas.juegocartas.dto.event;
+
+import java.util.List;
+
+/**
+ * Evento enviado cuando vence a la vez el grace de varios jugadores de la partida (modo DELTAS).
+ * Equivale a un JUGADOR_CONEXION con conectado=false por cada jugador.
+ */
+public class JugadoresDesconectadosEvent extends BaseGameEvent {
+
+    private final List<String> jugadorIds;
+
+    public JugadoresDesconectadosEvent(List<String> jugadorIds) {
+        super("JUGADORES_DESCONECTADOS");
+        this.jugadorIds = jugadorIds;
+    }
+
+    public List<String> getJugadorIds() {
+        return jugadorIds;
+    }
+}
@@ -0,0 +1,27 @@
+package com.juegocartas.juegocartas.dto.event;
+
+import com.juegocartas.juegocartas.dto.response.JugadorPrivateDTO;
+
+/**
+ * Mano del jugador, enviada sólo a él en /user/queue/partida/{codigo}/mano
+ * (al reconectarse y al reordenarla).
+ */
+public class ManoActualizadaEvent extends BaseGameEvent {
+
+    private final String codigo;
+    private final JugadorPrivateDTO jugador;
+
+    public ManoActualizadaEvent(String codigo, JugadorPrivateDTO jugador) {
+        super("MANO_ACTUALIZADA");
+        this.codigo = codigo;
+        this.jugador = jugador;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public JugadorPrivateDTO getJugador() {
+        return jugador;
+    }
+}
@@ -1,7 +1,10 @@
 package com.juegocartas.juegocartas.dto.response;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import com.juegocartas.juegocartas.model.Jugador;
+
 /**
  * DTO para información completa de un jugador (incluyendo su mano).
  * Solo se envía al jugador propietario.
@@ -27,6 +30,23 @@ public class JugadorPrivateDTO extends JugadorPublicDTO {
         this.cartaActual = cartaActual;
     }
 
+    /**
+     * Datos completos del jugador; la mano se copia para que el DTO no cambie con la partida.
+     */
+    public static JugadorPrivateDTO desde(Jugador j) {
+        return new JugadorPrivateDTO(
+            j.getId(),
+            j.getNombre(),
+            j.getNumeroCartas(),
+            j.getOrden(),
+            j.isConectado(),
+            j.getTransformacionActiva(),
+            j.getIndiceTransformacion(),
+            j.getCartasEnMano() != null ? new ArrayList<>(j.getCartasEnMano()) : null,
+            j.getCartaActual()
+        );
+    }
+
     public List<String> getCartasEnMano() {
         return cartasEnMano;
     }
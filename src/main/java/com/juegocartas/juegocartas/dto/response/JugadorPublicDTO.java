@@ -1,5 +1,7 @@
 package com.juegocartas.juegocartas.dto.response;
 
+import com.juegocartas.juegocartas.model.Jugador;
+
 /**
  * DTO para información pública de un jugador.
  * No expone cartas en mano ni carta actual (información privada).
@@ -31,6 +33,21 @@ public class JugadorPublicDTO {
         this.indiceTransformacion = indiceTransformacion;
     }
 
+    /**
+     * Datos públicos de un jugador, copiados en el momento de la llamada.
+     */
+    public static JugadorPublicDTO desde(Jugador j) {
+        return new JugadorPublicDTO(
+            j.getId(),
+            j.getNombre(),
+            j.getNumeroCartas(),
+            j.getOrden(),
+            j.isConectado(),
+            j.getTransformacionActiva(),
+            j.getIndiceTransformacion()
+        );
+    }
+
     // Getters y Setters
     public String getId() {
         return id;
@@ -4,10 +4,15 @@ import java.util.List;
 
 import com.juegocartas.juegocartas.model.Jugador;
 
+/**
+ * Estado de la partida que se publica en /topic/partida/{codigo} y devuelven los endpoints
+ * de partidas. Los jugadores van como JugadorPublicDTO: la mano de cada jugador sólo se le
+ * envía a él (MANO_ACTUALIZADA en /user/queue/partida/{codigo}/mano o GET .../detalle).
+ */
 public class PartidaResponse {
     private String codigo;
     private String jugadorId;
-    private List<Jugador> jugadores;
+    private List<JugadorPublicDTO> jugadores;
     private boolean eliminada = false;
     private String tipo; // tipo de evento para que el frontend lo identifique
 
@@ -16,14 +21,14 @@ public class PartidaResponse {
     public PartidaResponse(String codigo, String jugadorId, List<Jugador> jugadores) {
         this.codigo = codigo;
         this.jugadorId = jugadorId;
-        this.jugadores = jugadores;
+        this.jugadores = publicos(jugadores);
         this.tipo = "PARTIDA_STATE";
     }
 
     public PartidaResponse(String codigo, String jugadorId, List<Jugador> jugadores, boolean eliminada) {
         this.codigo = codigo;
         this.jugadorId = jugadorId;
-        this.jugadores = jugadores;
+        this.jugadores = publicos(jugadores);
         this.eliminada = eliminada;
         this.tipo = "PARTIDA_STATE";
     }
@@ -47,11 +52,11 @@ public class PartidaResponse {
         this.jugadorId = jugadorId;
     }
 
-    public List<Jugador> getJugadores() {
+    public List<JugadorPublicDTO> getJugadores() {
         return jugadores;
     }
 
-    public void setJugadores(List<Jugador> jugadores) {
+    public void setJugadores(List<JugadorPublicDTO> jugadores) {
         this.jugadores = jugadores;
     }
 
@@ -62,4 +67,8 @@ public class PartidaResponse {
     public void setEliminada(boolean eliminada) {
         this.eliminada = eliminada;
     }
+
+    private static List<JugadorPublicDTO> publicos(List<Jugador> jugadores) {
+        return jugadores != null ? jugadores.stream().map(JugadorPublicDTO::desde).toList() : null;
+    }
 }
@@ -0,0 +1,33 @@
+package com.juegocartas.juegocartas.dto.response;
+
+import java.util.List;
+
+import com.juegocartas.juegocartas.model.Ronda;
+
+/**
+ * Una página del historial de rondas de una partida. Para la página siguiente se pide
+ * desde=siguiente; siguiente es null en la última página.
+ */
+public class RondasResponse {
+    private final String codigo;
+    private final List<Ronda> rondas;
+    private final Integer siguiente;
+
+    public RondasResponse(String codigo, List<Ronda> rondas, Integer siguiente) {
+        this.codigo = codigo;
+        this.rondas = rondas;
+        this.siguiente = siguiente;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public List<Ronda> getRondas() {
+        return rondas;
+    }
+
+    public Integer getSiguiente() {
+        return siguiente;
+    }
+}
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "partidas")
@@ -12,6 +13,10 @@ public class Partida {
 
     @Id
     private String id;
+
+    // Control de concurrencia optimista: cada escritura comprueba e incrementa la versión
+    @Version
+    private Long version;
     private String codigo;
     private String estado;
     private List<Jugador> jugadores = new ArrayList<>();
@@ -19,11 +24,15 @@ public class Partida {
     private String turnoActual;
     private String atributoSeleccionado;
     private List<String> cartasAcumuladasEmpate = new ArrayList<>();
-    private List<Ronda> historialRondas = new ArrayList<>();
+    // Rondas resueltas; el historial de cada ronda está en la colección rondas (HistorialRondas)
+    private int rondasJugadas;
     private String ganador;
     private Instant tiempoInicio;
     private int tiempoLimite = 1800; // 30 minutos por defecto
     private Instant fechaCreacion = Instant.now();
+    // Última escritura en MongoDB (la fija el servidor, ver PartidaMutationRepositoryImpl); las
+    // partidas en espera inactivas caducan por un índice TTL sobre este campo
+    private Instant ultimaActividad = Instant.now();
     
     // Configuración de jugadores
     private int minJugadores = 2;
@@ -44,6 +53,14 @@ public class Partida {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getCodigo() {
         return codigo;
     }
@@ -100,12 +117,12 @@ public class Partida {
         this.cartasAcumuladasEmpate = cartasAcumuladasEmpate;
     }
 
-    public List<Ronda> getHistorialRondas() {
-        return historialRondas;
+    public int getRondasJugadas() {
+        return rondasJugadas;
     }
 
-    public void setHistorialRondas(List<Ronda> historialRondas) {
-        this.historialRondas = historialRondas;
+    public void setRondasJugadas(int rondasJugadas) {
+        this.rondasJugadas = rondasJugadas;
     }
 
     public String getGanador() {
@@ -140,6 +157,14 @@ public class Partida {
         this.fechaCreacion = fechaCreacion;
     }
 
+    public Instant getUltimaActividad() {
+        return ultimaActividad;
+    }
+
+    public void setUltimaActividad(Instant ultimaActividad) {
+        this.ultimaActividad = ultimaActividad;
+    }
+
     public int getMinJugadores() {
         return minJugadores;
     }
@@ -1,9 +1,24 @@
 package com.juegocartas.juegocartas.model;
 
+import java.time.Instant;
 import java.util.List;
 
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Una ronda resuelta. Se guarda aparte de la partida, en la colección rondas (un documento por
+ * ronda, sólo se añaden), para que el documento de la partida no crezca con cada ronda.
+ * El id es partidaId:numero, así que volver a escribir una ronda no la duplica.
+ */
+@Document(collection = "rondas")
 public class Ronda {
 
+    @Id
+    private String id;
+    private String partidaId;
+    private String partidaCodigo;
+    private Instant fecha;
     private int numero;
     private String ganadorId;
     private String atributo;
@@ -19,6 +34,38 @@ public class Ronda {
         this.cartasJugadas = cartasJugadas;
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPartidaId() {
+        return partidaId;
+    }
+
+    public void setPartidaId(String partidaId) {
+        this.partidaId = partidaId;
+    }
+
+    public String getPartidaCodigo() {
+        return partidaCodigo;
+    }
+
+    public void setPartidaCodigo(String partidaCodigo) {
+        this.partidaCodigo = partidaCodigo;
+    }
+
+    public Instant getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(Instant fecha) {
+        this.fecha = fecha;
+    }
+
     public int getNumero() {
         return numero;
     }
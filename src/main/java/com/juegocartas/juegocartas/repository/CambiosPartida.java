@@ -0,0 +1,9 @@
+package com.juegocartas.juegocartas.repository;
+
+import org.bson.Document;
+
+/**
+ * Update pendiente de una partida junto con la versión que debe tener en MongoDB para aplicarse.
+ */
+public record CambiosPartida(String id, Long versionEsperada, Document update) {
+}
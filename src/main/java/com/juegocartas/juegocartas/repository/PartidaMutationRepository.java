@@ -0,0 +1,108 @@
+package com.juegocartas.juegocartas.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.bson.Document;
+
+import com.juegocartas.juegocartas.model.CartaEnMesa;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+
+/**
+ * Escrituras parciales de partidas ($set/$push sobre campos concretos). Requieren que la
+ * partida ya exista (id no nulo).
+ *
+ * Todas las escrituras son condicionales a la versión (@Version) de la partida: si otra
+ * instancia la modificó antes, no se aplica nada y se lanza OptimisticLockingFailureException.
+ * Tras una escritura correcta se actualiza la versión de la partida en memoria. Todas fijan
+ * también ultimaActividad con la hora del servidor.
+ */
+public interface PartidaMutationRepository {
+
+    /**
+     * $set del atributo seleccionado para la ronda.
+     */
+    void actualizarAtributo(Partida partida);
+
+    /**
+     * $set de la mano del jugador y $push de la carta a la mesa.
+     */
+    void registrarCartaJugada(Partida partida, Jugador jugador, CartaEnMesa carta);
+
+    /**
+     * $set del jugador completo (conexión, transformación, orden de la mano).
+     */
+    void actualizarJugador(Partida partida, Jugador jugador);
+
+    /**
+     * $push de un nuevo jugador.
+     */
+    void agregarJugador(Partida partida, Jugador jugador);
+
+    /**
+     * $set de jugadores, mesa y turno (por ejemplo tras la salida de un jugador).
+     */
+    void actualizarJugadores(Partida partida);
+
+    /**
+     * Escribe todo el estado de la partida (salvo id y versión).
+     */
+    void guardarCambios(Partida partida);
+
+    /**
+     * Construye (sin escribir) el update equivalente a {@link #guardarCambios(Partida)}, sin la
+     * versión. Los valores quedan convertidos, por lo que el resultado es una copia
+     * independiente de la partida.
+     */
+    Document cambios(Partida partida);
+
+    /**
+     * Aplica en un único bulkWrite los updates construidos con {@link #cambios(Partida)}.
+     * No lanza excepción por conflictos de versión: devuelve los ids que no se escribieron.
+     */
+    Set<String> escribirCambios(List<CambiosPartida> cambios);
+
+    /**
+     * Asigna versión 0 a las partidas guardadas antes de existir el campo.
+     */
+    long inicializarVersiones();
+
+    /**
+     * Mueve a la colección rondas el historialRondas de las partidas guardadas cuando el
+     * historial iba dentro del documento, y lo retira de la partida. Se puede repetir: las rondas
+     * ya copiadas se sobrescriben con el mismo contenido. Devuelve las partidas migradas.
+     */
+    long migrarHistorialRondas();
+
+    /**
+     * Asigna ultimaActividad (la fecha de creación) a las partidas guardadas antes de existir el
+     * campo, para que el TTL de las partidas en espera y el archivo las tengan en cuenta.
+     */
+    long inicializarActividad();
+
+    /**
+     * Copia a la colección partidas_archivo hasta limite partidas FINALIZADA sin actividad desde
+     * antesDe y las borra de partidas. Las que cambiaron entre la copia y el borrado siguen en
+     * partidas (y su copia se retira). Devuelve los códigos archivados.
+     */
+    List<String> archivarFinalizadas(Instant antesDe, int limite);
+
+    /**
+     * La última partida archivada con el código.
+     */
+    Optional<Partida> buscarArchivada(String codigo);
+
+    /**
+     * Partidas de la colección partidas por estado (un conteo por índice para cada estado).
+     */
+    Map<String, Long> contarPorEstado();
+
+    /**
+     * Número aproximado de partidas archivadas (metadatos de la colección).
+     */
+    long contarArchivadas();
+}
@@ -0,0 +1,363 @@
+package com.juegocartas.juegocartas.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.util.TypeInformation;
+
+import com.juegocartas.juegocartas.model.CartaEnMesa;
+import com.juegocartas.juegocartas.model.EstadoPartida;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.model.Ronda;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * Implementación de {@link PartidaMutationRepository} sobre MongoTemplate.
+ *
+ * Los updates se construyen con los nombres de campo del mapeo de Spring Data y con los valores
+ * ya convertidos a tipos de Mongo, de modo que coinciden con lo que escribiría save().
+ * Cada update filtra por la versión esperada, incrementa la versión ($inc) y fija
+ * ultimaActividad con la hora del servidor ($currentDate).
+ *
+ * Las partidas archivadas se guardan tal cual en partidas_archivo, con el campo archivadaEn.
+ */
+public class PartidaMutationRepositoryImpl implements PartidaMutationRepository {
+
+    // campo donde iba el historial antes de la colección rondas (sólo para migrarlo)
+    private static final String HISTORIAL_RONDAS = "historialRondas";
+
+    private static final String ULTIMA_ACTIVIDAD = "ultimaActividad";
+    private static final String COLECCION_ARCHIVO = "partidas_archivo";
+    private static final String ARCHIVADA_EN = "archivadaEn";
+    // marca única de cada escritura de escribirCambios, para saber después cuáles se aplicaron
+    private static final String ESCRITURA = "escritura";
+
+    private final MongoTemplate mongoTemplate;
+
+    public PartidaMutationRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void actualizarAtributo(Partida partida) {
+        actualizar(partida, porId(partida), new Document("$set",
+                new Document(campo("atributoSeleccionado"), partida.getAtributoSeleccionado())));
+    }
+
+    @Override
+    public void registrarCartaJugada(Partida partida, Jugador jugador, CartaEnMesa carta) {
+        actualizar(partida, porJugador(partida, jugador), updateCartaJugada(partida, jugador, carta));
+    }
+
+    @Override
+    public void actualizarJugador(Partida partida, Jugador jugador) {
+        actualizar(partida, porJugador(partida, jugador), new Document("$set",
+                new Document(campo("jugadores") + ".$", convertir(jugador, Jugador.class))));
+    }
+
+    @Override
+    public void agregarJugador(Partida partida, Jugador jugador) {
+        actualizar(partida, porId(partida), new Document("$push",
+                new Document(campo("jugadores"), convertir(jugador, Jugador.class))));
+    }
+
+    @Override
+    public void actualizarJugadores(Partida partida) {
+        MongoPersistentEntity<?> entidad = entidad();
+        PersistentPropertyAccessor<Partida> accessor = entidad.getPropertyAccessor(partida);
+        Document set = new Document();
+        for (String nombre : List.of("jugadores", "cartasEnMesa", "turnoActual")) {
+            MongoPersistentProperty propiedad = entidad.getRequiredPersistentProperty(nombre);
+            set.put(propiedad.getFieldName(), convertir(accessor.getProperty(propiedad), propiedad));
+        }
+        actualizar(partida, porId(partida), new Document("$set", set));
+    }
+
+    @Override
+    public void guardarCambios(Partida partida) {
+        actualizar(partida, porId(partida), cambios(partida));
+    }
+
+    @Override
+    public Document cambios(Partida partida) {
+        MongoPersistentEntity<?> entidad = entidad();
+        PersistentPropertyAccessor<Partida> accessor = entidad.getPropertyAccessor(partida);
+        Document set = new Document();
+        for (MongoPersistentProperty propiedad : entidad) {
+            // ultimaActividad la fija $currentDate (ver conVersion)
+            if (propiedad.isIdProperty() || propiedad.isVersionProperty()
+                    || propiedad.getName().equals(ULTIMA_ACTIVIDAD)) continue;
+            set.put(propiedad.getFieldName(), convertir(accessor.getProperty(propiedad), propiedad));
+        }
+        return new Document("$set", set);
+    }
+
+    @Override
+    public Set<String> escribirCambios(List<CambiosPartida> cambios) {
+        if (cambios.isEmpty()) return Set.of();
+        String version = campoVersion();
+        List<WriteModel<Document>> modelos = new ArrayList<>(cambios.size());
+        Map<Object, ObjectId> marcas = new HashMap<>();
+        for (CambiosPartida c : cambios) {
+            ObjectId marca = new ObjectId();
+            marcas.put(idMongo(c.id()), marca);
+            Document update = conVersion(c.update());
+            Document set = new Document(update.get("$set", Document.class));
+            set.put(ESCRITURA, marca);
+            update.put("$set", set);
+            modelos.add(new UpdateOneModel<>(
+                    new Document("_id", idMongo(c.id())).append(version, c.versionEsperada()), update));
+        }
+        BulkWriteResult resultado = coleccion().bulkWrite(modelos, new BulkWriteOptions().ordered(false));
+        if (resultado.getMatchedCount() == cambios.size()) return Set.of();
+
+        // Algún filtro de versión no coincidió: una escritura se aplicó sólo si el documento lleva
+        // su marca. La versión no basta: una escritura de otra instancia también la deja en
+        // esperada + 1. Si otra escritura posterior ya pisó la marca, cuenta como conflicto y la
+        // partida se vuelve a leer, lo que también es correcto.
+        Set<Object> aplicadas = new HashSet<>();
+        for (Document d : coleccion().find(Filters.in("_id", marcas.keySet())).projection(Projections.include(ESCRITURA))) {
+            if (Objects.equals(marcas.get(d.get("_id")), d.get(ESCRITURA))) aplicadas.add(d.get("_id"));
+        }
+        Set<String> conflictos = new HashSet<>();
+        for (CambiosPartida c : cambios) {
+            if (!aplicadas.contains(idMongo(c.id()))) conflictos.add(c.id());
+        }
+        return conflictos;
+    }
+
+    @Override
+    public long inicializarVersiones() {
+        String version = campoVersion();
+        return coleccion().updateMany(Filters.exists(version, false),
+                new Document("$set", new Document(version, 0L))).getModifiedCount();
+    }
+
+    @Override
+    public long migrarHistorialRondas() {
+        MongoCollection<Document> rondas = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Ronda.class));
+        String codigo = campo("codigo");
+        String rondasJugadas = campo("rondasJugadas");
+        long migradas = 0;
+        for (Document d : coleccion().find(Filters.exists(HISTORIAL_RONDAS))
+                .projection(Projections.include(codigo, HISTORIAL_RONDAS))) {
+            String partidaId = d.get("_id").toString();
+            List<Document> historial = d.getList(HISTORIAL_RONDAS, Document.class, List.of());
+            List<WriteModel<Document>> escrituras = new ArrayList<>(historial.size());
+            for (Document ronda : historial) {
+                String id = partidaId + ":" + ronda.getInteger("numero");
+                Document documento = new Document(ronda).append("_id", id)
+                        .append("partidaId", partidaId).append("partidaCodigo", d.getString(codigo));
+                escrituras.add(new ReplaceOneModel<>(Filters.eq("_id", id), documento, new ReplaceOptions().upsert(true)));
+            }
+            if (!escrituras.isEmpty()) {
+                rondas.bulkWrite(escrituras, new BulkWriteOptions().ordered(false));
+            }
+            // sin tocar la versión: el resto del documento no cambia
+            coleccion().updateOne(Filters.eq("_id", d.get("_id")), Updates.combine(
+                    Updates.unset(HISTORIAL_RONDAS), Updates.max(rondasJugadas, historial.size())));
+            migradas++;
+        }
+        return migradas;
+    }
+
+    @Override
+    public long inicializarActividad() {
+        String actividad = campo(ULTIMA_ACTIVIDAD);
+        Document valor = new Document("$ifNull", List.of("$" + campo("fechaCreacion"), "$$NOW"));
+        return coleccion().updateMany(Filters.exists(actividad, false),
+                List.of(new Document("$set", new Document(actividad, valor)))).getModifiedCount();
+    }
+
+    @Override
+    public List<String> archivarFinalizadas(Instant antesDe, int limite) {
+        String codigo = campo("codigo");
+        String version = campoVersion();
+        List<Document> partidas = coleccion().find(Filters.and(
+                        Filters.eq(campo("estado"), EstadoPartida.FINALIZADA.name()),
+                        Filters.lt(campo(ULTIMA_ACTIVIDAD), Date.from(antesDe))))
+                .limit(limite)
+                .into(new ArrayList<>());
+        if (partidas.isEmpty()) return List.of();
+
+        Date ahora = new Date();
+        List<WriteModel<Document>> copias = new ArrayList<>(partidas.size());
+        List<WriteModel<Document>> borrados = new ArrayList<>(partidas.size());
+        List<Object> ids = new ArrayList<>(partidas.size());
+        for (Document d : partidas) {
+            Object id = d.get("_id");
+            ids.add(id);
+            copias.add(new ReplaceOneModel<>(Filters.eq("_id", id), new Document(d).append(ARCHIVADA_EN, ahora),
+                    new ReplaceOptions().upsert(true)));
+            // sólo si nadie la escribió después de leerla
+            borrados.add(new DeleteOneModel<>(Filters.and(Filters.eq("_id", id), Filters.eq(version, d.get(version)))));
+        }
+        archivo().bulkWrite(copias, new BulkWriteOptions().ordered(false));
+        BulkWriteResult resultado = coleccion().bulkWrite(borrados, new BulkWriteOptions().ordered(false));
+
+        Set<Object> siguen = new HashSet<>();
+        if (resultado.getDeletedCount() < partidas.size()) {
+            for (Document d : coleccion().find(Filters.in("_id", ids)).projection(Projections.include("_id"))) {
+                siguen.add(d.get("_id"));
+            }
+            // la copia ya no es la última versión: se archivará de nuevo si sigue sin actividad
+            archivo().deleteMany(Filters.in("_id", siguen));
+        }
+        List<String> archivadas = new ArrayList<>(partidas.size() - siguen.size());
+        for (Document d : partidas) {
+            if (!siguen.contains(d.get("_id"))) archivadas.add(d.getString(codigo));
+        }
+        return archivadas;
+    }
+
+    @Override
+    public Optional<Partida> buscarArchivada(String codigo) {
+        Document d = archivo().find(Filters.eq(campo("codigo"), codigo))
+                .sort(Sorts.descending(ARCHIVADA_EN))
+                .first();
+        return Optional.ofNullable(d).map(documento -> mongoTemplate.getConverter().read(Partida.class, documento));
+    }
+
+    @Override
+    public Map<String, Long> contarPorEstado() {
+        String estado = campo("estado");
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        for (EstadoPartida e : EstadoPartida.values()) {
+            conteos.put(e.name(), coleccion().countDocuments(Filters.eq(estado, e.name())));
+        }
+        return conteos;
+    }
+
+    @Override
+    public long contarArchivadas() {
+        return archivo().estimatedDocumentCount();
+    }
+
+    Document updateCartaJugada(Partida partida, Jugador jugador, CartaEnMesa carta) {
+        String jugadores = campo("jugadores") + ".$.";
+        MongoPersistentEntity<?> entidadJugador = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Jugador.class);
+
+        Document set = new Document()
+                .append(jugadores + entidadJugador.getRequiredPersistentProperty("cartasEnMano").getFieldName(),
+                        new ArrayList<>(jugador.getCartasEnMano()))
+                .append(jugadores + entidadJugador.getRequiredPersistentProperty("numeroCartas").getFieldName(),
+                        jugador.getNumeroCartas())
+                .append(jugadores + entidadJugador.getRequiredPersistentProperty("cartaActual").getFieldName(),
+                        jugador.getCartaActual());
+        return new Document("$set", set)
+                .append("$push", new Document(campo("cartasEnMesa"), convertir(carta, CartaEnMesa.class)));
+    }
+
+    Document porId(Partida partida) {
+        return new Document("_id", idMongo(partida.getId()));
+    }
+
+    Document porJugador(Partida partida, Jugador jugador) {
+        String idJugador = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Jugador.class).getRequiredIdProperty().getFieldName();
+        // filtro plano (sin $and) para que el operador posicional jugadores.$ resuelva el jugador
+        return porId(partida).append(campo("jugadores") + "." + idJugador, jugador.getId());
+    }
+
+    private void actualizar(Partida partida, Document filtro, Document update) {
+        Long esperada = partida.getVersion();
+        filtro.append(campoVersion(), esperada);
+        UpdateResult resultado = coleccion().updateOne(filtro, conVersion(update));
+        if (resultado.getMatchedCount() == 0) {
+            throw new OptimisticLockingFailureException("La partida " + partida.getCodigo()
+                    + " fue modificada por otra operación (versión esperada " + esperada + ")");
+        }
+        partida.setVersion(siguienteVersion(esperada));
+    }
+
+    private Document conVersion(Document update) {
+        Document resultado = new Document(update);
+        resultado.put("$inc", new Document(campoVersion(), 1L));
+        resultado.put("$currentDate", new Document(campo(ULTIMA_ACTIVIDAD), true));
+        return resultado;
+    }
+
+    private static long siguienteVersion(Long esperada) {
+        // $inc sobre un campo ausente lo deja en 1, igual que sobre 0
+        return Objects.requireNonNullElse(esperada, 0L) + 1;
+    }
+
+    private String campoVersion() {
+        return entidad().getRequiredVersionProperty().getFieldName();
+    }
+
+    private MongoCollection<Document> coleccion() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Partida.class));
+    }
+
+    private MongoCollection<Document> archivo() {
+        return mongoTemplate.getCollection(COLECCION_ARCHIVO);
+    }
+
+    private MongoPersistentEntity<?> entidad() {
+        return mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Partida.class);
+    }
+
+    private String campo(String propiedad) {
+        return entidad().getRequiredPersistentProperty(propiedad).getFieldName();
+    }
+
+    private Object idMongo(String id) {
+        // mismo criterio que save(): los ids con formato ObjectId se guardan como ObjectId
+        return mongoTemplate.getConverter().convertId(id, ObjectId.class);
+    }
+
+    private Object convertir(Object valor, MongoPersistentProperty propiedad) {
+        if (valor instanceof Collection<?> coleccion && propiedad.isCollectionLike()) {
+            // elemento a elemento con su tipo declarado, para no añadir _class como hace save()
+            TypeInformation<?> tipoElemento = propiedad.getTypeInformation().getRequiredActualType();
+            List<Object> convertidos = new ArrayList<>(coleccion.size());
+            for (Object elemento : coleccion) {
+                convertidos.add(convertir(elemento, tipoElemento));
+            }
+            return convertidos;
+        }
+        return convertir(valor, propiedad.getTypeInformation());
+    }
+
+    private Object convertir(Object valor, Class<?> tipo) {
+        return convertir(valor, TypeInformation.of(tipo));
+    }
+
+    private Object convertir(Object valor, TypeInformation<?> tipo) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        return converter.convertToMongoType(valor, tipo);
+    }
+}
@@ -1,13 +1,47 @@
 package com.juegocartas.juegocartas.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.juegocartas.juegocartas.model.Partida;
 
 @Repository
-public interface PartidaRepository extends MongoRepository<Partida, String> {
+public interface PartidaRepository extends MongoRepository<Partida, String>, PartidaMutationRepository {
     Optional<Partida> findByCodigo(String codigo);
+    List<Partida> findByEstado(String estado);
+
+    /**
+     * Partidas en el estado indicado en las que juega el usuario. Usa el índice
+     * estado + jugadores.userId (ver IndicesMongo) y sólo trae el código y el jugador del usuario.
+     */
+    @Query(value = "{ 'estado': ?0, 'jugadores.userId': ?1 }", fields = "{ 'codigo': 1, 'jugadores.$': 1 }")
+    List<Partida> findByEstadoAndJugadorUserId(String estado, String userId);
+
+    /**
+     * Sólo lo que muestra GET /api/partidas/{codigo} (PartidaResponse): los datos públicos de los
+     * jugadores, sin manos, y la versión para el ETag (ver VistasPartida).
+     */
+    @Query(value = "{ 'codigo': ?0 }", fields = "{ 'codigo': 1, 'version': 1, 'estado': 1, 'jugadores._id': 1, "
+            + "'jugadores.nombre': 1, 'jugadores.numeroCartas': 1, 'jugadores.orden': 1, 'jugadores.conectado': 1, "
+            + "'jugadores.transformacionActiva': 1, 'jugadores.indiceTransformacion': 1 }")
+    Optional<Partida> findPublicaByCodigo(String codigo);
+
+    /**
+     * Sólo lo que muestra GET /api/partidas/{codigo}/detalle (PartidaDetailResponse): sin cartas
+     * en mesa ni acumuladas por empate.
+     */
+    @Query(value = "{ 'codigo': ?0 }", fields = "{ 'codigo': 1, 'version': 1, 'estado': 1, 'turnoActual': 1, "
+            + "'atributoSeleccionado': 1, 'tiempoInicio': 1, 'tiempoLimite': 1, 'jugadores': 1 }")
+    Optional<Partida> findDetalleByCodigo(String codigo);
+
+    /**
+     * Cuáles de los códigos tienen partida (sólo trae el código).
+     */
+    @Query(value = "{ 'codigo': { $in: ?0 } }", fields = "{ 'codigo': 1 }")
+    List<Partida> findCodigosByCodigoIn(Collection<String> codigos);
 }
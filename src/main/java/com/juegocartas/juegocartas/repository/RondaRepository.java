@@ -0,0 +1,18 @@
+package com.juegocartas.juegocartas.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.juegocartas.juegocartas.model.Ronda;
+
+@Repository
+public interface RondaRepository extends MongoRepository<Ronda, String> {
+
+    /**
+     * Rondas de la partida posteriores a la ronda desde, en orden (índice partidaId + numero).
+     */
+    List<Ronda> findByPartidaIdAndNumeroGreaterThanOrderByNumeroAsc(String partidaId, int desde, Limit limite);
+}
@@ -0,0 +1,513 @@
+package com.juegocartas.juegocartas.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.model.EstadoPartida;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.CambiosPartida;
+import com.juegocartas.juegocartas.repository.PartidaMutationRepository;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registro en memoria de las partidas EN_CURSO.
+ *
+ * Mientras una partida está en curso, las acciones se aplican sobre la copia en memoria dentro
+ * de {@link #ejecutar(String, Supplier)} y cada cambio se escribe en MongoDB antes de terminar
+ * la operación, condicionado a la versión: un conflicto con otra instancia hace que la operación
+ * se repita sobre la partida recargada, nunca que se pierda una acción ya confirmada.
+ *
+ * Con app.game.registry.writeBehind=true la copia en memoria pasa a ser la autoritativa: los
+ * cambios sólo marcan la partida como modificada y un proceso periódico las escribe por lotes;
+ * al resolver una ronda o finalizar la partida se fuerza la escritura. Un conflicto en ese flush
+ * descarta acciones que los jugadores ya vieron aplicadas, así que sólo es seguro si cada partida
+ * se atiende siempre desde la misma instancia (una sola réplica, o enrutado por partida).
+ * El historial de rondas no va en el documento de la partida (ver {@link HistorialRondas}).
+ *
+ * Las partidas que no están en memoria (en espera, o con el registro deshabilitado mediante
+ * app.game.registry.enabled=false) se escriben directamente con la actualización parcial
+ * que indique el llamador, o con save() si no la hay.
+ *
+ * Todas las escrituras comprueban la versión de la partida (@Version). Si otra instancia la
+ * modificó, {@link #ejecutar(String, Supplier)} descarta la copia local y repite la operación
+ * con la partida recargada, hasta app.game.optimistic.maxIntentos veces.
+ *
+ * Cada intento se ejecuta dentro de {@link EventBatcher#enLote(Supplier)}: con lotes habilitados,
+ * los eventos de la operación salen juntos al terminar y los de un intento fallido se descartan.
+ *
+ * El lock y la versión de estado de cada partida se retiran con {@link #olvidar(Collection)}
+ * cuando la partida deja de existir (archivada, caducada o eliminada).
+ */
+@Service
+public class ActiveGameRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveGameRegistry.class);
+
+    private final PartidaRepository partidaRepository;
+    private final MetricsService metricsService;
+    private final EventBatcher eventBatcher;
+    private final boolean habilitado;
+    private final boolean escrituraDiferida;
+    private final int tamanoLote;
+    private final int maxIntentos;
+
+    // Locks por código de partida: sólo protegen la copia en memoria compartida entre hilos
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    // codigo -> partida viva
+    private final Map<String, Entrada> activas = new ConcurrentHashMap<>();
+
+    // códigos con cambios pendientes de escribir
+    private final Set<String> modificadas = ConcurrentHashMap.newKeySet();
+
+    // codigo -> versión del estado (cambia con cada cambio guardado o descartado en esta instancia).
+    // Los valores salen de un único reloj y nunca se repiten, así que olvidar una partida no hace
+    // que una vista derivada antigua vuelva a parecer vigente.
+    private final Map<String, Long> versionesEstado = new ConcurrentHashMap<>();
+    private final AtomicLong relojEstado = new AtomicLong();
+    // versión de las partidas sin entrada; cambia cada vez que se olvidan partidas
+    private volatile long versionOlvidadas;
+
+    // Serializa las escrituras en Mongo para que una escritura antigua nunca pise a una más nueva
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    public ActiveGameRegistry(PartidaRepository partidaRepository,
+                              MetricsService metricsService,
+                              EventBatcher eventBatcher,
+                              @Value("${app.game.registry.enabled:true}") boolean habilitado,
+                              @Value("${app.game.registry.writeBehind:false}") boolean escrituraDiferida,
+                              @Value("${app.game.registry.flushBatchSize:100}") int tamanoLote,
+                              @Value("${app.game.optimistic.maxIntentos:3}") int maxIntentos) {
+        this.partidaRepository = partidaRepository;
+        this.metricsService = metricsService;
+        this.eventBatcher = eventBatcher;
+        this.habilitado = habilitado;
+        this.escrituraDiferida = escrituraDiferida;
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.maxIntentos = Math.max(1, maxIntentos);
+
+        metricsService.registrarGauge("partidas.activas", activas::size);
+        metricsService.registrarGauge("partidas.modificadas", modificadas::size);
+    }
+
+    /**
+     * Ejecuta una operación que lee y modifica la partida.
+     *
+     * Si alguna escritura falla por conflicto de versión, descarta la copia en memoria y repite
+     * la operación completa (que vuelve a leer la partida con {@link #buscar(String)}). La
+     * operación no debe tener efectos externos antes de su escritura.
+     */
+    public <T> T ejecutar(String codigo, Supplier<T> operacion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                if (!habilitado) {
+                    // sin copia compartida: cada operación trabaja sobre su propia lectura
+                    return eventBatcher.enLote(operacion);
+                }
+                return conLock(codigo, () -> eventBatcher.enLote(operacion));
+            } catch (OptimisticLockingFailureException e) {
+                descartar(codigo);
+                metricsService.incrementar("partidas.cas.conflictos");
+                if (intento >= maxIntentos) {
+                    metricsService.incrementar("partidas.cas.agotados");
+                    log.warn("Conflicto de versión en partida {} tras {} intentos", codigo, intento);
+                    throw e;
+                }
+                log.debug("Conflicto de versión en partida {} (intento {}), recargando", codigo, intento);
+            }
+        }
+    }
+
+    public void ejecutarVoid(String codigo, Runnable operacion) {
+        ejecutar(codigo, () -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public boolean esActiva(String codigo) {
+        return activas.containsKey(codigo);
+    }
+
+    /**
+     * Versión del estado de la partida en esta instancia: cambia cada vez que la partida se
+     * guarda, se descarta o se elimina. Sirve para invalidar vistas derivadas (snapshots) sin
+     * volver a leer la partida. No refleja cambios hechos por otras instancias.
+     */
+    public long versionEstado(String codigo) {
+        Long version = versionesEstado.get(codigo);
+        return version != null ? version : versionOlvidadas;
+    }
+
+    /**
+     * Busca la partida en memoria y, si no está, la carga desde MongoDB.
+     * Las partidas EN_CURSO cargadas quedan registradas como activas.
+     */
+    public Optional<Partida> buscar(String codigo) {
+        if (codigo == null) return Optional.empty();
+        Entrada entrada = activas.get(codigo);
+        if (entrada != null) {
+            return Optional.of(entrada.partida);
+        }
+
+        Optional<Partida> opt = partidaRepository.findByCodigo(codigo);
+        if (opt.isPresent() && habilitado && esEnCurso(opt.get()) && opt.get().getId() != null) {
+            // Si otro hilo la registró mientras se cargaba, gana la copia ya registrada
+            Entrada registrada = activas.computeIfAbsent(codigo, k -> new Entrada(opt.get()));
+            return Optional.of(registrada.partida);
+        }
+        return opt;
+    }
+
+    /**
+     * Registra un cambio en la partida. Debe invocarse dentro de {@link #ejecutar(String, Supplier)}.
+     * Con write-behind, las partidas en curso se marcan como modificadas y se escriben en el
+     * siguiente flush; el resto de casos se guarda inmediatamente.
+     */
+    public void guardar(Partida p) {
+        guardar(p, null);
+    }
+
+    /**
+     * Igual que {@link #guardar(Partida)}, pero si la partida no está en memoria aplica la
+     * actualización parcial indicada en lugar de reescribir el documento.
+     */
+    public void guardar(Partida p, Consumer<PartidaMutationRepository> escrituraParcial) {
+        cambioEstado(p.getCodigo());
+        if (!habilitado || !escrituraDiferida || !esEnCurso(p) || p.getId() == null) {
+            guardarInmediato(p, escrituraParcial);
+            return;
+        }
+        Entrada entrada = registrar(p);
+        entrada.revision.incrementAndGet();
+        modificadas.add(p.getCodigo());
+    }
+
+    /**
+     * Escribe la partida en MongoDB de forma síncrona (resolución de ronda, fin de partida).
+     * Debe invocarse dentro de {@link #ejecutar(String, Supplier)}.
+     */
+    public void guardarInmediato(Partida p) {
+        guardarInmediato(p, null);
+    }
+
+    /**
+     * Igual que {@link #guardarInmediato(Partida)}, usando la actualización parcial indicada
+     * cuando la partida no está en memoria.
+     */
+    public void guardarInmediato(Partida p, Consumer<PartidaMutationRepository> escrituraParcial) {
+        cambioEstado(p.getCodigo());
+        Entrada entrada = null;
+        if (habilitado && p.getId() != null) {
+            entrada = esEnCurso(p) ? registrar(p) : activas.get(p.getCodigo());
+        }
+
+        if (entrada == null) {
+            if (escrituraParcial != null && p.getId() != null) {
+                escrituraParcial.accept(partidaRepository);
+            } else {
+                p.setUltimaActividad(Instant.now());
+                partidaRepository.save(p);
+                if (habilitado && esEnCurso(p)) {
+                    registrar(p);
+                }
+            }
+            return;
+        }
+
+        long revision = entrada.revision.incrementAndGet();
+        modificadas.remove(p.getCodigo());
+        Pendiente pendiente = pendiente(entrada, revision);
+        List<Pendiente> conflictos;
+        try {
+            conflictos = escribir(List.of(pendiente));
+        } catch (RuntimeException e) {
+            // el estado sigue en memoria: el flush periódico lo reintentará
+            if (esEnCurso(p)) modificadas.add(p.getCodigo());
+            throw e;
+        }
+        if (conflictos.contains(pendiente)) {
+            throw new OptimisticLockingFailureException("La partida " + p.getCodigo()
+                    + " fue modificada por otra instancia");
+        }
+
+        if (!esEnCurso(p)) {
+            activas.remove(p.getCodigo(), entrada);
+            log.debug("Partida {} retirada del registro activo (estado={})", p.getCodigo(), p.getEstado());
+        }
+    }
+
+    /**
+     * Elimina la partida del registro y de MongoDB.
+     */
+    public void eliminar(Partida p) {
+        descartar(p.getCodigo());
+        partidaRepository.delete(p);
+    }
+
+    /**
+     * Olvida la copia en memoria (y sus cambios sin escribir); la siguiente lectura va a MongoDB.
+     */
+    public void descartar(String codigo) {
+        activas.remove(codigo);
+        modificadas.remove(codigo);
+        cambioEstado(codigo);
+    }
+
+    /**
+     * Códigos con lock o versión de estado en memoria que no están en el registro activo.
+     */
+    public Set<String> codigosRetenidos() {
+        Set<String> codigos = new HashSet<>(locks.keySet());
+        codigos.addAll(versionesEstado.keySet());
+        codigos.removeAll(activas.keySet());
+        return codigos;
+    }
+
+    /**
+     * Retira el lock y la versión de estado de partidas que ya no existen. Las que están en el
+     * registro activo o tienen cambios pendientes se conservan. Devuelve cuántas se retiraron.
+     */
+    public int olvidar(Collection<String> codigos) {
+        if (codigos.isEmpty()) return 0;
+        // antes de retirar: la versión que verán a partir de ahora no la ha tenido nunca ninguna
+        versionOlvidadas = relojEstado.incrementAndGet();
+        int olvidadas = 0;
+        for (String codigo : codigos) {
+            if (activas.containsKey(codigo) || modificadas.contains(codigo)) continue;
+            Object lock = locks.get(codigo);
+            if (lock != null) {
+                // bajo el lock: nadie lo tiene tomado; quien lo esperaba lo verá retirado (conLock)
+                synchronized (lock) {
+                    if (activas.containsKey(codigo)) continue;
+                    locks.remove(codigo, lock);
+                }
+            }
+            if (versionesEstado.remove(codigo) != null || lock != null) olvidadas++;
+        }
+        // y después: una vista construida mientras se retiraban tampoco vuelve a coincidir
+        versionOlvidadas = relojEstado.incrementAndGet();
+        if (olvidadas > 0) metricsService.incrementar("partidas.memoria.olvidadas", olvidadas);
+        return olvidadas;
+    }
+
+    /**
+     * Escribe por lotes las partidas modificadas desde el último flush.
+     */
+    @Scheduled(fixedDelayString = "${app.game.registry.flushIntervalMs:500}")
+    public void flushPendientes() {
+        if (!habilitado || modificadas.isEmpty()) return;
+
+        List<Pendiente> lote = new ArrayList<>();
+        Iterator<String> it = modificadas.iterator();
+        while (it.hasNext()) {
+            String codigo = it.next();
+            it.remove();
+            Entrada entrada = activas.get(codigo);
+            if (entrada == null) continue;
+
+            Pendiente pendiente = conLock(codigo, () -> {
+                long revision = entrada.revision.get();
+                return revision > entrada.revisionPersistida ? pendiente(entrada, revision) : null;
+            });
+            if (pendiente == null) continue;
+            lote.add(pendiente);
+
+            if (lote.size() >= tamanoLote) {
+                escribirLote(lote);
+                lote = new ArrayList<>();
+            }
+        }
+        if (!lote.isEmpty()) {
+            escribirLote(lote);
+        }
+    }
+
+    /**
+     * Recupera tras un reinicio las partidas que estaban en curso según el último estado persistido.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rehidratar() {
+        try {
+            long migradas = partidaRepository.inicializarVersiones();
+            if (migradas > 0) log.info("Asignada versión inicial a {} partidas", migradas);
+        } catch (Exception e) {
+            log.error("Error inicializando versiones de partidas: {}", e.getMessage(), e);
+        }
+        try {
+            long migradas = partidaRepository.inicializarActividad();
+            if (migradas > 0) log.info("Asignada última actividad a {} partidas", migradas);
+        } catch (Exception e) {
+            log.error("Error inicializando la última actividad de partidas: {}", e.getMessage(), e);
+        }
+        try {
+            long migradas = partidaRepository.migrarHistorialRondas();
+            if (migradas > 0) log.info("Historial de rondas de {} partidas movido a la colección rondas", migradas);
+        } catch (Exception e) {
+            log.error("Error migrando el historial de rondas: {}", e.getMessage(), e);
+        }
+
+        if (!habilitado) return;
+        try {
+            int cargadas = 0;
+            for (Partida p : partidaRepository.findByEstado(EstadoPartida.EN_CURSO.name())) {
+                if (p.getCodigo() == null || p.getId() == null) continue;
+                if (activas.putIfAbsent(p.getCodigo(), new Entrada(p)) == null) cargadas++;
+            }
+            metricsService.incrementar("partidas.rehidratadas", cargadas);
+            log.info("Registro de partidas activas rehidratado: {} partidas EN_CURSO", cargadas);
+        } catch (Exception e) {
+            log.error("Error rehidratando partidas activas: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushAlCerrar() {
+        flushPendientes();
+    }
+
+    private void escribirLote(List<Pendiente> lote) {
+        try {
+            escribir(lote);
+        } catch (Exception e) {
+            // reintentar en el siguiente flush
+            for (Pendiente pendiente : lote) {
+                if (activas.get(pendiente.entrada.partida.getCodigo()) == pendiente.entrada) {
+                    modificadas.add(pendiente.entrada.partida.getCodigo());
+                }
+            }
+            log.error("Error escribiendo lote de {} partidas: {}", lote.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Escribe el lote y devuelve las entradas que no se escribieron por conflicto de versión.
+     * Esas entradas se retiran del registro: la copia en memoria ya no es la última.
+     */
+    private List<Pendiente> escribir(List<Pendiente> lote) {
+        long inicio = System.nanoTime();
+        escritura.lock();
+        try {
+            List<CambiosPartida> cambios = new ArrayList<>();
+            List<Pendiente> escritos = new ArrayList<>();
+            for (Pendiente pendiente : lote) {
+                // una revisión igual o más nueva ya fue escrita por otro flush
+                if (pendiente.revision <= pendiente.entrada.revisionPersistida) continue;
+                cambios.add(new CambiosPartida(pendiente.entrada.partida.getId(), pendiente.entrada.version, pendiente.update));
+                escritos.add(pendiente);
+            }
+            if (cambios.isEmpty()) return List.of();
+
+            Set<String> idsEnConflicto = partidaRepository.escribirCambios(cambios);
+
+            List<Pendiente> conflictos = new ArrayList<>();
+            for (Pendiente pendiente : escritos) {
+                Entrada entrada = pendiente.entrada;
+                if (idsEnConflicto.contains(entrada.partida.getId())) {
+                    conflictos.add(pendiente);
+                    activas.remove(entrada.partida.getCodigo(), entrada);
+                    metricsService.incrementar("partidas.flush.conflictos");
+                    log.warn("Partida {} modificada por otra instancia; se descarta la copia en memoria",
+                            entrada.partida.getCodigo());
+                    continue;
+                }
+                entrada.version = entrada.version == null ? 1L : entrada.version + 1;
+                entrada.partida.setVersion(entrada.version);
+                entrada.revisionPersistida = pendiente.revision;
+            }
+            metricsService.incrementar("partidas.flush.documentos", escritos.size() - conflictos.size());
+            return conflictos;
+        } catch (RuntimeException e) {
+            metricsService.incrementar("partidas.flush.errores");
+            throw e;
+        } finally {
+            escritura.unlock();
+            metricsService.registrarDuracion("partidas.flush.latencia", System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Construye el update pendiente de la entrada. Debe invocarse bajo el lock de la partida:
+     * el update contiene una copia convertida del estado, no referencias a la partida viva.
+     */
+    private Pendiente pendiente(Entrada entrada, long revision) {
+        return new Pendiente(entrada, partidaRepository.cambios(entrada.partida), revision);
+    }
+
+    private void cambioEstado(String codigo) {
+        if (codigo == null) return;
+        versionesEstado.put(codigo, relojEstado.incrementAndGet());
+    }
+
+    /**
+     * Ejecuta la operación con el lock de la partida.
+     */
+    private <T> T conLock(String codigo, Supplier<T> operacion) {
+        while (true) {
+            Object lock = locks.computeIfAbsent(codigo, k -> new Object());
+            synchronized (lock) {
+                // olvidar() pudo retirar este lock mientras se esperaba: tomar el vigente
+                if (locks.get(codigo) != lock) continue;
+                return operacion.get();
+            }
+        }
+    }
+
+    private Entrada registrar(Partida p) {
+        return activas.compute(p.getCodigo(), (codigo, actual) -> {
+            if (actual != null && actual.partida == p) return actual;
+            if (actual != null) {
+                log.warn("Reemplazando instancia registrada de la partida {}", codigo);
+            }
+            return new Entrada(p);
+        });
+    }
+
+    private static boolean esEnCurso(Partida p) {
+        return EstadoPartida.EN_CURSO.name().equals(p.getEstado());
+    }
+
+    private static class Entrada {
+        private final Partida partida;
+        private final AtomicLong revision = new AtomicLong();
+        // protegidos por el lock de escritura
+        private volatile long revisionPersistida;
+        private volatile Long version;
+
+        Entrada(Partida partida) {
+            this.partida = partida;
+            this.version = partida.getVersion();
+        }
+    }
+
+    private record Pendiente(Entrada entrada, Document update, long revision) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.juegocartas.juegocartas.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.model.EstadoPartida;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+/**
+ * Ciclo de vida de las partidas que ya no se juegan.
+ *
+ * Periódicamente (app.archivo.intervaloMs):
+ * - mueve a partidas_archivo (comprimida, ver IndicesMongo) las partidas FINALIZADA sin actividad
+ *   en app.archivo.finalizadas.retencionMin minutos (0 no archiva), en lotes de app.archivo.loteMax;
+ *   su historial de rondas sigue disponible (ver PartidaService#obtenerRondas).
+ * - retira el lock, la versión de estado y la secuencia de eventos de las partidas que ya no
+ *   existen en MongoDB: archivadas, borradas por el índice TTL de las partidas en espera
+ *   inactivas, o códigos que nunca existieron.
+ * - actualiza los gauges partidas.vivas.{estado} y partidas.archivadas.
+ *
+ * Métricas: partidas.archivo.archivadas, partidas.archivo.errores y los gauges anteriores.
+ */
+@Service
+public class ArchivoPartidas {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoPartidas.class);
+
+    private final PartidaRepository partidaRepository;
+    private final ActiveGameRegistry activeGameRegistry;
+    private final SecuenciaEventos secuenciaEventos;
+    private final MetricsService metricsService;
+    private final Duration retencionFinalizadas;
+    private final int loteMax;
+
+    private final Map<EstadoPartida, AtomicLong> vivas = new ConcurrentHashMap<>();
+    private final AtomicLong archivadas = new AtomicLong();
+
+    public ArchivoPartidas(PartidaRepository partidaRepository,
+                           ActiveGameRegistry activeGameRegistry,
+                           SecuenciaEventos secuenciaEventos,
+                           MetricsService metricsService,
+                           @Value("${app.archivo.finalizadas.retencionMin:1440}") long retencionMin,
+                           @Value("${app.archivo.loteMax:500}") int loteMax) {
+        this.partidaRepository = partidaRepository;
+        this.activeGameRegistry = activeGameRegistry;
+        this.secuenciaEventos = secuenciaEventos;
+        this.metricsService = metricsService;
+        this.retencionFinalizadas = retencionMin > 0 ? Duration.ofMinutes(retencionMin) : null;
+        this.loteMax = Math.max(1, loteMax);
+        for (EstadoPartida estado : EstadoPartida.values()) {
+            AtomicLong conteo = new AtomicLong();
+            vivas.put(estado, conteo);
+            metricsService.registrarGauge("partidas.vivas." + estado.name().toLowerCase(), conteo::get);
+        }
+        metricsService.registrarGauge("partidas.archivadas", archivadas::get);
+    }
+
+    @Scheduled(fixedDelayString = "${app.archivo.intervaloMs:60000}")
+    public void ejecutar() {
+        try {
+            archivarFinalizadas();
+        } catch (Exception e) {
+            metricsService.incrementar("partidas.archivo.errores");
+            log.error("Error archivando partidas finalizadas: {}", e.getMessage(), e);
+        }
+        try {
+            purgarMemoria();
+        } catch (Exception e) {
+            log.error("Error retirando de memoria partidas inexistentes: {}", e.getMessage(), e);
+        }
+        try {
+            contar();
+        } catch (Exception e) {
+            log.warn("Error contando partidas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archiva lotes hasta que no quede ninguna partida por archivar. Devuelve cuántas archivó.
+     */
+    int archivarFinalizadas() {
+        if (retencionFinalizadas == null) return 0;
+        Instant antesDe = Instant.now().minus(retencionFinalizadas);
+        int total = 0;
+        while (true) {
+            List<String> lote = partidaRepository.archivarFinalizadas(antesDe, loteMax);
+            total += lote.size();
+            metricsService.incrementar("partidas.archivo.archivadas", lote.size());
+            // las no archivadas por haber cambiado entre medias se reintentan en la siguiente pasada
+            if (lote.size() < loteMax) break;
+        }
+        if (total > 0) log.info("Archivadas {} partidas finalizadas", total);
+        return total;
+    }
+
+    /**
+     * Retira el estado en memoria de las partidas que no están en MongoDB. Devuelve cuántos
+     * códigos retiró.
+     */
+    int purgarMemoria() {
+        Set<String> candidatos = new HashSet<>(activeGameRegistry.codigosRetenidos());
+        candidatos.addAll(secuenciaEventos.codigos());
+        candidatos.removeIf(activeGameRegistry::esActiva);
+        if (candidatos.isEmpty()) return 0;
+
+        List<String> inexistentes = new ArrayList<>();
+        List<String> codigos = new ArrayList<>(candidatos);
+        for (int i = 0; i < codigos.size(); i += loteMax) {
+            List<String> lote = codigos.subList(i, Math.min(codigos.size(), i + loteMax));
+            Set<String> existentes = new HashSet<>();
+            for (Partida p : partidaRepository.findCodigosByCodigoIn(lote)) existentes.add(p.getCodigo());
+            for (String codigo : lote) {
+                if (!existentes.contains(codigo)) inexistentes.add(codigo);
+            }
+        }
+        if (inexistentes.isEmpty()) return 0;
+
+        activeGameRegistry.olvidar(inexistentes);
+        inexistentes.forEach(secuenciaEventos::olvidar);
+        log.debug("Retirado de memoria el estado de {} partidas inexistentes", inexistentes.size());
+        return inexistentes.size();
+    }
+
+    private void contar() {
+        Map<String, Long> porEstado = partidaRepository.contarPorEstado();
+        vivas.forEach((estado, conteo) -> conteo.set(porEstado.getOrDefault(estado.name(), 0L)));
+        archivadas.set(partidaRepository.contarArchivadas());
+    }
+}
@@ -0,0 +1,215 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.model.Carta;
+import com.juegocartas.juegocartas.repository.CartaRepository;
+import com.juegocartas.juegocartas.util.TransformacionMultiplicador;
+
+/**
+ * Catálogo en memoria de las cartas del juego.
+ *
+ * Las cartas sólo cambian al sincronizar (/api/cartas/sincronizar), así que se cargan una vez
+ * en un snapshot inmutable indexado por código y se sustituye el snapshot completo tras cada
+ * sincronización. Los lectores nunca ven un catálogo a medio cargar y no necesitan locks.
+ * Al cargar se precalculan los atributos y los multiplicadores de transformación de cada
+ * carta, de modo que jugar una carta no vuelve a normalizar los strings de Ki.
+ *
+ * Las cartas devueltas son compartidas por todas las partidas: no deben modificarse.
+ *
+ * Si un código no está en el snapshot (cartas guardadas por otra vía) se consulta el
+ * repositorio y se contabiliza como fallo.
+ */
+@Component
+public class CartaCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(CartaCatalog.class);
+
+    private final CartaRepository cartaRepository;
+    private final MetricsService metricsService;
+
+    // null hasta la primera carga
+    private volatile Snapshot snapshot;
+
+    public CartaCatalog(CartaRepository cartaRepository, MetricsService metricsService) {
+        this.cartaRepository = cartaRepository;
+        this.metricsService = metricsService;
+
+        metricsService.registrarGauge("cartas.catalogo.tamano", () -> {
+            Snapshot actual = snapshot;
+            return actual != null ? actual.porCodigo.size() : 0;
+        });
+    }
+
+    /**
+     * Carga el catálogo al arrancar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        try {
+            recargar();
+        } catch (Exception e) {
+            // se reintentará en el primer acceso
+            log.error("Error cargando el catálogo de cartas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Vuelve a leer todas las cartas de MongoDB y sustituye el snapshot actual.
+     */
+    public void recargar() {
+        long inicio = System.nanoTime();
+        Snapshot nuevo = Snapshot.de(cartaRepository.findAll());
+        snapshot = nuevo;
+        metricsService.registrarDuracion("cartas.catalogo.recarga", System.nanoTime() - inicio);
+        metricsService.incrementar("cartas.catalogo.recargas");
+        log.info("Catálogo de cartas cargado: {} cartas, {} atributos", nuevo.porCodigo.size(), nuevo.indiceAtributos.size());
+    }
+
+    /**
+     * Busca una carta por código.
+     */
+    public Optional<Carta> buscar(String codigo) {
+        if (codigo == null) return Optional.empty();
+        Indexada indexada = actual().porCodigo.get(codigo);
+        if (indexada != null) {
+            metricsService.incrementar("cartas.catalogo.aciertos");
+            return Optional.of(indexada.carta);
+        }
+        metricsService.incrementar("cartas.catalogo.fallos");
+        return cartaRepository.findFirstByCodigo(codigo);
+    }
+
+    /**
+     * Valor del atributo de la carta (0 si no lo tiene). Para las cartas del catálogo se lee
+     * del array precalculado; para el resto, de su mapa de atributos.
+     */
+    public int valorAtributo(Carta carta, String atributo) {
+        if (carta == null || atributo == null) return 0;
+        Snapshot actual = actual();
+        Indexada indexada = actual.porCodigo.get(carta.getCodigo());
+        if (indexada == null || indexada.carta != carta) {
+            Integer valor = carta.getAtributos() != null ? carta.getAtributos().get(atributo) : null;
+            return valor != null ? valor : 0;
+        }
+        Integer indice = actual.indiceAtributos.get(atributo);
+        return indice != null ? indexada.atributos[indice] : 0;
+    }
+
+    /**
+     * Multiplicador de la transformación indicada (1.0 si no existe), leído de la tabla
+     * precalculada para las cartas del catálogo.
+     */
+    public double multiplicador(Carta carta, int indiceTransformacion) {
+        if (carta == null) return 1.0;
+        Indexada indexada = actual().porCodigo.get(carta.getCodigo());
+        if (indexada == null || indexada.carta != carta) {
+            return TransformacionMultiplicador.calcularMultiplicador(carta, indiceTransformacion);
+        }
+        double[] multiplicadores = indexada.multiplicadores;
+        if (indiceTransformacion < 0 || indiceTransformacion >= multiplicadores.length) return 1.0;
+        return multiplicadores[indiceTransformacion];
+    }
+
+    /**
+     * Códigos de todas las cartas, en el orden en que se leyeron de MongoDB.
+     */
+    public List<String> codigos() {
+        Snapshot actual = actual();
+        if (actual.codigos.isEmpty()) {
+            // catálogo vacío (p.ej. arranque antes de sincronizar): volver a mirar en MongoDB
+            recargar();
+            actual = snapshot;
+        }
+        return actual.codigos;
+    }
+
+    /**
+     * Todas las cartas del catálogo (lista inmutable).
+     */
+    public List<Carta> todas() {
+        return actual().cartas;
+    }
+
+    private Snapshot actual() {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            synchronized (this) {
+                if (snapshot == null) recargar();
+                actual = snapshot;
+            }
+        }
+        return actual;
+    }
+
+    private record Indexada(Carta carta, int[] atributos, double[] multiplicadores) {
+    }
+
+    private static final class Snapshot {
+        private final List<Carta> cartas;
+        private final List<String> codigos;
+        private final Map<String, Indexada> porCodigo;
+        // nombre de atributo -> posición en los arrays de atributos
+        private final Map<String, Integer> indiceAtributos;
+
+        private Snapshot(List<Carta> cartas, List<String> codigos, Map<String, Indexada> porCodigo,
+                         Map<String, Integer> indiceAtributos) {
+            this.cartas = cartas;
+            this.codigos = codigos;
+            this.porCodigo = porCodigo;
+            this.indiceAtributos = indiceAtributos;
+        }
+
+        static Snapshot de(List<Carta> cartas) {
+            Map<String, Integer> indiceAtributos = new HashMap<>();
+            for (Carta c : cartas) {
+                if (c.getAtributos() == null) continue;
+                for (String atributo : c.getAtributos().keySet()) {
+                    indiceAtributos.putIfAbsent(atributo, indiceAtributos.size());
+                }
+            }
+
+            List<String> codigos = new ArrayList<>(cartas.size());
+            Map<String, Indexada> porCodigo = new HashMap<>();
+            for (Carta c : cartas) {
+                if (c.getCodigo() == null) continue;
+                codigos.add(c.getCodigo());
+                // con códigos repetidos gana el primero, igual que findFirstByCodigo
+                if (porCodigo.containsKey(c.getCodigo())) continue;
+                porCodigo.put(c.getCodigo(), new Indexada(c, atributos(c, indiceAtributos), multiplicadores(c)));
+            }
+            return new Snapshot(Collections.unmodifiableList(new ArrayList<>(cartas)),
+                    Collections.unmodifiableList(codigos), Map.copyOf(porCodigo), Map.copyOf(indiceAtributos));
+        }
+
+        private static int[] atributos(Carta c, Map<String, Integer> indiceAtributos) {
+            int[] valores = new int[indiceAtributos.size()];
+            if (c.getAtributos() != null) {
+                c.getAtributos().forEach((atributo, valor) -> {
+                    if (valor != null) valores[indiceAtributos.get(atributo)] = valor;
+                });
+            }
+            return valores;
+        }
+
+        private static double[] multiplicadores(Carta c) {
+            int total = c.getTransformaciones() != null ? c.getTransformaciones().size() : 0;
+            double[] multiplicadores = new double[total];
+            for (int i = 0; i < total; i++) {
+                multiplicadores[i] = TransformacionMultiplicador.calcularMultiplicador(c, i);
+            }
+            return multiplicadores;
+        }
+    }
+}
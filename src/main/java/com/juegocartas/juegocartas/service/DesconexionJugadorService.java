@@ -0,0 +1,77 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+
+/**
+ * Marca a un jugador como desconectado cuando vence su grace period (ver DisconnectGraceService).
+ */
+@Service
+public class DesconexionJugadorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DesconexionJugadorService.class);
+
+    private final ActiveGameRegistry activeGameRegistry;
+    private final EstadoPartidaPublisher estadoPartidaPublisher;
+    private final SessionRegistry sessionRegistry;
+    private final MetricsService metricsService;
+
+    public DesconexionJugadorService(ActiveGameRegistry activeGameRegistry,
+                                     EstadoPartidaPublisher estadoPartidaPublisher,
+                                     SessionRegistry sessionRegistry,
+                                     MetricsService metricsService) {
+        this.activeGameRegistry = activeGameRegistry;
+        this.estadoPartidaPublisher = estadoPartidaPublisher;
+        this.sessionRegistry = sessionRegistry;
+        this.metricsService = metricsService;
+    }
+
+    public void marcarDesconectado(String jugadorId, String partidaCodigo) {
+        marcarDesconectados(partidaCodigo, List.of(jugadorId));
+    }
+
+    /**
+     * Marca desconectados varios jugadores de la misma partida (los que vencieron en el mismo
+     * tick) con una sola escritura y una sola publicación.
+     */
+    public void marcarDesconectados(String partidaCodigo, Collection<String> jugadorIds) {
+        activeGameRegistry.ejecutarVoid(partidaCodigo, () -> {
+            var opt = activeGameRegistry.buscar(partidaCodigo);
+            if (opt.isEmpty()) return;
+            Partida partida = opt.get();
+            List<Jugador> desconectados = new ArrayList<>();
+            for (Jugador j : partida.getJugadores()) {
+                if (!jugadorIds.contains(j.getId())) continue;
+                // el jugador volvió a registrarse (en este u otro nodo) sin que se cancelara el grace
+                if (sessionRegistry.tieneSesiones(j.getId())) {
+                    metricsService.incrementar("desconexiones.omitidas");
+                    logger.debug("Jugador {} sigue con sesiones abiertas; no se marca desconectado", j.getId());
+                    continue;
+                }
+                j.setConectado(false);
+                desconectados.add(j);
+            }
+            if (desconectados.isEmpty()) return;
+
+            if (desconectados.size() == 1) {
+                Jugador j = desconectados.get(0);
+                activeGameRegistry.guardar(partida, m -> m.actualizarJugador(partida, j));
+            } else {
+                activeGameRegistry.guardar(partida, m -> m.actualizarJugadores(partida));
+            }
+
+            // Publicar estado actualizado de la partida
+            estadoPartidaPublisher.desconectados(partida, desconectados);
+            metricsService.incrementar("desconexiones.aplicadas", desconectados.size());
+            metricsService.incrementar("desconexiones.lotes");
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Límite de eventos de drag por jugador: un token bucket de app.drag.limite.porSegundo tokens
+ * por segundo y capacidad app.drag.limite.rafaga.
+ *
+ * Cada bucket es un único AtomicLong con el instante (System.nanoTime()) en que el bucket vuelve
+ * a estar lleno (GCRA, equivalente a un token bucket). Consumir un token es un CAS sobre ese
+ * valor: dos eventos simultáneos del mismo jugador no pueden gastar el mismo token, y el reloj
+ * monotónico no retrocede con los ajustes de hora del sistema.
+ *
+ * Los jugadores sin eventos durante app.drag.limite.inactivoMs se retiran periódicamente; al
+ * volver empiezan con el bucket lleno, igual que si nunca se hubieran ido.
+ *
+ * Métricas: drag.aceptados, drag.limitados y el gauge drag.limitador.jugadores.
+ */
+@Component
+public class DragRateLimiter {
+
+    private final MetricsService metricsService;
+    private final LongSupplier reloj;
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final long inactivoNanos;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DragRateLimiter(MetricsService metricsService,
+                           @Value("${app.drag.limite.porSegundo:20}") double porSegundo,
+                           @Value("${app.drag.limite.rafaga:5}") int rafaga,
+                           @Value("${app.drag.limite.inactivoMs:60000}") long inactivoMs) {
+        this(metricsService, porSegundo, rafaga, inactivoMs, System::nanoTime);
+    }
+
+    DragRateLimiter(MetricsService metricsService, double porSegundo, int rafaga, long inactivoMs, LongSupplier reloj) {
+        if (porSegundo <= 0 || rafaga < 1) {
+            throw new IllegalArgumentException("app.drag.limite.porSegundo y rafaga deben ser positivos");
+        }
+        this.metricsService = metricsService;
+        this.reloj = reloj;
+        this.intervaloNanos = (long) (TimeUnit.SECONDS.toNanos(1) / porSegundo);
+        this.toleranciaNanos = intervaloNanos * (rafaga - 1);
+        this.inactivoNanos = TimeUnit.MILLISECONDS.toNanos(inactivoMs);
+        metricsService.registrarGauge("drag.limitador.jugadores", buckets::size);
+    }
+
+    /**
+     * Consume un token del jugador. Devuelve false (y no consume nada) si no le quedan.
+     */
+    public boolean intentar(String jugadorId) {
+        AtomicLong lleno = buckets.computeIfAbsent(jugadorId, k -> new AtomicLong(Long.MIN_VALUE));
+        long ahora = reloj.getAsLong();
+        while (true) {
+            long actual = lleno.get();
+            // un bucket nuevo o que ya se rellenó parte de "ahora"
+            long base = actual == Long.MIN_VALUE || actual - ahora < 0 ? ahora : actual;
+            if (base - ahora > toleranciaNanos) {
+                metricsService.incrementar("drag.limitados");
+                return false;
+            }
+            if (lleno.compareAndSet(actual, base + intervaloNanos)) {
+                metricsService.incrementar("drag.aceptados");
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Retira los buckets de jugadores inactivos.
+     */
+    @Scheduled(fixedDelayString = "${app.drag.limite.purgaMs:60000}")
+    public void purgar() {
+        long ahora = reloj.getAsLong();
+        buckets.entrySet().removeIf(e -> {
+            long lleno = e.getValue().get();
+            return lleno == Long.MIN_VALUE || ahora - lleno >= inactivoNanos;
+        });
+    }
+
+    int jugadores() {
+        return buckets.size();
+    }
+}
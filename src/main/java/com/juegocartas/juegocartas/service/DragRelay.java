@@ -0,0 +1,163 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.dto.event.DragFrameEvent;
+import com.juegocartas.juegocartas.dto.event.PlayerDragEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reenvío de los eventos de drag aceptados a /topic/partida/{codigo}/drag.
+ *
+ * Modos (app.drag.relay.modo):
+ * - DIRECTO (por defecto): cada evento se reenvía al momento, como siempre.
+ * - FOTOGRAMAS: el inicio de un arrastre (primer evento con dragging=true) y la suelta
+ *   (dragging=false) se reenvían al momento; los movimientos intermedios se acumulan y cada
+ *   app.drag.relay.intervaloMs (33 ms, unos 30 Hz) se envía un único DRAG_FRAME por partida
+ *   con la última posición de cada jugador que se movió. Así una partida recibe como mucho un
+ *   fotograma por intervalo, juegue quien juegue; el cliente interpola entre fotogramas.
+ *
+ * Una suelta descarta el movimiento pendiente del jugador y sale después de cualquier fotograma
+ * ya enviado: el cliente nunca ve una posición posterior a la suelta.
+ *
+ * Los movimientos y fotogramas pueden perderse si la cola de envío de la partida va atrasada (ver
+ * AsyncEventPublisher); el inicio y la suelta se publican con EventPublisher#publishSinDescartar.
+ *
+ * Métricas: drag.relay.inmediatos, drag.relay.acumulados, drag.relay.fotogramas y
+ * drag.relay.descartados (movimientos sustituidos por uno más nuevo antes de enviarse).
+ */
+@Component
+public class DragRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(DragRelay.class);
+
+    public enum Modo { DIRECTO, FOTOGRAMAS }
+
+    /** Las salas sin eventos durante este tiempo se retiran. */
+    private static final long INACTIVA_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final EventPublisher eventPublisher;
+    private final MetricsService metricsService;
+    private final Modo modo;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, Sala> salas = new ConcurrentHashMap<>();
+
+    public DragRelay(EventPublisher eventPublisher,
+                     MetricsService metricsService,
+                     @Value("${app.drag.relay.modo:DIRECTO}") Modo modo,
+                     @Value("${app.drag.relay.intervaloMs:33}") long intervaloMs) {
+        this.eventPublisher = eventPublisher;
+        this.metricsService = metricsService;
+        this.modo = modo;
+        if (modo == Modo.FOTOGRAMAS) {
+            // hilo propio: el scheduler de @Scheduled es compartido y un flush largo retrasaría los fotogramas
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("drag-fotogramas").daemon().factory());
+            this.scheduler.scheduleAtFixedRate(this::emitirSeguro, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+        metricsService.registrarGauge("drag.relay.salas", salas::size);
+    }
+
+    public void reenviar(String partidaCodigo, PlayerDragEvent event) {
+        if (modo == Modo.DIRECTO) {
+            if (event.isDragging()) {
+                eventPublisher.publish(topic(partidaCodigo), event);
+            } else {
+                eventPublisher.publishSinDescartar(topic(partidaCodigo), event);
+            }
+            return;
+        }
+        while (true) {
+            Sala sala = salas.computeIfAbsent(partidaCodigo, k -> new Sala());
+            synchronized (sala) {
+                if (sala.retirada) continue;
+                sala.ultimoEventoNanos = System.nanoTime();
+                String jugadorId = event.getJugadorId();
+                if (!event.isDragging()) {
+                    // suelta: descarta su movimiento pendiente y sale ya
+                    if (sala.ultimos.remove(jugadorId) != null) metricsService.incrementar("drag.relay.descartados");
+                    sala.arrastrando.remove(jugadorId);
+                    publicarInmediato(partidaCodigo, event);
+                } else if (sala.arrastrando.add(jugadorId)) {
+                    publicarInmediato(partidaCodigo, event);
+                } else {
+                    if (sala.ultimos.put(jugadorId, event) != null) metricsService.incrementar("drag.relay.descartados");
+                    metricsService.incrementar("drag.relay.acumulados");
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Envía un fotograma por cada partida con movimientos pendientes y retira las salas inactivas.
+     */
+    public void emitir() {
+        long ahora = System.nanoTime();
+        for (Map.Entry<String, Sala> e : salas.entrySet()) {
+            Sala sala = e.getValue();
+            synchronized (sala) {
+                if (!sala.ultimos.isEmpty()) {
+                    List<PlayerDragEvent> posiciones = new ArrayList<>(sala.ultimos.values());
+                    sala.ultimos.clear();
+                    eventPublisher.publish(topic(e.getKey()), new DragFrameEvent(posiciones));
+                    metricsService.incrementar("drag.relay.fotogramas");
+                } else if (ahora - sala.ultimoEventoNanos > INACTIVA_NANOS) {
+                    sala.retirada = true;
+                    salas.remove(e.getKey(), sala);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void emitirSeguro() {
+        try {
+            emitir();
+        } catch (Exception e) {
+            // una excepción cancelaría las siguientes ejecuciones de scheduleAtFixedRate
+            logger.error("Error enviando fotogramas de drag: {}", e.getMessage(), e);
+        }
+    }
+
+    private void publicarInmediato(String partidaCodigo, PlayerDragEvent event) {
+        eventPublisher.publishSinDescartar(topic(partidaCodigo), event);
+        metricsService.incrementar("drag.relay.inmediatos");
+    }
+
+    private static String topic(String partidaCodigo) {
+        return "/topic/partida/" + partidaCodigo + "/drag";
+    }
+
+    /**
+     * Estado de arrastre de una partida; se accede siempre bajo su monitor.
+     */
+    private static final class Sala {
+        final Map<String, PlayerDragEvent> ultimos = new LinkedHashMap<>();
+        final Set<String> arrastrando = new HashSet<>();
+        long ultimoEventoNanos = System.nanoTime();
+        boolean retirada;
+    }
+}
@@ -23,17 +23,10 @@ public interface DragValidationService {
     
     /**
      * Verifica si se debe aplicar throttling al jugador.
-     * Implementa rate limiting para evitar flooding.
+     * Implementa rate limiting para evitar flooding: si el evento pasa, ya cuenta para el límite.
      * 
      * @param jugadorId ID del jugador
      * @return true si el evento debe ser bloqueado por throttling
      */
     boolean shouldThrottle(String jugadorId);
-    
-    /**
-     * Registra que un jugador emitió un evento (para throttling).
-     * 
-     * @param jugadorId ID del jugador
-     */
-    void recordEvent(String jugadorId);
 }
@@ -0,0 +1,119 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.dto.event.JugadorConexionEvent;
+import com.juegocartas.juegocartas.dto.event.JugadorSalioEvent;
+import com.juegocartas.juegocartas.dto.event.JugadorUnidoEvent;
+import com.juegocartas.juegocartas.dto.event.JugadoresDesconectadosEvent;
+import com.juegocartas.juegocartas.dto.event.ManoActualizadaEvent;
+import com.juegocartas.juegocartas.dto.response.JugadorPrivateDTO;
+import com.juegocartas.juegocartas.dto.response.JugadorPublicDTO;
+import com.juegocartas.juegocartas.dto.response.PartidaResponse;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+
+/**
+ * Publica en /topic/partida/{codigo} los cambios de jugadores del lobby y de las reconexiones.
+ *
+ * En modo COMPLETO (por defecto) cada cambio envía el PartidaResponse completo, como hasta
+ * ahora. En modo DELTAS (app.eventos.estado.modo) envía sólo el cambio: JUGADOR_UNIDO con el
+ * jugador nuevo, JUGADOR_CONEXION (JUGADORES_DESCONECTADOS si vence a la vez el grace de varios
+ * jugadores) y JUGADOR_SALIO; reordenar la mano no publica nada en el topic porque no
+ * cambia nada visible para el resto (sólo la mano al jugador, ver abajo). Los conteos y el turno ya viajan como CARD_COUNTS y
+ * TURNO_CAMBIADO. El cliente parte del estado recibido al suscribirse y aplica los cambios en
+ * orden de seq (ver SecuenciaEventos); si detecta un salto, resincroniza con
+ * GET /api/partidas/{codigo}/estado.
+ *
+ * La creación y la eliminación de la partida siempre se publican como PartidaResponse.
+ *
+ * Nada de lo publicado en el topic incluye manos: al reconectarse y al reordenar, la mano
+ * (MANO_ACTUALIZADA) se envía sólo al usuario del jugador, en
+ * /user/queue/partida/{codigo}/mano. Requiere que la sesión STOMP se haya autenticado con el
+ * JWT en el CONNECT (ver WebSocketAuthInterceptor).
+ */
+@Service
+public class EstadoPartidaPublisher {
+
+    public enum Modo { COMPLETO, DELTAS }
+
+    private final EventPublisher eventPublisher;
+    private final Modo modo;
+
+    public EstadoPartidaPublisher(EventPublisher eventPublisher,
+                                  @Value("${app.eventos.estado.modo:COMPLETO}") Modo modo) {
+        this.eventPublisher = eventPublisher;
+        this.modo = modo;
+    }
+
+    public Modo getModo() {
+        return modo;
+    }
+
+    public void jugadorUnido(Partida p, Jugador jugador) {
+        if (modo == Modo.COMPLETO) {
+            publicarCompleto(p, jugador.getId());
+            return;
+        }
+        eventPublisher.publish(topic(p), new JugadorUnidoEvent(jugador.getId(), jugador.getNombre(),
+                p.getJugadores().size(), p.getMaxJugadores(), JugadorPublicDTO.desde(jugador)));
+    }
+
+    public void conexionCambiada(Partida p, Jugador jugador) {
+        if (modo == Modo.COMPLETO) {
+            publicarCompleto(p, jugador.getId());
+        } else {
+            eventPublisher.publish(topic(p), new JugadorConexionEvent(jugador.getId(), jugador.isConectado()));
+        }
+        if (jugador.isConectado()) publicarMano(p, jugador);
+    }
+
+    /**
+     * Varios jugadores de la partida pasaron a desconectados a la vez: un solo mensaje.
+     */
+    public void desconectados(Partida p, List<Jugador> jugadores) {
+        if (jugadores.size() == 1) {
+            conexionCambiada(p, jugadores.get(0));
+        } else if (modo == Modo.COMPLETO) {
+            eventPublisher.publish(topic(p), new PartidaResponse(p.getCodigo(), null, p.getJugadores()));
+        } else {
+            eventPublisher.publish(topic(p), new JugadoresDesconectadosEvent(
+                    jugadores.stream().map(Jugador::getId).toList()));
+        }
+    }
+
+    /**
+     * El jugador ya no está en p.getJugadores() y el turno ya está ajustado.
+     */
+    public void jugadorSalio(Partida p, String jugadorId) {
+        if (modo == Modo.COMPLETO) {
+            eventPublisher.publish(topic(p), new PartidaResponse(p.getCodigo(), null, p.getJugadores()));
+            return;
+        }
+        eventPublisher.publish(topic(p), new JugadorSalioEvent(jugadorId, p.getTurnoActual(), p.getJugadores().size()));
+    }
+
+    public void manoReordenada(Partida p, Jugador jugador) {
+        if (modo == Modo.COMPLETO) {
+            publicarCompleto(p, jugador.getId());
+        }
+        publicarMano(p, jugador);
+    }
+
+    private void publicarMano(Partida p, Jugador jugador) {
+        if (jugador.getUserId() == null) return;
+        eventPublisher.publishToUser(jugador.getUserId(), "/queue/partida/" + p.getCodigo() + "/mano",
+                new ManoActualizadaEvent(p.getCodigo(), JugadorPrivateDTO.desde(jugador)));
+    }
+
+    private void publicarCompleto(Partida p, String jugadorId) {
+        eventPublisher.publish(topic(p), new PartidaResponse(p.getCodigo(), jugadorId, p.getJugadores()));
+    }
+
+    private static String topic(Partida p) {
+        return "/topic/partida/" + p.getCodigo();
+    }
+}
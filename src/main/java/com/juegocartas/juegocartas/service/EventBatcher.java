@@ -0,0 +1,148 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Agrupa en lotes los eventos publicados durante una operación sobre una partida.
+ *
+ * Una jugada publica entre 3 y 8 eventos (CARTA_JUGADA, TURNO_CAMBIADO, CARD_COUNTS y, al
+ * cerrar la ronda, RONDA_RESUELTA, otro TURNO_CAMBIADO, otro CARD_COUNTS...). Con lotes
+ * habilitados, los eventos publicados dentro de {@link #enLote(Supplier)} se acumulan por topic
+ * y al terminar se envía un único EventBatch por topic a {topic}/lote.
+ *
+ * Modos (app.eventos.lotes.modo):
+ * - INDIVIDUAL (por defecto): cada evento se envía al momento a su topic, como siempre.
+ * - AMBOS: se envían los eventos individuales y además el lote a {topic}/lote, para migrar
+ *   clientes sin cortar a los antiguos.
+ * - LOTES: sólo se envía el lote; los clientes deben suscribirse a {topic}/lote.
+ *
+ * Los eventos publicados fuera de una operación se envían como lote de un solo evento, de modo
+ * que a los clientes les basta con {topic}/lote. El topic /drag nunca se agrupa.
+ *
+ * En todos los modos, lo que se publica dentro de {@link #enLote(Supplier)} (también los eventos
+ * que no se agrupan y los mensajes a un usuario) se retiene hasta que la operación termina. Si
+ * falla por conflicto de versión se descarta: ActiveGameRegistry repite la operación y los
+ * eventos se vuelven a publicar con la partida recargada, sin que los clientes reciban los del
+ * intento fallido.
+ */
+@Component
+public class EventBatcher {
+
+    public static final String SUFIJO_LOTE = "/lote";
+
+    public enum Modo { INDIVIDUAL, AMBOS, LOTES }
+
+    /**
+     * Destino de los lotes al cerrarse (lo aporta el EventPublisher que los acumuló).
+     */
+    @FunctionalInterface
+    public interface Envio {
+        void enviar(String topic, List<Object> eventos);
+    }
+
+    private final Modo modo;
+    private final MetricsService metricsService;
+    private final ThreadLocal<Lote> loteActual = new ThreadLocal<>();
+
+    public EventBatcher(@Value("${app.eventos.lotes.modo:INDIVIDUAL}") Modo modo, MetricsService metricsService) {
+        this.modo = modo;
+        this.metricsService = metricsService;
+    }
+
+    public Modo getModo() {
+        return modo;
+    }
+
+    /**
+     * Indica si los eventos de este topic se envían en lotes.
+     */
+    public boolean agrupa(String topic) {
+        return modo != Modo.INDIVIDUAL && !topic.endsWith("/drag");
+    }
+
+    /**
+     * Ejecuta la operación acumulando los eventos que publique. Las llamadas anidadas se suman
+     * al lote exterior.
+     */
+    public <T> T enLote(Supplier<T> operacion) {
+        if (loteActual.get() != null) {
+            return operacion.get();
+        }
+        Lote lote = new Lote();
+        loteActual.set(lote);
+        try {
+            T resultado = operacion.get();
+            loteActual.remove();
+            lote.enviar();
+            return resultado;
+        } catch (OptimisticLockingFailureException e) {
+            // la operación se repetirá: sus eventos no llegaron a ocurrir
+            loteActual.remove();
+            metricsService.incrementar("eventos.lotes.descartados");
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // como sin lotes: lo publicado antes del error se envía
+            loteActual.remove();
+            try {
+                lote.enviar();
+            } catch (RuntimeException envio) {
+                e.addSuppressed(envio);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Retiene el envío de un evento que no se agrupa hasta que termine la operación abierta en
+     * este hilo. Devuelve false si no hay operación abierta; en ese caso el llamador debe
+     * enviarlo.
+     */
+    public boolean diferir(Runnable envio) {
+        Lote lote = loteActual.get();
+        if (lote == null) return false;
+        lote.diferidos.add(envio);
+        return true;
+    }
+
+    /**
+     * Añade el evento al lote abierto en este hilo. Devuelve false si no hay lote abierto o el
+     * topic no se agrupa; en ese caso el llamador debe enviarlo.
+     */
+    public boolean agregar(String topic, Object payload, Envio envio) {
+        Lote lote = loteActual.get();
+        if (lote == null || !agrupa(topic)) return false;
+        lote.agregar(topic, payload, envio);
+        return true;
+    }
+
+    private final class Lote {
+        // topic -> eventos en orden de publicación
+        private final Map<String, List<Object>> porTopic = new LinkedHashMap<>();
+        private final Map<String, Envio> envios = new LinkedHashMap<>();
+        // eventos que no se agrupan, en orden de publicación
+        private final List<Runnable> diferidos = new ArrayList<>();
+
+        void agregar(String topic, Object payload, Envio envio) {
+            porTopic.computeIfAbsent(topic, t -> new ArrayList<>()).add(payload);
+            envios.putIfAbsent(topic, envio);
+        }
+
+        void enviar() {
+            // antes que los lotes, como cuando se enviaban al publicarse
+            diferidos.forEach(Runnable::run);
+            porTopic.forEach((topic, eventos) -> {
+                envios.get(topic).enviar(topic, eventos);
+                metricsService.incrementar("eventos.lotes.enviados");
+                metricsService.incrementar("eventos.lotes.eventos", eventos.size());
+            });
+        }
+    }
+}
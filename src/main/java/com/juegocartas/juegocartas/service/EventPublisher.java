@@ -2,10 +2,23 @@ package com.juegocartas.juegocartas.service;
 
 public interface EventPublisher {
     void publish(String topic, Object payload);
+    /**
+     * Como publish, pero el evento no se descarta aunque el topic lo admita (p. ej. /drag con la
+     * cola de la partida llena): el inicio y la suelta de un arrastre tienen que llegar siempre.
+     */
+    default void publishSinDescartar(String topic, Object payload) {
+        publish(topic, payload);
+    }
     /**
      * Publica un mensaje dirigido a un usuario concreto (usando SimpMessagingTemplate.convertAndSendToUser).
      * user: el identificador del usuario (normalmente jugadorId)
      * destination: ruta relativa (p.ej. "/queue/partida/ABC/errors") o destino completo que el cliente escucha
      */
     void publishToUser(String user, String destination, Object payload);
+    /**
+     * Envía un mensaje sólo a una suscripción de una sesión WebSocket (como respuesta a su SUBSCRIBE),
+     * sin pasar por el broker: el resto de suscriptores del destino no lo recibe.
+     * sessionId / subscriptionId: los de la trama SUBSCRIBE; destination: el destino suscrito
+     */
+    void publishToSession(String sessionId, String subscriptionId, String destination, Object payload);
 }
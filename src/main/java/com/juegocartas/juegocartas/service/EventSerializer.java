@@ -0,0 +1,43 @@
+package com.juegocartas.juegocartas.service;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+
+/**
+ * Convierte eventos a JSON una sola vez, con el mismo ObjectMapper que usa el conversor de
+ * mensajes STOMP, para que el resultado se pueda enviar a varios destinos sin reconvertirlo.
+ */
+@Component
+public class EventSerializer {
+
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+
+    public EventSerializer(ObjectMapper objectMapper, MetricsService metricsService) {
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Devuelve el evento serializado; si ya lo estaba, lo devuelve sin cambios.
+     */
+    public EventoSerializado serializar(Object payload) {
+        if (payload instanceof EventoSerializado serializado) {
+            return serializado;
+        }
+        long inicio = System.nanoTime();
+        try {
+            EventoSerializado serializado = new EventoSerializado(objectMapper.writeValueAsBytes(payload));
+            metricsService.incrementar("eventos.serializados.bytes", serializado.tamano());
+            return serializado;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el evento "
+                    + payload.getClass().getSimpleName() + ": " + e.getOriginalMessage(), e);
+        } finally {
+            metricsService.registrarDuracion("eventos.serializacion", System.nanoTime() - inicio);
+        }
+    }
+}
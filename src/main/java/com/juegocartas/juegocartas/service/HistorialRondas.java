@@ -0,0 +1,139 @@
+package com.juegocartas.juegocartas.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.model.Ronda;
+import com.juegocartas.juegocartas.repository.RondaRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Historial de rondas de las partidas, fuera del documento de la partida.
+ *
+ * Cada ronda resuelta es un documento de la colección rondas que sólo se añade. Las rondas se
+ * encolan al resolverse y un proceso periódico las escribe por lotes (app.rondas.flushIntervalMs),
+ * fuera del lock de la partida: resolver una ronda no espera a esta escritura. Si la escritura
+ * falla, las rondas vuelven a la cola y se reintentan; como el id es partidaId:numero, repetir
+ * una escritura no duplica rondas. Con más de app.rondas.maxPendientes rondas sin escribir (MongoDB
+ * caído) las nuevas se descartan (rondas.descartadas). Las rondas encoladas se pierden si la
+ * instancia termina de forma abrupta; al cerrarse con normalidad se escriben antes.
+ *
+ * Las consultas paginan por número de ronda y también ven las rondas aún encoladas en esta
+ * instancia.
+ *
+ * Métricas: rondas.escritas, rondas.errores, rondas.descartadas, el gauge rondas.pendientes y la
+ * duración rondas.flush.latencia.
+ */
+@Service
+public class HistorialRondas {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorialRondas.class);
+
+    private final RondaRepository rondaRepository;
+    private final MetricsService metricsService;
+    private final int tamanoLote;
+    private final int maxPendientes;
+
+    private final Queue<Ronda> pendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numeroPendientes = new AtomicInteger();
+
+    // el flush periódico y el del cierre no escriben a la vez
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    public HistorialRondas(RondaRepository rondaRepository,
+                           MetricsService metricsService,
+                           @Value("${app.rondas.flushBatchSize:500}") int tamanoLote,
+                           @Value("${app.rondas.maxPendientes:100000}") int maxPendientes) {
+        this.rondaRepository = rondaRepository;
+        this.metricsService = metricsService;
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.maxPendientes = Math.max(1, maxPendientes);
+        metricsService.registrarGauge("rondas.pendientes", numeroPendientes::get);
+    }
+
+    /**
+     * Encola la ronda recién resuelta de la partida. Invocar después de guardar la partida, para
+     * no registrar rondas de un intento que se repite por conflicto de versión.
+     */
+    public void registrar(Partida partida, Ronda ronda) {
+        ronda.setId(partida.getId() + ":" + ronda.getNumero());
+        ronda.setPartidaId(partida.getId());
+        ronda.setPartidaCodigo(partida.getCodigo());
+        ronda.setFecha(Instant.now());
+        if (numeroPendientes.incrementAndGet() > maxPendientes) {
+            numeroPendientes.decrementAndGet();
+            metricsService.incrementar("rondas.descartadas");
+            log.warn("Cola de rondas llena ({}): se descarta la ronda {} de la partida {}",
+                    maxPendientes, ronda.getNumero(), partida.getCodigo());
+            return;
+        }
+        pendientes.add(ronda);
+    }
+
+    /**
+     * Hasta limite rondas de la partida posteriores a la ronda desde, ordenadas por número.
+     */
+    public List<Ronda> pagina(String partidaId, int desde, int limite) {
+        TreeMap<Integer, Ronda> porNumero = new TreeMap<>();
+        for (Ronda r : rondaRepository.findByPartidaIdAndNumeroGreaterThanOrderByNumeroAsc(
+                partidaId, desde, Limit.of(limite))) {
+            porNumero.put(r.getNumero(), r);
+        }
+        for (Ronda r : pendientes) {
+            if (partidaId.equals(r.getPartidaId()) && r.getNumero() > desde) porNumero.put(r.getNumero(), r);
+        }
+        return porNumero.values().stream().limit(limite).toList();
+    }
+
+    /**
+     * Escribe las rondas encoladas, en lotes de app.rondas.flushBatchSize.
+     */
+    @Scheduled(fixedDelayString = "${app.rondas.flushIntervalMs:1000}")
+    public void flush() {
+        if (pendientes.isEmpty()) return;
+        long inicio = System.nanoTime();
+        escritura.lock();
+        try {
+            while (true) {
+                List<Ronda> lote = new ArrayList<>();
+                Ronda r;
+                while (lote.size() < tamanoLote && (r = pendientes.poll()) != null) lote.add(r);
+                if (lote.isEmpty()) return;
+                try {
+                    rondaRepository.saveAll(lote);
+                } catch (RuntimeException e) {
+                    // reintentar en el siguiente flush
+                    pendientes.addAll(lote);
+                    metricsService.incrementar("rondas.errores");
+                    log.error("Error escribiendo {} rondas: {}", lote.size(), e.getMessage(), e);
+                    return;
+                }
+                numeroPendientes.addAndGet(-lote.size());
+                metricsService.incrementar("rondas.escritas", lote.size());
+            }
+        } finally {
+            escritura.unlock();
+            metricsService.registrarDuracion("rondas.flush.latencia", System.nanoTime() - inicio);
+        }
+    }
+
+    @PreDestroy
+    public void flushAlCerrar() {
+        flush();
+    }
+}
@@ -0,0 +1,98 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+
+/**
+ * Índice en memoria de los jugadores de cada partida (conexión y cartas en mano) para validar
+ * los eventos de drag sin leer la partida en cada evento.
+ *
+ * Cada entrada lleva la {@link ActiveGameRegistry#versionEstado(String)} con la que se construyó.
+ * Los servicios de juego y de partidas guardan cada cambio a través del registro, que sube esa
+ * versión; la siguiente consulta ve la versión distinta y reconstruye la entrada (bajo el lock
+ * de la partida) una sola vez. Para las partidas en curso la reconstrucción sale de la copia en
+ * memoria del registro; sólo las que no están en memoria (en espera, o con el registro
+ * deshabilitado) se leen de MongoDB, una vez por cambio y no por evento. Los códigos que no
+ * existen no se guardan.
+ *
+ * Como el resto de vistas derivadas de versionEstado, no ve los cambios hechos por otras
+ * instancias.
+ */
+@Component
+public class IndiceJugadoresPartida {
+
+    /**
+     * Lo que necesita la validación de drag de un jugador.
+     */
+    public record Miembro(boolean conectado, int cartasEnMano) {
+    }
+
+    private record Entrada(long version, Map<String, Miembro> miembros) {
+    }
+
+    private final ActiveGameRegistry activeGameRegistry;
+    private final MetricsService metricsService;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public IndiceJugadoresPartida(ActiveGameRegistry activeGameRegistry, MetricsService metricsService) {
+        this.activeGameRegistry = activeGameRegistry;
+        this.metricsService = metricsService;
+        metricsService.registrarGauge("drag.indice.partidas", entradas::size);
+    }
+
+    /**
+     * El jugador en la partida, o null si la partida no existe o el jugador no pertenece a ella.
+     */
+    public Miembro buscar(String codigo, String jugadorId) {
+        Entrada entrada = entradas.get(codigo);
+        if (entrada == null || entrada.version() != activeGameRegistry.versionEstado(codigo)) {
+            entrada = construir(codigo);
+        }
+        return entrada.miembros().get(jugadorId);
+    }
+
+    /**
+     * Retira las entradas de partidas que ya no están en memoria en el registro (terminadas,
+     * eliminadas o en espera); se reconstruyen si vuelven a consultarse.
+     */
+    @Scheduled(fixedDelayString = "${app.drag.indice.purgaMs:60000}")
+    public void purgar() {
+        entradas.keySet().removeIf(codigo -> !activeGameRegistry.esActiva(codigo));
+    }
+
+    private Entrada construir(String codigo) {
+        return activeGameRegistry.ejecutar(codigo, () -> {
+            long version = activeGameRegistry.versionEstado(codigo);
+            Entrada otra = entradas.get(codigo);
+            if (otra != null && otra.version() == version) return otra;
+
+            metricsService.incrementar("drag.indice.reconstrucciones");
+            Partida partida = activeGameRegistry.buscar(codigo).orElse(null);
+            if (partida == null) {
+                // no se guarda: un cliente que envía códigos inventados no llena el índice
+                entradas.remove(codigo);
+                return new Entrada(version, Map.of());
+            }
+            Entrada entrada = new Entrada(version, miembros(partida));
+            entradas.put(codigo, entrada);
+            return entrada;
+        });
+    }
+
+    private static Map<String, Miembro> miembros(Partida partida) {
+        Map<String, Miembro> miembros = new HashMap<>();
+        for (Jugador j : partida.getJugadores()) {
+            int cartas = j.getCartasEnMano() != null ? j.getCartasEnMano().size() : 0;
+            miembros.put(j.getId(), new Miembro(j.isConectado(), cartas));
+        }
+        return miembros;
+    }
+}
@@ -0,0 +1,87 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Registro ligero de métricas en memoria (contadores, gauges y duraciones).
+ * Los componentes registran sus valores por nombre y el snapshot se expone
+ * vía REST en /api/metricas.
+ */
+@Service
+public class MetricsService {
+
+    private final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Duracion> duraciones = new ConcurrentHashMap<>();
+
+    public void incrementar(String nombre) {
+        incrementar(nombre, 1);
+    }
+
+    public void incrementar(String nombre, long cantidad) {
+        contadores.computeIfAbsent(nombre, k -> new LongAdder()).add(cantidad);
+    }
+
+    public long contador(String nombre) {
+        LongAdder adder = contadores.get(nombre);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    /**
+     * Registra un gauge cuyo valor se calcula al momento de consultar el snapshot.
+     */
+    public void registrarGauge(String nombre, Supplier<? extends Number> fuente) {
+        gauges.put(nombre, fuente);
+    }
+
+    public void registrarDuracion(String nombre, long nanos) {
+        duraciones.computeIfAbsent(nombre, k -> new Duracion()).registrar(nanos);
+    }
+
+    /**
+     * Devuelve todas las métricas ordenadas por nombre.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> resultado = new TreeMap<>();
+        contadores.forEach((nombre, adder) -> resultado.put(nombre, adder.sum()));
+        gauges.forEach((nombre, fuente) -> {
+            try {
+                resultado.put(nombre, fuente.get());
+            } catch (Exception e) {
+                resultado.put(nombre, null);
+            }
+        });
+        duraciones.forEach((nombre, duracion) -> resultado.put(nombre, duracion.resumen()));
+        return resultado;
+    }
+
+    private static class Duracion {
+        private final LongAdder cuenta = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+
+        void registrar(long nanos) {
+            cuenta.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> resumen() {
+            long n = cuenta.sum();
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("count", n);
+            r.put("avgMs", n == 0 ? 0.0 : (totalNanos.sum() / (double) n) / TimeUnit.MILLISECONDS.toNanos(1));
+            r.put("maxMs", maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+            return r;
+        }
+    }
+}
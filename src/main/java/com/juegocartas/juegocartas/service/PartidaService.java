@@ -18,6 +18,18 @@ public interface PartidaService {
     PartidaResponse obtenerPartida(String codigo);
     PartidaDetailResponse obtenerPartidaDetalle(String codigo, String jugadorId);
 
+    /**
+     * Página del historial de rondas: hasta limite rondas con número mayor que desde. También
+     * para partidas archivadas.
+     */
+    com.juegocartas.juegocartas.dto.response.RondasResponse obtenerRondas(String codigo, int desde, int limite);
+
+    /**
+     * jugadorId del usuario en la partida, o null si no juega en ella.
+     * PartidaResponse ya no expone el userId de los jugadores.
+     */
+    String obtenerJugadorIdDeUsuario(String codigo, String userId);
+
     /**
      * Reconecta al usuario autenticado a una partida existente (busca por userId)
      * Marca el jugador como conectado y publica el estado actualizado.
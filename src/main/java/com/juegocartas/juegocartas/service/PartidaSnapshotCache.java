@@ -0,0 +1,109 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+import com.juegocartas.juegocartas.dto.response.PartidaResponse;
+
+/**
+ * Último PartidaResponse de cada partida, ya serializado, para las ráfagas de suscripciones
+ * (7 jugadores x 3 destinos al entrar en una partida).
+ *
+ * Una entrada vale mientras no cambien {@link ActiveGameRegistry#versionEstado(String)} ni el
+ * seq de la partida y no haya pasado app.partidas.snapshot.ttlMs; el TTL corto cubre los cambios
+ * hechos por otras instancias, que la versión local no ve.
+ *
+ * El JSON lleva el "seq" del último evento publicado cuando se construyó (ver SecuenciaEventos),
+ * salvo con el broker RELAY, donde los eventos no se numeran.
+ */
+@Component
+public class PartidaSnapshotCache {
+
+    private final ActiveGameRegistry activeGameRegistry;
+    private final EventSerializer eventSerializer;
+    private final SecuenciaEventos secuenciaEventos;
+    private final MetricsService metricsService;
+    private final long ttlNanos;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public PartidaSnapshotCache(ActiveGameRegistry activeGameRegistry,
+                                EventSerializer eventSerializer,
+                                SecuenciaEventos secuenciaEventos,
+                                MetricsService metricsService,
+                                @Value("${app.partidas.snapshot.ttlMs:2000}") long ttlMs) {
+        this.activeGameRegistry = activeGameRegistry;
+        this.eventSerializer = eventSerializer;
+        this.secuenciaEventos = secuenciaEventos;
+        this.metricsService = metricsService;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        metricsService.registrarGauge("partidas.snapshot.entradas", snapshots::size);
+    }
+
+    /**
+     * Estado actual de la partida (PartidaResponse serializado), o vacío si no existe.
+     */
+    public Optional<EventoSerializado> obtener(String codigo) {
+        Snapshot vigente = vigente(codigo);
+        if (vigente != null) {
+            metricsService.incrementar("partidas.snapshot.aciertos");
+            return Optional.of(vigente.evento());
+        }
+
+        // bajo el lock de la partida: la versión y los jugadores leídos son consistentes, y las
+        // suscripciones simultáneas que fallaron a la vez reutilizan la primera que lo construya
+        Snapshot snapshot = activeGameRegistry.ejecutar(codigo, () -> {
+            Snapshot otro = vigente(codigo);
+            if (otro != null) return otro;
+            metricsService.incrementar("partidas.snapshot.fallos");
+            long version = activeGameRegistry.versionEstado(codigo);
+            // los eventos de operaciones anteriores ya están numerados: el snapshot los refleja
+            long seq = secuenciaEventos.actual(codigo);
+            return activeGameRegistry.buscar(codigo)
+                    .map(p -> {
+                        EventoSerializado evento =
+                                eventSerializer.serializar(new PartidaResponse(codigo, null, p.getJugadores()));
+                        return new Snapshot(version, seq, System.nanoTime(),
+                                secuenciaEventos.isHabilitada() ? evento.conSecuencia(seq) : evento);
+                    })
+                    .orElse(null);
+        });
+
+        if (snapshot == null) {
+            snapshots.remove(codigo);
+            return Optional.empty();
+        }
+        snapshots.put(codigo, snapshot);
+        return Optional.of(snapshot.evento());
+    }
+
+    /**
+     * Retira las entradas caducadas de partidas que ya nadie consulta.
+     */
+    @Scheduled(fixedDelayString = "${app.partidas.snapshot.purgaMs:60000}")
+    public void purgar() {
+        long ahora = System.nanoTime();
+        snapshots.values().removeIf(s -> ahora - s.creadoNanos() >= ttlNanos);
+    }
+
+    private Snapshot vigente(String codigo) {
+        Snapshot snapshot = snapshots.get(codigo);
+        if (snapshot == null
+                || System.nanoTime() - snapshot.creadoNanos() >= ttlNanos
+                || snapshot.version() != activeGameRegistry.versionEstado(codigo)
+                || snapshot.seq() != secuenciaEventos.actual(codigo)) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private record Snapshot(long version, long seq, long creadoNanos, EventoSerializado evento) {
+    }
+}
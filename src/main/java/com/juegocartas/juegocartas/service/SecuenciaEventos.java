@@ -0,0 +1,88 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Número de secuencia de los eventos de cada partida.
+ *
+ * Cada evento de /topic/partida/{codigo} y /topic/partida/{codigo}/counts lleva un campo "seq"
+ * que crece de a uno por partida (ambos topics comparten la secuencia; /drag no se numera).
+ * El PartidaResponse del snapshot lleva el "seq" del último evento que ya refleja. Un cliente
+ * que recibe un seq distinto de último+1 perdió eventos y debe pedir GET
+ * /api/partidas/{codigo}/estado y descartar los eventos con seq menor o igual al del snapshot.
+ *
+ * La secuencia vive en memoria: tras un reinicio vuelve a empezar y los clientes ven un salto
+ * hacia atrás, que también resuelven con un resync. Las secuencias de partidas que ya no existen
+ * se retiran con {@link #olvidar(String)} (ver ArchivoPartidas).
+ *
+ * Con app.websocket.broker.modo=RELAY no se numera nada: los eventos de una partida los publican
+ * las réplicas que atienden a cada jugador, cada una con su propio contador, y los clientes
+ * recibirían seq repetidos o hacia atrás en cada acción. Una secuencia compartida costaría una
+ * escritura en MongoDB por evento; sin seq, esos clientes se resincronizan al reconectar.
+ *
+ * Tampoco se numera con app.eventos.async.enabled=false: quien pone el seq es
+ * AsyncEventPublisher, y SimpEventPublisher publica directamente sin él. El snapshot tampoco lo
+ * lleva, para no anunciar un seq que ningún evento trae.
+ */
+@Component
+public class SecuenciaEventos {
+
+    private static final String PREFIJO_PARTIDA = "/topic/partida/";
+
+    private final Map<String, AtomicLong> secuencias = new ConcurrentHashMap<>();
+    private final boolean habilitada;
+
+    public SecuenciaEventos(MetricsService metricsService,
+                            @Value("${app.websocket.broker.modo:SIMPLE}") String modoBroker,
+                            @Value("${app.eventos.async.enabled:true}") boolean envioAsincrono) {
+        this.habilitada = envioAsincrono && !"RELAY".equalsIgnoreCase(modoBroker.trim());
+        metricsService.registrarGauge("eventos.secuencia.partidas", secuencias::size);
+    }
+
+    /**
+     * Si los eventos llevan "seq": false con el broker RELAY o sin envío asíncrono.
+     */
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    public long siguiente(String codigo) {
+        return secuencias.computeIfAbsent(codigo, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Último número asignado (0 si la partida aún no publicó eventos).
+     */
+    public long actual(String codigo) {
+        AtomicLong secuencia = secuencias.get(codigo);
+        return secuencia != null ? secuencia.get() : 0L;
+    }
+
+    /**
+     * Códigos de las partidas con secuencia.
+     */
+    public Set<String> codigos() {
+        return Set.copyOf(secuencias.keySet());
+    }
+
+    public void olvidar(String codigo) {
+        secuencias.remove(codigo);
+    }
+
+    /**
+     * Código de la partida si los eventos del topic se numeran; null si no.
+     */
+    public static String partidaSecuenciada(String topic) {
+        if (topic == null || !topic.startsWith(PREFIJO_PARTIDA)) return null;
+        String resto = topic.substring(PREFIJO_PARTIDA.length());
+        int barra = resto.indexOf('/');
+        if (barra < 0) return resto.isEmpty() ? null : resto;
+        return resto.substring(barra).equals("/counts") ? resto.substring(0, barra) : null;
+    }
+}
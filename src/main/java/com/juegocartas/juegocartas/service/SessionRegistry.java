@@ -0,0 +1,39 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.Optional;
+
+/**
+ * Registro de las sesiones WebSocket: qué jugador y qué partida corresponden a cada sessionId.
+ *
+ * La implementación se elige con app.sesiones.registro: MEMORIA (por defecto, un solo nodo) o
+ * MONGO (varias réplicas; ver MongoSessionRegistry). Una sesión STOMP vive siempre en el nodo
+ * que aceptó la conexión, así que las consultas por sessionId son locales; lo que necesita ver
+ * el resto del cluster es si un jugador tiene alguna sesión abierta en cualquier nodo.
+ */
+public interface SessionRegistry {
+
+    record Sesion(String sessionId, String jugadorId, String partidaCodigo) {
+    }
+
+    /**
+     * Asocia la sesión al jugador (conserva la partida si ya se conocía).
+     */
+    void registrarJugador(String sessionId, String jugadorId);
+
+    /**
+     * Asocia la sesión a la partida (conserva el jugador si ya se conocía).
+     */
+    void registrarPartida(String sessionId, String partidaCodigo);
+
+    Optional<Sesion> buscar(String sessionId);
+
+    /**
+     * Quita la sesión del registro y devuelve lo que tenía asociado.
+     */
+    Optional<Sesion> eliminar(String sessionId);
+
+    /**
+     * Si el jugador tiene alguna sesión registrada (en cualquier nodo, según la implementación).
+     */
+    boolean tieneSesiones(String jugadorId);
+}
@@ -0,0 +1,97 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.dto.event.EventBatch;
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+
+/**
+ * Estado de la partida para cada sesión que se suscribe a su topic principal.
+ *
+ * El PartidaResponse sale de {@link PartidaSnapshotCache} y sólo lo recibe la suscripción que
+ * lo pidió ({@link EventPublisher#publishToSession}); el resto de jugadores no recibe nada. Se
+ * envía una vez por sesión y partida mientras la sesión siga suscrita (si se suscribe a
+ * /topic/partida/{codigo} y a su /lote, sólo a la primera). Las suscripciones a /counts y /drag
+ * no reciben estado; en {topic}/lote se envía como EventBatch de un solo evento.
+ */
+@Service
+public class SuscripcionSnapshotService {
+
+    private static final String PREFIJO_PARTIDA = "/topic/partida/";
+
+    private final PartidaSnapshotCache partidaSnapshotCache;
+    private final EventPublisher eventPublisher;
+    private final MetricsService metricsService;
+
+    // sessionId -> (subscriptionId -> codigo) de las suscripciones que recibieron el estado
+    private final Map<String, Map<String, String>> enviados = new ConcurrentHashMap<>();
+
+    public SuscripcionSnapshotService(PartidaSnapshotCache partidaSnapshotCache,
+                                      EventPublisher eventPublisher,
+                                      MetricsService metricsService) {
+        this.partidaSnapshotCache = partidaSnapshotCache;
+        this.eventPublisher = eventPublisher;
+        this.metricsService = metricsService;
+        metricsService.registrarGauge("partidas.snapshot.sesiones", enviados::size);
+    }
+
+    /**
+     * Envía el estado actual a la suscripción si es al topic principal de una partida y la
+     * sesión aún no lo tiene. Devuelve true si se envió.
+     */
+    public boolean alSuscribirse(String sessionId, String subscriptionId, String destination) {
+        String codigo = codigoConEstado(destination);
+        if (codigo == null || sessionId == null || subscriptionId == null) return false;
+
+        Map<String, String> deSesion = enviados.computeIfAbsent(sessionId, k -> new HashMap<>());
+        synchronized (deSesion) {
+            if (deSesion.containsValue(codigo)) {
+                metricsService.incrementar("partidas.snapshot.suscripcion.duplicadas");
+                return false;
+            }
+            deSesion.put(subscriptionId, codigo);
+        }
+
+        Optional<EventoSerializado> snapshot = partidaSnapshotCache.obtener(codigo);
+        if (snapshot.isEmpty()) return false;
+        Object payload = destination.endsWith(EventBatcher.SUFIJO_LOTE)
+                ? new EventBatch(List.of(snapshot.get()))
+                : snapshot.get();
+        eventPublisher.publishToSession(sessionId, subscriptionId, destination, payload);
+        metricsService.incrementar("partidas.snapshot.suscripcion.enviados");
+        return true;
+    }
+
+    /**
+     * La sesión canceló la suscripción: si vuelve a suscribirse, recibirá el estado de nuevo.
+     */
+    public void alDesuscribirse(String sessionId, String subscriptionId) {
+        Map<String, String> deSesion = enviados.get(sessionId);
+        if (deSesion == null || subscriptionId == null) return;
+        synchronized (deSesion) {
+            deSesion.remove(subscriptionId);
+        }
+    }
+
+    public void alDesconectar(String sessionId) {
+        if (sessionId != null) enviados.remove(sessionId);
+    }
+
+    /**
+     * Código de partida si el destino es /topic/partida/{codigo} o /topic/partida/{codigo}/lote.
+     */
+    static String codigoConEstado(String destination) {
+        if (destination == null || !destination.startsWith(PREFIJO_PARTIDA)) return null;
+        String resto = destination.substring(PREFIJO_PARTIDA.length());
+        if (resto.endsWith(EventBatcher.SUFIJO_LOTE)) {
+            resto = resto.substring(0, resto.length() - EventBatcher.SUFIJO_LOTE.length());
+        }
+        return resto.isEmpty() || resto.contains("/") ? null : resto;
+    }
+}
@@ -0,0 +1,177 @@
+package com.juegocartas.juegocartas.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.dto.response.JugadorPrivateDTO;
+import com.juegocartas.juegocartas.dto.response.JugadorPublicDTO;
+import com.juegocartas.juegocartas.dto.response.PartidaDetailResponse;
+import com.juegocartas.juegocartas.dto.response.PartidaResponse;
+import com.juegocartas.juegocartas.model.EstadoPartida;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+/**
+ * Respuestas de GET /api/partidas/{codigo} y /detalle, con ETag.
+ *
+ * Las partidas en memoria del {@link ActiveGameRegistry} se leen de su copia, bajo su lock, y el
+ * ETag es su {@link ActiveGameRegistry#versionEstado(String)} con un prefijo propio de esta instancia: esa
+ * versión empieza de cero al arrancar y no ve los cambios de otras instancias, así que un ETag
+ * de otra instancia (o de antes de un reinicio) nunca coincide. El resto de partidas se leen de
+ * MongoDB con una proyección de los campos que muestra cada respuesta (sin manos ni cartas en
+ * mesa en la pública) y el ETag es la @Version del documento, que sube con cada escritura.
+ *
+ * Si el ETag que envía el cliente (If-None-Match) coincide, no se construye la respuesta y el
+ * controlador devuelve 304. El ETag de /detalle incluye también el tiempo restante, que en una
+ * partida en curso cambia cada segundo.
+ *
+ * Métricas: partidas.lectura.memoria, partidas.lectura.proyeccion, partidas.lectura.noModificadas.
+ */
+@Component
+public class VistasPartida {
+
+    /**
+     * Respuesta con su ETag; cuerpo es null si el cliente ya tiene esta versión.
+     */
+    public record Vista<T>(String etag, T cuerpo) {
+        public boolean noModificada() {
+            return cuerpo == null;
+        }
+    }
+
+    private final ActiveGameRegistry activeGameRegistry;
+    private final PartidaRepository partidaRepository;
+    private final MetricsService metricsService;
+
+    private final String instancia = UUID.randomUUID().toString().substring(0, 8);
+
+    public VistasPartida(ActiveGameRegistry activeGameRegistry,
+                         PartidaRepository partidaRepository,
+                         MetricsService metricsService) {
+        this.activeGameRegistry = activeGameRegistry;
+        this.partidaRepository = partidaRepository;
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Estado público de la partida (PartidaResponse).
+     *
+     * @param siNoCoincide valor de If-None-Match, o null
+     */
+    public Vista<PartidaResponse> publica(String codigo, String siNoCoincide) {
+        return leer(codigo, partidaRepository::findPublicaByCodigo, siNoCoincide, p -> "",
+                p -> new PartidaResponse(codigo, null, p.getJugadores()));
+    }
+
+    /**
+     * Detalle de la partida para el jugador: su mano y los datos públicos del resto.
+     *
+     * @param siNoCoincide valor de If-None-Match, o null
+     */
+    public Vista<PartidaDetailResponse> detalle(String codigo, String jugadorId, String siNoCoincide) {
+        return leer(codigo, partidaRepository::findDetalleByCodigo, siNoCoincide,
+                p -> "-" + tiempoRestante(p), p -> detalle(codigo, jugadorId, p));
+    }
+
+    private <T> Vista<T> leer(String codigo, Function<String, Optional<Partida>> proyeccion, String siNoCoincide,
+                              Function<Partida, String> sufijo, Function<Partida, T> construir) {
+        if (activeGameRegistry.esActiva(codigo)) {
+            return enMemoria(codigo, siNoCoincide, sufijo, construir);
+        }
+        Partida partida = proyeccion.apply(codigo).orElseThrow(() -> noEncontrada(codigo));
+        if (activeGameRegistry.isHabilitado() && EstadoPartida.EN_CURSO.name().equals(partida.getEstado())) {
+            // en curso y aún no en memoria: se carga en el registro, que es quien la lleva
+            return enMemoria(codigo, siNoCoincide, sufijo, construir);
+        }
+        metricsService.incrementar("partidas.lectura.proyeccion");
+        return responder("v" + partida.getVersion() + sufijo.apply(partida), siNoCoincide, partida, construir);
+    }
+
+    /**
+     * Vista de la copia del registro, bajo el lock de la partida (como PartidaSnapshotCache): la
+     * versión y el cuerpo son del mismo estado, y nadie modifica los jugadores ni las manos
+     * mientras se copian a la respuesta.
+     */
+    private <T> Vista<T> enMemoria(String codigo, String siNoCoincide,
+                                   Function<Partida, String> sufijo, Function<Partida, T> construir) {
+        metricsService.incrementar("partidas.lectura.memoria");
+        return activeGameRegistry.ejecutar(codigo, () -> {
+            long version = activeGameRegistry.versionEstado(codigo);
+            Partida partida = buscar(codigo);
+            return responder(instancia + "-" + version + sufijo.apply(partida), siNoCoincide, partida, construir);
+        });
+    }
+
+    private <T> Vista<T> responder(String etag, String siNoCoincide, Partida partida, Function<Partida, T> construir) {
+        if (coincide(siNoCoincide, etag)) {
+            metricsService.incrementar("partidas.lectura.noModificadas");
+            return new Vista<>(etag, null);
+        }
+        return new Vista<>(etag, construir.apply(partida));
+    }
+
+    private Partida buscar(String codigo) {
+        return activeGameRegistry.buscar(codigo).orElseThrow(() -> noEncontrada(codigo));
+    }
+
+    private static IllegalArgumentException noEncontrada(String codigo) {
+        return new IllegalArgumentException("Partida no encontrada: " + codigo);
+    }
+
+    /**
+     * Si alguno de los ETags de If-None-Match ("*", con o sin comillas y W/) es etag.
+     */
+    static boolean coincide(String siNoCoincide, String etag) {
+        if (siNoCoincide == null || siNoCoincide.isBlank()) return false;
+        for (String candidato : siNoCoincide.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) return true;
+            if (valor.startsWith("W/")) valor = valor.substring(2);
+            if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+                valor = valor.substring(1, valor.length() - 1);
+            }
+            if (valor.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static PartidaDetailResponse detalle(String codigo, String jugadorId, Partida p) {
+        // Separar jugadores en públicos y privado (el solicitante)
+        List<JugadorPublicDTO> jugadoresPublicos = new ArrayList<>();
+        JugadorPrivateDTO miJugador = null;
+
+        for (Jugador j : p.getJugadores()) {
+            if (j.getId().equals(jugadorId)) {
+                miJugador = JugadorPrivateDTO.desde(j);
+            } else {
+                jugadoresPublicos.add(JugadorPublicDTO.desde(j));
+            }
+        }
+
+        return new PartidaDetailResponse(
+            codigo,
+            jugadorId,
+            p.getEstado(),
+            p.getTurnoActual(),
+            p.getAtributoSeleccionado(),
+            jugadoresPublicos,
+            miJugador,
+            tiempoRestante(p)
+        );
+    }
+
+    static int tiempoRestante(Partida p) {
+        if (p.getTiempoInicio() == null || EstadoPartida.FINALIZADA.name().equals(p.getEstado())) {
+            return 0;
+        }
+        long transcurrido = Instant.now().getEpochSecond() - p.getTiempoInicio().getEpochSecond();
+        return Math.max(0, p.getTiempoLimite() - (int) transcurrido);
+    }
+}
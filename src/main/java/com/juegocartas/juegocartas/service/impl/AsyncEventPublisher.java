@@ -0,0 +1,250 @@
+package com.juegocartas.juegocartas.service.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+import com.juegocartas.juegocartas.service.EventBatcher;
+import com.juegocartas.juegocartas.service.EventPublisher;
+import com.juegocartas.juegocartas.service.EventSerializer;
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.juegocartas.juegocartas.service.SecuenciaEventos;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * EventPublisher asíncrono: publicar sólo serializa el evento y encola su envío; el reparto del
+ * broker a los suscriptores se hace en otro hilo, fuera del lock de la partida.
+ *
+ * La serialización se hace en el hilo que publica porque los eventos referencian el estado vivo
+ * de la partida (p. ej. PartidaResponse con la lista de jugadores): el JSON refleja el estado en
+ * el momento de publicar y no el que tenga la partida cuando la cola llegue al envío.
+ *
+ * Hay una cola por partida (la clave sale de /topic/partida/{codigo}/...) que se vacía en un hilo
+ * virtual, de a un envío por vez, así que los eventos de una partida llegan en el mismo orden en
+ * que se publicaron, en todos sus topics. Distintas partidas se envían en paralelo.
+ *
+ * Lo publicado dentro de una operación (EventBatcher#enLote) se encola al terminar ésta: los lotes
+ * ya cerrados y los eventos sueltos en orden; lo de un intento descartado por conflicto no se encola.
+ *
+ * Al encolar, los eventos de /topic/partida/{codigo} y de su /counts reciben el siguiente "seq" de
+ * la partida (ver SecuenciaEventos); dentro de un lote, cada evento lleva el suyo. Con el broker
+ * RELAY no se numeran.
+ *
+ * /drag es el único topic que se descarta: si una partida ya tiene app.eventos.async.maxDragPendientes
+ * eventos de drag sin enviar, los movimientos y fotogramas nuevos (publish) se pierden; el cliente
+ * se pone al día con la siguiente posición que reciba. El inicio y la suelta de un arrastre llegan
+ * por {@link #publishSinDescartar} y se encolan siempre, igual que los eventos de juego.
+ *
+ * Se desactiva con app.eventos.async.enabled=false (se usa SimpEventPublisher directamente).
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "app.eventos.async.enabled", havingValue = "true", matchIfMissing = true)
+public class AsyncEventPublisher implements EventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncEventPublisher.class);
+
+    private static final String PREFIJO_PARTIDA = "/topic/partida/";
+    private static final String SUFIJO_DRAG = "/drag";
+
+    private final SimpEventPublisher delegado;
+    private final EventBatcher eventBatcher;
+    private final EventSerializer eventSerializer;
+    private final SecuenciaEventos secuenciaEventos;
+    private final MetricsService metricsService;
+    private final int maxDragPendientes;
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("eventos-", 0).factory());
+    private final Map<String, Cola> colas = new ConcurrentHashMap<>();
+    private final AtomicLong pendientes = new AtomicLong();
+
+    public AsyncEventPublisher(SimpEventPublisher delegado,
+                               EventBatcher eventBatcher,
+                               EventSerializer eventSerializer,
+                               SecuenciaEventos secuenciaEventos,
+                               MetricsService metricsService,
+                               @Value("${app.eventos.async.maxDragPendientes:32}") int maxDragPendientes) {
+        this.delegado = delegado;
+        this.eventBatcher = eventBatcher;
+        this.eventSerializer = eventSerializer;
+        this.secuenciaEventos = secuenciaEventos;
+        this.metricsService = metricsService;
+        this.maxDragPendientes = maxDragPendientes;
+        metricsService.registrarGauge("eventos.cola.pendientes", pendientes::get);
+        metricsService.registrarGauge("eventos.cola.partidas", colas::size);
+        metricsService.registrarGauge("eventos.cola.maxPorPartida",
+                () -> colas.values().stream().mapToInt(c -> c.tamano.get()).max().orElse(0));
+    }
+
+    @Override
+    public void publish(String topic, Object payload) {
+        publicar(topic, payload, true);
+    }
+
+    @Override
+    public void publishSinDescartar(String topic, Object payload) {
+        publicar(topic, payload, false);
+    }
+
+    private void publicar(String topic, Object payload, boolean descartable) {
+        EventoSerializado evento = eventSerializer.serializar(payload);
+        if (eventBatcher.agregar(topic, evento, this::encolarLote)) return;
+        Runnable envio = () -> encolar(topic, topic, descartable, () -> {
+            EventoSerializado numerado = numerar(topic, evento);
+            return () -> delegado.publish(topic, numerado);
+        });
+        if (!eventBatcher.diferir(envio)) envio.run();
+    }
+
+    private void encolarLote(String topic, List<Object> eventos) {
+        encolar(topic, topic, false, () -> {
+            List<Object> numerados = eventos.stream()
+                    .<Object>map(e -> numerar(topic, eventSerializer.serializar(e)))
+                    .toList();
+            return () -> delegado.publicarLote(topic, numerados);
+        });
+    }
+
+    @Override
+    public void publishToUser(String user, String destination, Object payload) {
+        Object evento = eventSerializer.serializar(payload);
+        Runnable envio = () -> encolar("/user/" + user, destination, false,
+                () -> () -> delegado.publishToUser(user, destination, evento));
+        if (!eventBatcher.diferir(envio)) envio.run();
+    }
+
+    @Override
+    public void publishToSession(String sessionId, String subscriptionId, String destination, Object payload) {
+        // en la cola de la partida: llega después de los eventos ya publicados en ella
+        Object evento = eventSerializer.serializar(payload);
+        encolar(destination, destination, false,
+                () -> () -> delegado.publishToSession(sessionId, subscriptionId, destination, evento));
+    }
+
+    /**
+     * Espera a que se envíe lo encolado y libera los hilos.
+     */
+    @PreDestroy
+    public void cerrar() {
+        executor.close();
+    }
+
+    /**
+     * Clave de la cola: la partida para sus topics, el propio topic para el resto.
+     */
+    static String clave(String topic) {
+        if (!topic.startsWith(PREFIJO_PARTIDA)) return topic;
+        int fin = topic.indexOf('/', PREFIJO_PARTIDA.length());
+        return fin < 0 ? topic : topic.substring(0, fin);
+    }
+
+    /**
+     * Asigna el siguiente seq de la partida si el topic se numera. Se invoca dentro del compute
+     * de {@link #encolar}: el orden de los seq es el orden de la cola, y por tanto el de envío.
+     */
+    private EventoSerializado numerar(String topic, EventoSerializado evento) {
+        if (!secuenciaEventos.isHabilitada()) return evento;
+        String codigo = SecuenciaEventos.partidaSecuenciada(topic);
+        return codigo != null ? evento.conSecuencia(secuenciaEventos.siguiente(codigo)) : evento;
+    }
+
+    /**
+     * descartable: si el envío puede perderse cuando la partida ya tiene maxDragPendientes eventos
+     * de drag sin enviar; sólo aplica a /drag.
+     */
+    private void encolar(String topic, String destino, boolean descartable, Supplier<Runnable> envio) {
+        boolean drag = destino.endsWith(SUFIJO_DRAG);
+        boolean[] aceptada = {true};
+        // compute serializa el alta frente a la baja de la cola vacía (ver Cola.run) y la
+        // numeración frente a otros hilos que publiquen en la misma partida
+        Cola cola = colas.compute(clave(topic), (k, actual) -> {
+            Cola c = actual != null ? actual : new Cola(k);
+            if (drag && descartable && c.dragPendientes.get() >= maxDragPendientes) {
+                aceptada[0] = false;
+            } else {
+                c.agregar(new Tarea(envio.get(), drag, System.nanoTime()));
+            }
+            return c;
+        });
+        if (!aceptada[0]) {
+            metricsService.incrementar("eventos.cola.drag.descartados");
+            return;
+        }
+        pendientes.incrementAndGet();
+        metricsService.incrementar("eventos.cola.encolados");
+        cola.programar();
+    }
+
+    private record Tarea(Runnable envio, boolean drag, long encoladaNanos) { }
+
+    private final class Cola implements Runnable {
+        private final String clave;
+        private final Queue<Tarea> tareas = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger tamano = new AtomicInteger();
+        private final AtomicInteger dragPendientes = new AtomicInteger();
+        private final AtomicBoolean programada = new AtomicBoolean();
+
+        Cola(String clave) {
+            this.clave = clave;
+        }
+
+        void agregar(Tarea tarea) {
+            tareas.add(tarea);
+            tamano.incrementAndGet();
+            if (tarea.drag()) dragPendientes.incrementAndGet();
+        }
+
+        void programar() {
+            if (!programada.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // cerrando la aplicación: se envía en el hilo que publica
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            Tarea tarea;
+            while ((tarea = tareas.poll()) != null) {
+                tamano.decrementAndGet();
+                if (tarea.drag()) dragPendientes.decrementAndGet();
+                pendientes.decrementAndGet();
+                metricsService.registrarDuracion("eventos.cola.espera", System.nanoTime() - tarea.encoladaNanos());
+                try {
+                    tarea.envio().run();
+                } catch (RuntimeException e) {
+                    metricsService.incrementar("eventos.cola.errores");
+                    log.warn("Error enviando evento de {}: {}", clave, e.getMessage());
+                }
+            }
+            programada.set(false);
+            // alguien pudo encolar entre el último poll y set(false)
+            if (!tareas.isEmpty()) {
+                programar();
+                return;
+            }
+            colas.computeIfPresent(clave, (k, c) -> c == this && tareas.isEmpty() && !programada.get() ? null : c);
+        }
+    }
+}
@@ -6,33 +6,37 @@ import org.springframework.stereotype.Service;
 
 import com.juegocartas.juegocartas.model.Carta;
 import com.juegocartas.juegocartas.repository.CartaRepository;
+import com.juegocartas.juegocartas.service.CartaCatalog;
 import com.juegocartas.juegocartas.service.CartaService;
 
 @Service
 public class CartaServiceImpl implements CartaService {
 
     private final CartaRepository cartaRepository;
+    private final CartaCatalog cartaCatalog;
 
-    public CartaServiceImpl(CartaRepository cartaRepository) {
+    public CartaServiceImpl(CartaRepository cartaRepository, CartaCatalog cartaCatalog) {
         this.cartaRepository = cartaRepository;
+        this.cartaCatalog = cartaCatalog;
     }
 
     @Override
     public List<Carta> listarTodas(String tematica) {
         if (tematica == null || tematica.isEmpty()) {
-            return cartaRepository.findAll();
+            return cartaCatalog.todas();
         }
         // for now, filter in-memory; can add repository method later
-        return cartaRepository.findAll().stream().filter(c -> tematica.equals(c.getTematica())).toList();
+        return cartaCatalog.todas().stream().filter(c -> tematica.equals(c.getTematica())).toList();
     }
 
     @Override
     public Carta obtenerPorCodigo(String codigo) {
-        return cartaRepository.findFirstByCodigo(codigo).orElse(null);
+        return cartaCatalog.buscar(codigo).orElse(null);
     }
 
     @Override
     public void guardarTodas(List<Carta> cartas) {
         cartaRepository.saveAll(cartas);
+        cartaCatalog.recargar();
     }
 }
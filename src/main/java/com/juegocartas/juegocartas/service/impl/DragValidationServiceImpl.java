@@ -1,44 +1,34 @@
 package com.juegocartas.juegocartas.service.impl;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import com.juegocartas.juegocartas.dto.event.PlayerDragEvent;
-import com.juegocartas.juegocartas.model.Jugador;
-import com.juegocartas.juegocartas.model.Partida;
-import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.juegocartas.juegocartas.service.DragRateLimiter;
 import com.juegocartas.juegocartas.service.DragValidationService;
+import com.juegocartas.juegocartas.service.IndiceJugadoresPartida;
 
 /**
  * Implementación del servicio de validación de drag events.
  * 
  * Características:
- * - Validación de permisos (jugador pertenece a partida)
+ * - Validación de permisos (jugador pertenece a partida), desde IndiceJugadoresPartida: el
+ *   camino de /partida/{codigo}/drag no lee la partida en cada evento
  * - Validación de índice de carta (anti-cheat)
- * - Throttling: máximo 20 eventos por segundo por jugador
- * - Thread-safe usando ConcurrentHashMap
+ * - Throttling: token bucket por jugador (DragRateLimiter, 20 eventos/s con ráfagas de 5)
  */
 @Service
 public class DragValidationServiceImpl implements DragValidationService {
 
     private static final Logger log = LoggerFactory.getLogger(DragValidationServiceImpl.class);
     
-    // Máximo 20 eventos por segundo por jugador (50ms entre eventos)
-    private static final long MIN_INTERVAL_MS = 50;
-    
-    private final PartidaRepository partidaRepository;
-    
-    // Mapa para throttling: jugadorId -> último timestamp
-    private final Map<String, Long> lastEventTime = new ConcurrentHashMap<>();
+    private final IndiceJugadoresPartida indiceJugadoresPartida;
+    private final DragRateLimiter dragRateLimiter;
 
-    public DragValidationServiceImpl(PartidaRepository partidaRepository) {
-        this.partidaRepository = partidaRepository;
+    public DragValidationServiceImpl(IndiceJugadoresPartida indiceJugadoresPartida, DragRateLimiter dragRateLimiter) {
+        this.indiceJugadoresPartida = indiceJugadoresPartida;
+        this.dragRateLimiter = dragRateLimiter;
     }
 
     @Override
@@ -55,29 +45,15 @@ public class DragValidationServiceImpl implements DragValidationService {
             return false;
         }
 
-        // Buscar partida
-        Optional<Partida> optPartida = partidaRepository.findByCodigo(partidaCodigo);
-        if (optPartida.isEmpty()) {
-            log.debug("Partida not found for drag event: {}", partidaCodigo);
-            return false;
-        }
-
-        Partida partida = optPartida.get();
-
-        // Verificar que el jugador pertenece a la partida
-        Optional<Jugador> optJugador = partida.getJugadores().stream()
-                .filter(j -> j.getId().equals(jugadorId))
-                .findFirst();
-
-        if (optJugador.isEmpty()) {
+        // Pertenencia, conexión y cartas en mano desde el índice en memoria (sin leer la partida)
+        IndiceJugadoresPartida.Miembro miembro = indiceJugadoresPartida.buscar(partidaCodigo, jugadorId);
+        if (miembro == null) {
             log.warn("Jugador {} does not belong to partida {}", jugadorId, partidaCodigo);
             return false;
         }
 
-        Jugador jugador = optJugador.get();
-
         // Verificar que el jugador está conectado
-        if (!jugador.isConectado()) {
+        if (!miembro.conectado()) {
             log.debug("Jugador {} is not connected", jugadorId);
             return false;
         }
@@ -85,9 +61,9 @@ public class DragValidationServiceImpl implements DragValidationService {
         // Si el evento incluye cardIndex, validar que existe
         if (event.getCardIndex() != null) {
             int cardIndex = event.getCardIndex();
-            if (cardIndex < 0 || cardIndex >= jugador.getCartasEnMano().size()) {
+            if (cardIndex < 0 || cardIndex >= miembro.cartasEnMano()) {
                 log.warn("Invalid cardIndex {} for jugador {} (has {} cards)", 
-                        cardIndex, jugadorId, jugador.getCartasEnMano().size());
+                        cardIndex, jugadorId, miembro.cartasEnMano());
                 return false;
             }
         }
@@ -113,28 +89,6 @@ public class DragValidationServiceImpl implements DragValidationService {
         if (jugadorId == null) {
             return true;
         }
-
-        long currentTime = Instant.now().toEpochMilli();
-        Long lastTime = lastEventTime.get(jugadorId);
-
-        if (lastTime == null) {
-            return false; // Primer evento, permitir
-        }
-
-        long timeSinceLastEvent = currentTime - lastTime;
-        if (timeSinceLastEvent < MIN_INTERVAL_MS) {
-            log.debug("Throttling jugador {}: {}ms since last event (min: {}ms)", 
-                    jugadorId, timeSinceLastEvent, MIN_INTERVAL_MS);
-            return true;
-        }
-
-        return false;
-    }
-
-    @Override
-    public void recordEvent(String jugadorId) {
-        if (jugadorId != null) {
-            lastEventTime.put(jugadorId, Instant.now().toEpochMilli());
-        }
+        return !dragRateLimiter.intentar(jugadorId);
     }
 }
@@ -17,6 +17,7 @@ import com.juegocartas.juegocartas.model.Carta;
 import com.juegocartas.juegocartas.model.Carta.Planeta;
 import com.juegocartas.juegocartas.model.Carta.Transformacion;
 import com.juegocartas.juegocartas.repository.CartaRepository;
+import com.juegocartas.juegocartas.service.CartaCatalog;
 import com.juegocartas.juegocartas.service.DragonBallApiService;
 import com.juegocartas.juegocartas.util.KiNormalizer;
 
@@ -27,17 +28,27 @@ public class DragonBallApiServiceImpl implements DragonBallApiService {
 
     private final WebClient webClient;
     private final CartaRepository cartaRepository;
+    private final CartaCatalog cartaCatalog;
     private final String baseUrl;
 
     public DragonBallApiServiceImpl(CartaRepository cartaRepository,
+                                    CartaCatalog cartaCatalog,
                                     @Value("${dragonball.api.base-url}") String baseUrl) {
         this.cartaRepository = cartaRepository;
+        this.cartaCatalog = cartaCatalog;
         this.baseUrl = baseUrl;
         this.webClient = WebClient.builder().baseUrl(baseUrl).build();
     }
 
     @Override
     public List<Carta> sincronizarCartas() {
+        List<Carta> cartas = sincronizarDesdeApi();
+        // sustituir el catálogo en memoria una vez guardadas las cartas
+        cartaCatalog.recargar();
+        return cartas;
+    }
+
+    private List<Carta> sincronizarDesdeApi() {
         log.info("Sincronizando cartas desde Dragon Ball API: baseUrl={}", baseUrl);
         try {
             // Obtener TODOS los personajes de la API
@@ -406,7 +417,10 @@ public class DragonBallApiServiceImpl implements DragonBallApiService {
                 idx++;
             }
         }
-        cartaRepository.saveAll(cartas);
+        // codigo es único en cartas: sólo se añaden las cartas del stub que aún no existen
+        cartaRepository.saveAll(cartas.stream()
+                .filter(c -> cartaRepository.findFirstByCodigo(c.getCodigo()).isEmpty())
+                .toList());
         return cartas;
     }
 
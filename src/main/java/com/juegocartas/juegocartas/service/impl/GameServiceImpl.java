@@ -3,9 +3,9 @@ package com.juegocartas.juegocartas.service.impl;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,9 +16,10 @@ import com.juegocartas.juegocartas.model.CartaEnMesa;
 import com.juegocartas.juegocartas.model.Jugador;
 import com.juegocartas.juegocartas.model.Partida;
 import com.juegocartas.juegocartas.model.Ronda;
-import com.juegocartas.juegocartas.repository.CartaRepository;
-import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.juegocartas.juegocartas.service.ActiveGameRegistry;
+import com.juegocartas.juegocartas.service.CartaCatalog;
 import com.juegocartas.juegocartas.service.GameService;
+import com.juegocartas.juegocartas.service.HistorialRondas;
 import com.juegocartas.juegocartas.util.TransformacionMultiplicador;
 
 /**
@@ -26,57 +27,50 @@ import com.juegocartas.juegocartas.util.TransformacionMultiplicador;
  * 
  * Principios SOLID:
  * - Single Responsibility: Gestiona la lógica del juego
- * - Thread-Safety: Usa locks por código de partida para evitar condiciones de carrera
+ * - Concurrencia: cada operación se ejecuta con ActiveGameRegistry.ejecutar, que reintenta
+ *   con la partida recargada si otra instancia la modificó (control optimista por versión)
+ * - Persistencia: las partidas en curso se leen y escriben a través de ActiveGameRegistry
  */
 @Service
 public class GameServiceImpl implements GameService {
 
     private static final Logger log = LoggerFactory.getLogger(GameServiceImpl.class);
 
-    private final PartidaRepository partidaRepository;
-    private final CartaRepository cartaRepository;
+    private final ActiveGameRegistry activeGameRegistry;
+    private final CartaCatalog cartaCatalog;
     private final com.juegocartas.juegocartas.service.DeckService deckService;
     private final com.juegocartas.juegocartas.service.EventPublisher eventPublisher;
-    
-    // Locks por código de partida para sincronización de operaciones críticas
-    private final Map<String, Object> partidaLocks = new ConcurrentHashMap<>();
+    private final HistorialRondas historialRondas;
 
-    public GameServiceImpl(PartidaRepository partidaRepository, CartaRepository cartaRepository,
+    public GameServiceImpl(ActiveGameRegistry activeGameRegistry, CartaCatalog cartaCatalog,
                            com.juegocartas.juegocartas.service.DeckService deckService,
-                           com.juegocartas.juegocartas.service.EventPublisher eventPublisher) {
-        this.partidaRepository = partidaRepository;
-        this.cartaRepository = cartaRepository;
+                           com.juegocartas.juegocartas.service.EventPublisher eventPublisher,
+                           HistorialRondas historialRondas) {
+        this.activeGameRegistry = activeGameRegistry;
+        this.cartaCatalog = cartaCatalog;
         this.deckService = deckService;
         this.eventPublisher = eventPublisher;
-    }
-    
-    /**
-     * Obtiene el lock para una partida específica.
-     */
-    private Object getLockForPartida(String codigoPartida) {
-        return partidaLocks.computeIfAbsent(codigoPartida, k -> new Object());
-    }
-    
-    /**
-     * Libera el lock de una partida si ya no es necesario.
-     */
-    private void releaseLockIfFinished(String codigoPartida, Partida partida) {
-        if ("FINALIZADA".equals(partida.getEstado())) {
-            partidaLocks.remove(codigoPartida);
-        }
+        this.historialRondas = historialRondas;
     }
 
     @Override
     public Partida iniciarPartida(String codigo) {
-        Optional<Partida> opt = partidaRepository.findByCodigo(codigo);
+        return activeGameRegistry.ejecutar(codigo, () -> iniciarPartidaInterno(codigo));
+    }
+
+    private Partida iniciarPartidaInterno(String codigo) {
+        Optional<Partida> opt = activeGameRegistry.buscar(codigo);
         if (opt.isEmpty()) throw new IllegalArgumentException("Partida no encontrada: " + codigo);
         Partida p = opt.get();
+        if ("EN_CURSO".equals(p.getEstado())) {
+            // inicio concurrente (auto-inicio y último jugador en unirse): ya la inició otro hilo o instancia
+            log.debug("Partida {} ya iniciada", codigo);
+            return p;
+        }
         if (p.getJugadores().size() < 2) throw new IllegalStateException("Se requieren al menos 2 jugadores");
 
     // preparar baraja y repartir
-    List<Carta> todas = cartaRepository.findAll();
-    List<String> codigos = new ArrayList<>();
-    for (Carta c : todas) codigos.add(c.getCodigo());
+    List<String> codigos = new ArrayList<>(cartaCatalog.codigos());
     List<String> baraja = deckService.generarBaraja(codigos);
     deckService.repartir(p, baraja);
         p.setEstado("EN_CURSO");
@@ -85,7 +79,7 @@ public class GameServiceImpl implements GameService {
         // determinar primer turno
     String primer = deckService.determinarPrimerTurno(p);
         p.setTurnoActual(primer);
-        partidaRepository.save(p);
+        activeGameRegistry.guardarInmediato(p);
 
     // emitir evento PARTIDA_INICIADA
     Jugador jugadorPrimerTurno = p.getJugadores().stream()
@@ -108,15 +102,13 @@ public class GameServiceImpl implements GameService {
 
     @Override
     public void seleccionarAtributo(String codigoPartida, String jugadorId, String atributo) {
-        // Sincronizar para evitar selecciones concurrentes
-        Object lock = getLockForPartida(codigoPartida);
-        synchronized (lock) {
-            Optional<Partida> opt = partidaRepository.findByCodigo(codigoPartida);
+        activeGameRegistry.ejecutarVoid(codigoPartida, () -> {
+            Optional<Partida> opt = activeGameRegistry.buscar(codigoPartida);
             if (opt.isEmpty()) throw new IllegalArgumentException("Partida no encontrada");
             Partida p = opt.get();
             if (!p.getTurnoActual().equals(jugadorId)) throw new IllegalStateException("No es el turno del jugador");
             p.setAtributoSeleccionado(atributo);
-            partidaRepository.save(p);
+            activeGameRegistry.guardar(p, m -> m.actualizarAtributo(p));
 
             Jugador jugador = p.getJugadores().stream()
                     .filter(j -> j.getId().equals(jugadorId))
@@ -129,32 +121,24 @@ public class GameServiceImpl implements GameService {
                     atributo
                 );
             eventPublisher.publish("/topic/partida/" + p.getCodigo(), evento);
-        }
+        });
     }
 
     @Override
     public void jugarCarta(String codigoPartida, String jugadorId) {
-        // Sincronizar por código de partida para evitar condiciones de carrera
-        Object lock = getLockForPartida(codigoPartida);
-        synchronized (lock) {
-            jugarCartaInterno(codigoPartida, jugadorId, null);
-        }
+        activeGameRegistry.ejecutarVoid(codigoPartida, () -> jugarCartaInterno(codigoPartida, jugadorId, null));
     }
 
     @Override
     public void jugarCarta(String codigoPartida, String jugadorId, Integer cardIndex) {
-        // Sincronizar por código de partida para evitar condiciones de carrera
-        Object lock = getLockForPartida(codigoPartida);
-        synchronized (lock) {
-            jugarCartaInterno(codigoPartida, jugadorId, cardIndex);
-        }
+        activeGameRegistry.ejecutarVoid(codigoPartida, () -> jugarCartaInterno(codigoPartida, jugadorId, cardIndex));
     }
     
     /**
-     * Método interno para jugar carta (ya sincronizado).
+     * Método interno para jugar carta (se ejecuta dentro de ActiveGameRegistry.ejecutar).
      */
     private void jugarCartaInterno(String codigoPartida, String jugadorId, Integer cardIndex) {
-        Optional<Partida> opt = partidaRepository.findByCodigo(codigoPartida);
+        Optional<Partida> opt = activeGameRegistry.buscar(codigoPartida);
         if (opt.isEmpty()) throw new IllegalArgumentException("Partida no encontrada");
         Partida p = opt.get();
 
@@ -177,22 +161,22 @@ public class GameServiceImpl implements GameService {
 
         // obtener valor del atributo con multiplicador de transformación si está activa
         int valor = 0;
-        Carta carta = cartaRepository.findFirstByCodigo(cartaCodigo).orElse(null);
+        Carta carta = cartaCatalog.buscar(cartaCodigo).orElse(null);
         if (carta != null && carta.getAtributos() != null && p.getAtributoSeleccionado() != null) {
-            Integer v = carta.getAtributos().get(p.getAtributoSeleccionado());
-            int valorBase = v != null ? v : 0;
+            int valorBase = cartaCatalog.valorAtributo(carta, p.getAtributoSeleccionado());
             
             // Aplicar multiplicador de transformación si está activa
             if (jugador.getIndiceTransformacion() >= 0) {
-                double multiplicador = TransformacionMultiplicador.calcularMultiplicador(carta, jugador.getIndiceTransformacion());
+                double multiplicador = cartaCatalog.multiplicador(carta, jugador.getIndiceTransformacion());
                 valor = TransformacionMultiplicador.aplicarMultiplicador(valorBase, multiplicador);
             } else {
                 valor = valorBase;
             }
         }
 
-        p.getCartasEnMesa().add(new CartaEnMesa(jugadorId, cartaCodigo, valor));
-        partidaRepository.save(p);
+        CartaEnMesa cartaEnMesa = new CartaEnMesa(jugadorId, cartaCodigo, valor);
+        p.getCartasEnMesa().add(cartaEnMesa);
+        activeGameRegistry.guardar(p, m -> m.registrarCartaJugada(p, jugador, cartaEnMesa));
 
         // Publicar evento CARTA_JUGADA para que frontend muestre la carta en tiempo real
         com.juegocartas.juegocartas.dto.event.CartaJugadaEvent eventoCarta = 
@@ -236,8 +220,12 @@ public class GameServiceImpl implements GameService {
                     log.warn("No se pudo publicar CardCountEvent tras jugar carta: {}", ex.getMessage());
                 }
 
-        // si todos los jugadores con cartas jugaron, resolver ronda
-        long jugadoresActivos = p.getJugadores().stream().filter(j -> j.getNumeroCartas() > 0).count();
+        // si todos los jugadores con cartas jugaron, resolver ronda; quien acaba de jugar su
+        // última carta sigue contando hasta que se resuelva (si no, la ronda no se cerraba nunca)
+        Set<String> jugaronEnRonda = p.getCartasEnMesa().stream().map(CartaEnMesa::getJugadorId).collect(Collectors.toSet());
+        long jugadoresActivos = p.getJugadores().stream()
+                .filter(j -> j.getNumeroCartas() > 0 || jugaronEnRonda.contains(j.getId()))
+                .count();
         if (p.getCartasEnMesa().size() == jugadoresActivos) {
             resolverRonda(p);
         }
@@ -245,7 +233,12 @@ public class GameServiceImpl implements GameService {
 
     @Override
     public void activarTransformacion(String codigoPartida, String jugadorId, int indiceTransformacion) {
-        Optional<Partida> opt = partidaRepository.findByCodigo(codigoPartida);
+        activeGameRegistry.ejecutarVoid(codigoPartida,
+                () -> activarTransformacionInterno(codigoPartida, jugadorId, indiceTransformacion));
+    }
+
+    private void activarTransformacionInterno(String codigoPartida, String jugadorId, int indiceTransformacion) {
+        Optional<Partida> opt = activeGameRegistry.buscar(codigoPartida);
         if (opt.isEmpty()) throw new IllegalArgumentException("Partida no encontrada");
         Partida p = opt.get();
         
@@ -261,7 +254,7 @@ public class GameServiceImpl implements GameService {
         }
         
         // Obtener la carta del jugador
-        Carta carta = cartaRepository.findFirstByCodigo(jugador.getCartaActual())
+        Carta carta = cartaCatalog.buscar(jugador.getCartaActual())
                 .orElseThrow(() -> new IllegalArgumentException("Carta no encontrada"));
         
         // Verificar que la carta tiene transformaciones
@@ -278,10 +271,10 @@ public class GameServiceImpl implements GameService {
         jugador.setIndiceTransformacion(indiceTransformacion);
         jugador.setTransformacionActiva(carta.getTransformaciones().get(indiceTransformacion).getNombre());
         
-        partidaRepository.save(p);
+        activeGameRegistry.guardar(p, m -> m.actualizarJugador(p, jugador));
         
         // Emitir evento de transformación activada
-        double multiplicador = TransformacionMultiplicador.calcularMultiplicador(carta, indiceTransformacion);
+        double multiplicador = cartaCatalog.multiplicador(carta, indiceTransformacion);
         com.juegocartas.juegocartas.dto.event.TransformacionEvent evento = 
             new com.juegocartas.juegocartas.dto.event.TransformacionEvent(
                 jugadorId,
@@ -296,7 +289,11 @@ public class GameServiceImpl implements GameService {
 
     @Override
     public void desactivarTransformacion(String codigoPartida, String jugadorId) {
-        Optional<Partida> opt = partidaRepository.findByCodigo(codigoPartida);
+        activeGameRegistry.ejecutarVoid(codigoPartida, () -> desactivarTransformacionInterno(codigoPartida, jugadorId));
+    }
+
+    private void desactivarTransformacionInterno(String codigoPartida, String jugadorId) {
+        Optional<Partida> opt = activeGameRegistry.buscar(codigoPartida);
         if (opt.isEmpty()) throw new IllegalArgumentException("Partida no encontrada");
         Partida p = opt.get();
         
@@ -311,7 +308,7 @@ public class GameServiceImpl implements GameService {
         jugador.setIndiceTransformacion(-1);
         jugador.setTransformacionActiva(null);
         
-        partidaRepository.save(p);
+        activeGameRegistry.guardar(p, m -> m.actualizarJugador(p, jugador));
         
         // Emitir evento de transformación desactivada
         com.juegocartas.juegocartas.dto.event.TransformacionEvent evento = 
@@ -372,8 +369,8 @@ public class GameServiceImpl implements GameService {
         }
 
         // registrar ronda
-        Ronda ronda = new Ronda(p.getHistorialRondas().size() + 1, empate ? null : ganador.getJugadorId(), p.getAtributoSeleccionado(), cartasGanadas);
-        p.getHistorialRondas().add(ronda);
+        p.setRondasJugadas(p.getRondasJugadas() + 1);
+        Ronda ronda = new Ronda(p.getRondasJugadas(), empate ? null : ganador.getJugadorId(), p.getAtributoSeleccionado(), cartasGanadas);
 
         // limpiar mesa y resetear atributo seleccionado
         p.getCartasEnMesa().clear();
@@ -382,7 +379,10 @@ public class GameServiceImpl implements GameService {
         // verificar fin de juego
         verificarFinDeJuego(p);
 
-    partidaRepository.save(p);
+    // fin de ronda: escritura forzada (también retira la partida del registro si finalizó);
+    // la ronda va al historial (asíncrono) sólo una vez guardada la partida
+    activeGameRegistry.guardarInmediato(p, m -> m.guardarCambios(p));
+    historialRondas.registrar(p, ronda);
 
     // emitir RONDA_RESUELTA con información completa
     List<com.juegocartas.juegocartas.dto.event.RondaResueltaEvent.ResultadoJugador> resultados = 
@@ -536,7 +536,7 @@ public class GameServiceImpl implements GameService {
             );
         }
         
-        partidaRepository.save(p);
+        activeGameRegistry.guardarInmediato(p, m -> m.guardarCambios(p));
         eventPublisher.publish("/topic/partida/" + p.getCodigo(), evento);
     }
 
@@ -0,0 +1,73 @@
+package com.juegocartas.juegocartas.service.impl;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.juegocartas.juegocartas.service.SessionRegistry;
+
+/**
+ * Registro de sesiones en memoria del proceso. Sólo ve las sesiones de este nodo.
+ *
+ * Lleva además cuántas sesiones tiene cada jugador, para que {@link #tieneSesiones(String)} no
+ * recorra todas las sesiones: una desconexión masiva la consulta una vez por jugador.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sesiones.registro", havingValue = "MEMORIA", matchIfMissing = true)
+public class InMemorySessionRegistry implements SessionRegistry {
+
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final Map<String, Integer> sesionesPorJugador = new ConcurrentHashMap<>();
+
+    public InMemorySessionRegistry(MetricsService metricsService) {
+        metricsService.registrarGauge("sesiones.registradas", sesiones::size);
+    }
+
+    @Override
+    public void registrarJugador(String sessionId, String jugadorId) {
+        // el conteo se actualiza dentro del compute: otra operación sobre la misma sesión espera
+        sesiones.compute(sessionId, (id, s) -> {
+            String anterior = s != null ? s.jugadorId() : null;
+            if (!Objects.equals(anterior, jugadorId)) {
+                descontar(anterior);
+                if (jugadorId != null) sesionesPorJugador.merge(jugadorId, 1, Integer::sum);
+            }
+            return new Sesion(id, jugadorId, s != null ? s.partidaCodigo() : null);
+        });
+    }
+
+    @Override
+    public void registrarPartida(String sessionId, String partidaCodigo) {
+        sesiones.compute(sessionId, (id, s) -> new Sesion(id, s != null ? s.jugadorId() : null, partidaCodigo));
+    }
+
+    @Override
+    public Optional<Sesion> buscar(String sessionId) {
+        return Optional.ofNullable(sesiones.get(sessionId));
+    }
+
+    @Override
+    public Optional<Sesion> eliminar(String sessionId) {
+        Sesion[] eliminada = new Sesion[1];
+        sesiones.computeIfPresent(sessionId, (id, s) -> {
+            descontar(s.jugadorId());
+            eliminada[0] = s;
+            return null;
+        });
+        return Optional.ofNullable(eliminada[0]);
+    }
+
+    @Override
+    public boolean tieneSesiones(String jugadorId) {
+        return jugadorId != null && sesionesPorJugador.containsKey(jugadorId);
+    }
+
+    private void descontar(String jugadorId) {
+        if (jugadorId != null) sesionesPorJugador.computeIfPresent(jugadorId, (k, n) -> n > 1 ? n - 1 : null);
+    }
+}
@@ -0,0 +1,116 @@
+package com.juegocartas.juegocartas.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.service.DesconexionJugadorService;
+import com.juegocartas.juegocartas.service.DisconnectGraceService;
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.juegocartas.juegocartas.util.RuedaTemporizadores;
+import com.juegocartas.juegocartas.util.RuedaTemporizadores.Temporizador;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Grace period con temporizadores locales: sólo lo cancela una reconexión en este mismo nodo.
+ *
+ * Los temporizadores van en una {@link RuedaTemporizadores} (tick de app.disconnect.rueda.tickMs):
+ * programar y cancelar son O(1) aunque se caigan miles de sockets a la vez (p. ej. al reiniciar
+ * el balanceador). Las desconexiones vencidas se ejecutan en app.disconnect.workers hilos, fuera
+ * del hilo de la rueda, porque toman el lock de la partida y escriben en MongoDB.
+ *
+ * Métricas: desconexiones.grace.pendientes (temporizadores programados) y
+ * desconexiones.grace.retraso (desde el vencimiento hasta que un worker lo ejecuta).
+ */
+@Service
+@ConditionalOnProperty(name = "app.sesiones.registro", havingValue = "MEMORIA", matchIfMissing = true)
+public class LocalDisconnectGraceService implements DisconnectGraceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalDisconnectGraceService.class);
+
+    private record Pendiente(String jugadorId, String partidaCodigo) {
+    }
+
+    private final DesconexionJugadorService desconexionJugadorService;
+    private final MetricsService metricsService;
+    private final RuedaTemporizadores<Pendiente> rueda;
+    private final ExecutorService workers;
+    private final Map<String, Temporizador<Pendiente>> pending = new ConcurrentHashMap<>();
+
+    public LocalDisconnectGraceService(DesconexionJugadorService desconexionJugadorService,
+                                       MetricsService metricsService,
+                                       @Value("${app.disconnect.rueda.tickMs:100}") long tickMs,
+                                       @Value("${app.disconnect.rueda.ranuras:512}") int ranuras,
+                                       @Value("${app.disconnect.workers:2}") int workers) {
+        this.desconexionJugadorService = desconexionJugadorService;
+        this.metricsService = metricsService;
+        this.workers = Executors.newFixedThreadPool(workers,
+                Thread.ofPlatform().name("grace-", 0).daemon().factory());
+        this.rueda = new RuedaTemporizadores<>("grace-rueda", tickMs, ranuras, this::vencidos);
+        metricsService.registrarGauge("desconexiones.grace.pendientes", rueda::pendientes);
+    }
+
+    @Override
+    public void scheduleDisconnect(String jugadorId, String partidaCodigo, long delaySeconds) {
+        Temporizador<Pendiente> anterior = pending.put(jugadorId,
+                rueda.programar(delaySeconds * 1000, new Pendiente(jugadorId, partidaCodigo)));
+        if (anterior != null) anterior.cancelar();
+    }
+
+    @Override
+    public void cancel(String jugadorId) {
+        Temporizador<Pendiente> t = pending.remove(jugadorId);
+        if (t != null && t.cancelar()) {
+            logger.debug("Cancelada tarea pendiente para {}", jugadorId);
+        }
+    }
+
+    /**
+     * Se invoca en el hilo de la rueda con los temporizadores vencidos en un tick. Los de una
+     * misma partida se ejecutan juntos: una escritura y una publicación por partida.
+     */
+    private void vencidos(List<Temporizador<Pendiente>> vencidos) {
+        Map<String, List<Temporizador<Pendiente>>> porPartida = new HashMap<>();
+        for (Temporizador<Pendiente> t : vencidos) {
+            Pendiente p = t.dato();
+            pending.remove(p.jugadorId(), t);
+            porPartida.computeIfAbsent(p.partidaCodigo(), k -> new ArrayList<>()).add(t);
+        }
+        porPartida.forEach((codigo, temporizadores) -> workers.execute(() -> ejecutar(codigo, temporizadores)));
+    }
+
+    private void ejecutar(String partidaCodigo, List<Temporizador<Pendiente>> temporizadores) {
+        long ahora = System.nanoTime();
+        List<String> jugadorIds = new ArrayList<>(temporizadores.size());
+        for (Temporizador<Pendiente> t : temporizadores) {
+            metricsService.registrarDuracion("desconexiones.grace.retraso", ahora - t.venceNanos());
+            jugadorIds.add(t.dato().jugadorId());
+        }
+        try {
+            desconexionJugadorService.marcarDesconectados(partidaCodigo, jugadorIds);
+        } catch (Exception e) {
+            logger.error("Error ejecutando tarea de desconexión para {} en {}: {}", jugadorIds, partidaCodigo,
+                    e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Detiene la rueda y los workers (al cerrar el contexto).
+     */
+    @PreDestroy
+    public void shutdown() {
+        rueda.close();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+package com.juegocartas.juegocartas.service.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.juegocartas.juegocartas.service.DesconexionJugadorService;
+import com.juegocartas.juegocartas.service.DisconnectGraceService;
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+
+/**
+ * Grace period compartido por todas las réplicas (colección desconexiones_pendientes, un
+ * documento por jugador con la partida y el instante de vencimiento; su índice por venceEn se
+ * declara en IndicesMongo).
+ *
+ * Programar y cancelar son escrituras por _id, así que una reconexión en cualquier nodo cancela
+ * la desconexión programada en otro. Cada nodo revisa los vencimientos cada
+ * app.disconnect.sondeoMs y reclama cada uno con un findOneAndUpdate atómico: sólo el nodo que
+ * lo reclama lo ejecuta, y lo borra si se aplicó. Si falla, suelta el reclamo y la siguiente
+ * revisión de cualquier nodo lo reintenta; si ese nodo cae antes de borrarlo o soltarlo, el
+ * reclamo caduca a los app.disconnect.reclamoMs y otro nodo lo ejecuta (marcar desconectado es
+ * idempotente).
+ */
+@Service
+@ConditionalOnProperty(name = "app.sesiones.registro", havingValue = "MONGO")
+public class MongoDisconnectGraceService implements DisconnectGraceService {
+
+    static final String COLECCION = "desconexiones_pendientes";
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoDisconnectGraceService.class);
+
+    private final MongoCollection<Document> coleccion;
+    private final DesconexionJugadorService desconexionJugadorService;
+    private final MetricsService metricsService;
+    private final long reclamoMs;
+
+    public MongoDisconnectGraceService(MongoTemplate mongoTemplate,
+                                       DesconexionJugadorService desconexionJugadorService,
+                                       MetricsService metricsService,
+                                       @Value("${app.disconnect.reclamoMs:30000}") long reclamoMs) {
+        this.coleccion = mongoTemplate.getCollection(COLECCION);
+        this.desconexionJugadorService = desconexionJugadorService;
+        this.metricsService = metricsService;
+        this.reclamoMs = reclamoMs;
+    }
+
+    @Override
+    public void scheduleDisconnect(String jugadorId, String partidaCodigo, long delaySeconds) {
+        // reemplazar el documento también descarta un reclamo en curso de la desconexión anterior
+        Document pendiente = new Document("_id", jugadorId)
+                .append("partidaCodigo", partidaCodigo)
+                .append("venceEn", new Date(System.currentTimeMillis() + delaySeconds * 1000));
+        coleccion.replaceOne(Filters.eq("_id", jugadorId), pendiente, new ReplaceOptions().upsert(true));
+    }
+
+    @Override
+    public void cancel(String jugadorId) {
+        if (coleccion.deleteOne(Filters.eq("_id", jugadorId)).getDeletedCount() > 0) {
+            logger.debug("Cancelada tarea pendiente para {}", jugadorId);
+        }
+    }
+
+    /**
+     * Ejecuta las desconexiones vencidas que este nodo consiga reclamar, agrupadas por partida.
+     */
+    @Scheduled(fixedDelayString = "${app.disconnect.sondeoMs:500}")
+    public void procesarVencidas() {
+        try {
+            Map<String, List<Document>> porPartida = new HashMap<>();
+            Document pendiente;
+            while ((pendiente = reclamarVencida()) != null) {
+                porPartida.computeIfAbsent(pendiente.getString("partidaCodigo"), k -> new ArrayList<>()).add(pendiente);
+            }
+            porPartida.forEach(this::ejecutar);
+        } catch (Exception e) {
+            metricsService.incrementar("desconexiones.grace.errores");
+            logger.warn("Error revisando desconexiones pendientes: {}", e.getMessage());
+        }
+    }
+
+    private Document reclamarVencida() {
+        Date ahora = new Date();
+        return coleccion.findOneAndUpdate(
+                Filters.and(Filters.lte("venceEn", ahora),
+                        Filters.or(Filters.exists("reclamoHasta", false), Filters.lte("reclamoHasta", ahora))),
+                Updates.combine(Updates.set("reclamo", UUID.randomUUID().toString()),
+                        Updates.set("reclamoHasta", new Date(ahora.getTime() + reclamoMs))),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+    }
+
+    private void ejecutar(String partidaCodigo, List<Document> pendientes) {
+        List<String> jugadorIds = pendientes.stream().map(p -> p.getString("_id")).toList();
+        try {
+            desconexionJugadorService.marcarDesconectados(partidaCodigo, jugadorIds);
+            metricsService.incrementar("desconexiones.grace.vencidas", jugadorIds.size());
+        } catch (Exception e) {
+            metricsService.incrementar("desconexiones.grace.errores");
+            logger.error("Error ejecutando tarea de desconexión para {} en {}: {}", jugadorIds, partidaCodigo,
+                    e.getMessage(), e);
+            // se suelta el reclamo y se conserva el vencimiento: la siguiente revisión de
+            // cualquier nodo lo vuelve a intentar
+            for (Document p : pendientes) {
+                coleccion.updateOne(delReclamo(p), Updates.combine(Updates.unset("reclamo"), Updates.unset("reclamoHasta")));
+            }
+            return;
+        }
+        for (Document p : pendientes) {
+            coleccion.deleteOne(delReclamo(p));
+        }
+    }
+
+    /**
+     * El pendiente mientras siga con este reclamo: si se reprogramó o canceló mientras tanto, el
+     * documento ya no lo lleva y no se toca.
+     */
+    private static Bson delReclamo(Document pendiente) {
+        return Filters.and(Filters.eq("_id", pendiente.getString("_id")),
+                Filters.eq("reclamo", pendiente.getString("reclamo")));
+    }
+}
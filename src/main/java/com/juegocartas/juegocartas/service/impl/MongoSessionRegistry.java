@@ -0,0 +1,127 @@
+package com.juegocartas.juegocartas.service.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.juegocartas.juegocartas.service.MetricsService;
+import com.juegocartas.juegocartas.service.SessionRegistry;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+/**
+ * Registro de sesiones compartido por todas las réplicas (colección sesiones_ws).
+ *
+ * Las sesiones de este nodo se guardan también en memoria: las consultas por sessionId (cada
+ * mensaje de drag) no salen del proceso. MongoDB sólo se usa al registrar o cerrar una sesión y
+ * para {@link #tieneSesiones(String)}, que ve las sesiones de todos los nodos.
+ *
+ * Cada nodo renueva el campo "renovada" de sus sesiones cada app.sesiones.renovacionMs; un
+ * índice TTL borra las de un nodo caído tras app.sesiones.ttlSeconds, y mientras tanto
+ * tieneSesiones ya no las cuenta. Los índices de la colección se declaran en IndicesMongo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sesiones.registro", havingValue = "MONGO")
+public class MongoSessionRegistry implements SessionRegistry {
+
+    static final String COLECCION = "sesiones_ws";
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoSessionRegistry.class);
+
+    private final MongoCollection<Document> coleccion;
+    private final MetricsService metricsService;
+    private final long ttlMillis;
+
+    private final Map<String, Sesion> locales = new ConcurrentHashMap<>();
+
+    public MongoSessionRegistry(MongoTemplate mongoTemplate,
+                                MetricsService metricsService,
+                                @Value("${app.sesiones.ttlSeconds:90}") long ttlSeconds) {
+        this.coleccion = mongoTemplate.getCollection(COLECCION);
+        this.metricsService = metricsService;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        metricsService.registrarGauge("sesiones.registradas", locales::size);
+    }
+
+    @Override
+    public void registrarJugador(String sessionId, String jugadorId) {
+        Sesion anterior = locales.get(sessionId);
+        Sesion nueva = locales.compute(sessionId,
+                (id, s) -> new Sesion(id, jugadorId, s != null ? s.partidaCodigo() : null));
+        if (anterior == null || !Objects.equals(anterior.jugadorId(), jugadorId)) {
+            escribir(sessionId, "jugadorId", nueva.jugadorId());
+        }
+    }
+
+    @Override
+    public void registrarPartida(String sessionId, String partidaCodigo) {
+        Sesion anterior = locales.get(sessionId);
+        Sesion nueva = locales.compute(sessionId,
+                (id, s) -> new Sesion(id, s != null ? s.jugadorId() : null, partidaCodigo));
+        // cada partida se suscribe a varios topics: sólo se escribe cuando cambia
+        if (anterior == null || !Objects.equals(anterior.partidaCodigo(), partidaCodigo)) {
+            escribir(sessionId, "partidaCodigo", nueva.partidaCodigo());
+        }
+    }
+
+    @Override
+    public Optional<Sesion> buscar(String sessionId) {
+        return Optional.ofNullable(locales.get(sessionId));
+    }
+
+    @Override
+    public Optional<Sesion> eliminar(String sessionId) {
+        Sesion sesion = locales.remove(sessionId);
+        if (sesion != null) {
+            coleccion.deleteOne(Filters.eq("_id", sessionId));
+        }
+        return Optional.ofNullable(sesion);
+    }
+
+    @Override
+    public boolean tieneSesiones(String jugadorId) {
+        if (jugadorId == null) return false;
+        if (locales.values().stream().anyMatch(s -> jugadorId.equals(s.jugadorId()))) return true;
+        // el monitor TTL de MongoDB pasa cada minuto: se filtran también las ya vencidas
+        Date vigenteDesde = new Date(System.currentTimeMillis() - ttlMillis);
+        return coleccion.find(Filters.and(Filters.eq("jugadorId", jugadorId), Filters.gte("renovada", vigenteDesde)))
+                .limit(1).first() != null;
+    }
+
+    /**
+     * Renueva las sesiones de este nodo para que el índice TTL no las borre.
+     */
+    @Scheduled(fixedDelayString = "${app.sesiones.renovacionMs:30000}")
+    public void renovar() {
+        if (locales.isEmpty()) return;
+        try {
+            List<String> ids = new ArrayList<>(locales.keySet());
+            coleccion.updateMany(Filters.in("_id", ids), Updates.set("renovada", new Date()));
+        } catch (Exception e) {
+            metricsService.incrementar("sesiones.renovacion.errores");
+            logger.warn("No se pudieron renovar las sesiones WebSocket: {}", e.getMessage());
+        }
+    }
+
+    private void escribir(String sessionId, String campo, String valor) {
+        coleccion.updateOne(Filters.eq("_id", sessionId),
+                Updates.combine(Updates.set(campo, valor), Updates.set("renovada", new Date())),
+                new UpdateOptions().upsert(true));
+    }
+}
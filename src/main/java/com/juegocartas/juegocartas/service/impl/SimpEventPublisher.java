@@ -1,28 +1,93 @@
 package com.juegocartas.juegocartas.service.impl;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
 
+import com.juegocartas.juegocartas.dto.event.EventBatch;
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+import com.juegocartas.juegocartas.service.EventBatcher;
 import com.juegocartas.juegocartas.service.EventPublisher;
+import com.juegocartas.juegocartas.service.EventSerializer;
 
 @Component
 public class SimpEventPublisher implements EventPublisher {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final EventBatcher eventBatcher;
+    private final EventSerializer eventSerializer;
+    private final MessageChannel clientOutboundChannel;
 
-    public SimpEventPublisher(SimpMessagingTemplate messagingTemplate) {
+    public SimpEventPublisher(SimpMessagingTemplate messagingTemplate, EventBatcher eventBatcher,
+                              EventSerializer eventSerializer,
+                              @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel) {
         this.messagingTemplate = messagingTemplate;
+        this.eventBatcher = eventBatcher;
+        this.eventSerializer = eventSerializer;
+        this.clientOutboundChannel = clientOutboundChannel;
     }
 
     @Override
     public void publish(String topic, Object payload) {
-        messagingTemplate.convertAndSend(topic, payload);
+        if (!eventBatcher.agrupa(topic)) {
+            if (!eventBatcher.diferir(() -> enviar(topic, payload))) enviar(topic, payload);
+            return;
+        }
+        if (eventBatcher.agregar(topic, payload, this::publicarLote)) return;
+        // fuera de una operación: lote de un solo evento
+        publicarLote(topic, List.of(payload));
+    }
+
+    /**
+     * Envía un lote ya cerrado a {topic}/lote (y, en modo AMBOS, también cada evento).
+     */
+    public void publicarLote(String topic, List<Object> eventos) {
+        List<Object> contenido = eventos;
+        if (eventBatcher.getModo() == EventBatcher.Modo.AMBOS) {
+            // cada evento se serializa una vez y el lote reutiliza ese JSON
+            contenido = eventos.stream().<Object>map(eventSerializer::serializar).toList();
+            for (Object evento : contenido) {
+                enviar(topic, evento);
+            }
+        }
+        enviar(topic + EventBatcher.SUFIJO_LOTE, new EventBatch(contenido));
+    }
+
+    /**
+     * Envía el mensaje ya serializado: el broker lo reparte a todos los suscriptores sin
+     * volver a convertirlo.
+     */
+    private void enviar(String destino, Object payload) {
+        EventoSerializado serializado = eventSerializer.serializar(payload);
+        messagingTemplate.send(destino, serializado.mensaje());
     }
 
     @Override
     public void publishToUser(String user, String destination, Object payload) {
-        // convertAndSendToUser usa el 'user' para enviar a /user/{user}{destination}
+        // como convertAndSendToUser: /user/{user}{destination}, que el broker resuelve a las sesiones
+        // autenticadas como 'user' (id del usuario, ver WebSocketAuthInterceptor).
         // El cliente debe suscribirse a la cola correspondiente, p. ej. /user/queue/partida/{codigo}/errors
-        messagingTemplate.convertAndSendToUser(user, destination, payload);
+        String destino = messagingTemplate.getUserDestinationPrefix() + user.replace("/", "%2F") + destination;
+        if (!eventBatcher.diferir(() -> enviar(destino, payload))) enviar(destino, payload);
+    }
+
+    @Override
+    public void publishToSession(String sessionId, String subscriptionId, String destination, Object payload) {
+        // mismo mensaje que arma el broker para cada suscriptor, pero para una sola suscripción
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        byte[] json = eventSerializer.serializar(payload).mensaje().getPayload();
+        clientOutboundChannel.send(MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
     }
 }
@@ -8,11 +8,10 @@ import com.juegocartas.juegocartas.dto.response.TransformacionResponse;
 import com.juegocartas.juegocartas.model.Carta;
 import com.juegocartas.juegocartas.model.Jugador;
 import com.juegocartas.juegocartas.model.Partida;
-import com.juegocartas.juegocartas.repository.CartaRepository;
-import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.juegocartas.juegocartas.service.ActiveGameRegistry;
+import com.juegocartas.juegocartas.service.CartaCatalog;
 import com.juegocartas.juegocartas.service.EventPublisher;
 import com.juegocartas.juegocartas.service.TransformacionService;
-import com.juegocartas.juegocartas.util.TransformacionMultiplicador;
 
 /**
  * Implementación del servicio de transformaciones.
@@ -26,100 +25,101 @@ import com.juegocartas.juegocartas.util.TransformacionMultiplicador;
 @Service
 public class TransformacionServiceImpl implements TransformacionService {
 
-    private final PartidaRepository partidaRepository;
-    private final CartaRepository cartaRepository;
+    private final ActiveGameRegistry activeGameRegistry;
+    private final CartaCatalog cartaCatalog;
     private final EventPublisher eventPublisher;
 
     /**
      * Constructor con inyección de dependencias.
      * 
-     * @param partidaRepository Repositorio de partidas
-     * @param cartaRepository Repositorio de cartas
+     * @param activeGameRegistry Registro de partidas (en memoria para las partidas en curso)
+     * @param cartaCatalog Catálogo de cartas en memoria
      * @param eventPublisher Publicador de eventos WebSocket
      */
-    public TransformacionServiceImpl(PartidaRepository partidaRepository,
-                                    CartaRepository cartaRepository,
+    public TransformacionServiceImpl(ActiveGameRegistry activeGameRegistry,
+                                    CartaCatalog cartaCatalog,
                                     EventPublisher eventPublisher) {
-        this.partidaRepository = partidaRepository;
-        this.cartaRepository = cartaRepository;
+        this.activeGameRegistry = activeGameRegistry;
+        this.cartaCatalog = cartaCatalog;
         this.eventPublisher = eventPublisher;
     }
 
     @Override
     public TransformacionResponse activarTransformacion(String codigoPartida, String jugadorId, int indiceTransformacion) {
-        // Validar y obtener partida
-        Partida partida = obtenerPartida(codigoPartida);
-        
-        // Validar y obtener jugador
-        Jugador jugador = obtenerJugador(partida, jugadorId);
-        
-        // Validar que el jugador tiene una carta actual
-        validarCartaActual(jugador);
-        
-        // Obtener la carta del jugador
-        Carta carta = obtenerCarta(jugador.getCartaActual());
-        
-        // Validar que la carta tiene transformaciones
-        validarTransformacionesDisponibles(carta);
-        
-        // Validar índice de transformación
-        validarIndiceTransformacion(carta, indiceTransformacion);
-        
-        // Calcular multiplicador
-        double multiplicador = TransformacionMultiplicador.calcularMultiplicador(carta, indiceTransformacion);
-        
-        // Activar transformación
-        String nombreTransformacion = carta.getTransformaciones().get(indiceTransformacion).getNombre();
-        jugador.setIndiceTransformacion(indiceTransformacion);
-        jugador.setTransformacionActiva(nombreTransformacion);
-        
-        // Guardar cambios
-        partidaRepository.save(partida);
-        
-        // Crear respuesta
-        TransformacionResponse response = new TransformacionResponse(
-            jugadorId,
-            jugador.getNombre(),
-            nombreTransformacion,
-            indiceTransformacion,
-            multiplicador
-        );
+        // Lectura, validación y escritura dentro de ejecutar: ante un conflicto de versión se repiten
+        TransformacionResponse response = activeGameRegistry.ejecutar(codigoPartida, () -> {
+            // Validar y obtener partida
+            Partida partida = obtenerPartida(codigoPartida);
+            
+            // Validar y obtener jugador
+            Jugador jugador = obtenerJugador(partida, jugadorId);
+            
+            // Validar que el jugador tiene una carta actual
+            validarCartaActual(jugador);
+            
+            // Obtener la carta del jugador
+            Carta carta = obtenerCarta(jugador.getCartaActual());
+            
+            // Validar que la carta tiene transformaciones
+            validarTransformacionesDisponibles(carta);
+            
+            // Validar índice de transformación
+            validarIndiceTransformacion(carta, indiceTransformacion);
+            
+            // Calcular multiplicador
+            double multiplicador = cartaCatalog.multiplicador(carta, indiceTransformacion);
+            
+            // Activar transformación y guardar cambios
+            String nombreTransformacion = carta.getTransformaciones().get(indiceTransformacion).getNombre();
+            jugador.setIndiceTransformacion(indiceTransformacion);
+            jugador.setTransformacionActiva(nombreTransformacion);
+            activeGameRegistry.guardar(partida, m -> m.actualizarJugador(partida, jugador));
+            
+            // Crear respuesta
+            return new TransformacionResponse(
+                jugadorId,
+                jugador.getNombre(),
+                nombreTransformacion,
+                indiceTransformacion,
+                multiplicador
+            );
+        });
         
         // Emitir evento WebSocket
-        publicarEventoActivacion(partida.getCodigo(), response);
+        publicarEventoActivacion(codigoPartida, response);
         
         return response;
     }
 
     @Override
     public TransformacionResponse desactivarTransformacion(String codigoPartida, String jugadorId) {
-        // Validar y obtener partida
-        Partida partida = obtenerPartida(codigoPartida);
-        
-        // Validar y obtener jugador
-        Jugador jugador = obtenerJugador(partida, jugadorId);
-        
-        // Guardar nombre de transformación anterior
-        String transformacionAnterior = jugador.getTransformacionActiva() != null 
-            ? jugador.getTransformacionActiva() 
-            : "ninguna";
-        
-        // Desactivar transformación
-        jugador.setIndiceTransformacion(-1);
-        jugador.setTransformacionActiva(null);
-        
-        // Guardar cambios
-        partidaRepository.save(partida);
-        
-        // Crear respuesta
-        TransformacionResponse response = TransformacionResponse.desactivada(
-            jugadorId,
-            jugador.getNombre(),
-            transformacionAnterior
-        );
+        TransformacionResponse response = activeGameRegistry.ejecutar(codigoPartida, () -> {
+            // Validar y obtener partida
+            Partida partida = obtenerPartida(codigoPartida);
+            
+            // Validar y obtener jugador
+            Jugador jugador = obtenerJugador(partida, jugadorId);
+            
+            // Guardar nombre de transformación anterior
+            String transformacionAnterior = jugador.getTransformacionActiva() != null 
+                ? jugador.getTransformacionActiva() 
+                : "ninguna";
+            
+            // Desactivar transformación y guardar cambios
+            jugador.setIndiceTransformacion(-1);
+            jugador.setTransformacionActiva(null);
+            activeGameRegistry.guardar(partida, m -> m.actualizarJugador(partida, jugador));
+            
+            // Crear respuesta
+            return TransformacionResponse.desactivada(
+                jugadorId,
+                jugador.getNombre(),
+                transformacionAnterior
+            );
+        });
         
         // Emitir evento WebSocket
-        publicarEventoDesactivacion(partida.getCodigo(), response);
+        publicarEventoDesactivacion(codigoPartida, response);
         
         return response;
     }
@@ -145,13 +145,13 @@ public class TransformacionServiceImpl implements TransformacionService {
         validarIndiceTransformacion(carta, indiceTransformacion);
         
         // Calcular y retornar multiplicador
-        return TransformacionMultiplicador.calcularMultiplicador(carta, indiceTransformacion);
+        return cartaCatalog.multiplicador(carta, indiceTransformacion);
     }
 
     // Métodos privados de validación y utilidades (Single Responsibility)
     
     private Partida obtenerPartida(String codigoPartida) {
-        Optional<Partida> opt = partidaRepository.findByCodigo(codigoPartida);
+        Optional<Partida> opt = activeGameRegistry.buscar(codigoPartida);
         if (opt.isEmpty()) {
             throw new IllegalArgumentException("Partida no encontrada con código: " + codigoPartida);
         }
@@ -172,7 +172,7 @@ public class TransformacionServiceImpl implements TransformacionService {
     }
     
     private Carta obtenerCarta(String codigoCarta) {
-        return cartaRepository.findFirstByCodigo(codigoCarta)
+        return cartaCatalog.buscar(codigoCarta)
                 .orElseThrow(() -> new IllegalArgumentException("Carta no encontrada con código: " + codigoCarta));
     }
     
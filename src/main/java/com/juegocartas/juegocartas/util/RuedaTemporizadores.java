@@ -0,0 +1,237 @@
+package com.juegocartas.juegocartas.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rueda de temporizadores (hashed timing wheel) para muchos temporizadores con poca precisión,
+ * como los grace period de desconexión.
+ *
+ * Programar y cancelar son O(1) y no toman locks: sólo encolan el temporizador o marcan su
+ * cancelación. Un único hilo avanza la rueda cada {@code tickMs}, coloca los temporizadores nuevos
+ * en su ranura, retira los cancelados y entrega los vencidos de cada tick en una sola llamada a
+ * {@code alVencer}. Ese callback corre en el hilo de la rueda: debe pasar el trabajo a otro
+ * ejecutor y volver enseguida.
+ *
+ * Un temporizador vence como muy pronto en su instante y como muy tarde un tick después (más
+ * el retraso del propio hilo si el callback tarda).
+ */
+public final class RuedaTemporizadores<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuedaTemporizadores.class);
+
+    private static final int PENDIENTE = 0;
+    private static final int CANCELADO = 1;
+    private static final int VENCIDO = 2;
+
+    /** Máximo de temporizadores nuevos que se colocan por tick (el resto espera al siguiente). */
+    private static final int MAX_NUEVOS_POR_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Ranura<T>[] ranuras;
+    private final int mascara;
+    private final Consumer<List<Temporizador<T>>> alVencer;
+
+    private final Queue<Temporizador<T>> nuevos = new ConcurrentLinkedQueue<>();
+    private final Queue<Temporizador<T>> cancelados = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+
+    private final Thread hilo;
+    private final long inicioNanos;
+    private volatile boolean cerrada;
+
+    @SuppressWarnings("unchecked")
+    public RuedaTemporizadores(String nombre, long tickMs, int numeroRanuras,
+                               Consumer<List<Temporizador<T>>> alVencer) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs debe ser positivo");
+        int tamano = Integer.highestOneBit(Math.max(1, numeroRanuras - 1)) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.ranuras = new Ranura[tamano];
+        for (int i = 0; i < tamano; i++) ranuras[i] = new Ranura<>();
+        this.mascara = tamano - 1;
+        this.alVencer = alVencer;
+        this.inicioNanos = System.nanoTime();
+        this.hilo = Thread.ofPlatform().name(nombre).daemon().unstarted(this::girar);
+        this.hilo.start();
+    }
+
+    /**
+     * Programa un temporizador que vence dentro de {@code retrasoMs} con el dato indicado.
+     */
+    public Temporizador<T> programar(long retrasoMs, T dato) {
+        if (cerrada) throw new IllegalStateException("rueda cerrada");
+        Temporizador<T> t = new Temporizador<>(this, dato,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, retrasoMs)));
+        pendientes.incrementAndGet();
+        nuevos.add(t);
+        return t;
+    }
+
+    /**
+     * Temporizadores programados que aún no vencieron ni se cancelaron.
+     */
+    public int pendientes() {
+        return pendientes.get();
+    }
+
+    @Override
+    public void close() {
+        cerrada = true;
+        hilo.interrupt();
+    }
+
+    private void girar() {
+        long tick = 0;
+        while (!cerrada) {
+            long espera = inicioNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (espera > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            retirarCancelados();
+            colocarNuevos(tick);
+            List<Temporizador<T>> vencidos = ranuras[(int) (tick & mascara)].vencer();
+            if (!vencidos.isEmpty()) {
+                pendientes.addAndGet(-vencidos.size());
+                try {
+                    alVencer.accept(vencidos);
+                } catch (RuntimeException e) {
+                    // un fallo del callback no debe parar la rueda
+                    logger.error("Error entregando temporizadores vencidos: {}", e.getMessage(), e);
+                }
+            }
+            tick++;
+        }
+    }
+
+    private void colocarNuevos(long tick) {
+        for (int i = 0; i < MAX_NUEVOS_POR_TICK; i++) {
+            Temporizador<T> t = nuevos.poll();
+            if (t == null) return;
+            if (t.estado != PENDIENTE) continue;
+            // tick en el que vence (el actual si ya venció); las vueltas completas que faltan
+            // se descuentan cada vez que la rueda pasa por su ranura
+            long ticks = Math.max((t.venceNanos - inicioNanos) / tickNanos, tick);
+            t.vueltas = (ticks - tick) / ranuras.length;
+            ranuras[(int) (ticks & mascara)].agregar(t);
+        }
+    }
+
+    private void retirarCancelados() {
+        Temporizador<T> t;
+        while ((t = cancelados.poll()) != null) {
+            if (t.ranura != null) t.ranura.quitar(t);
+        }
+    }
+
+    /**
+     * Un temporizador programado en la rueda.
+     */
+    public static final class Temporizador<T> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Temporizador> ESTADO =
+                AtomicIntegerFieldUpdater.newUpdater(Temporizador.class, "estado");
+
+        private final RuedaTemporizadores<T> rueda;
+        private final T dato;
+        private final long venceNanos;
+        private volatile int estado = PENDIENTE;
+
+        // sólo los usa el hilo de la rueda
+        private long vueltas;
+        private Ranura<T> ranura;
+        private Temporizador<T> anterior;
+        private Temporizador<T> siguiente;
+
+        private Temporizador(RuedaTemporizadores<T> rueda, T dato, long venceNanos) {
+            this.rueda = rueda;
+            this.dato = dato;
+            this.venceNanos = venceNanos;
+        }
+
+        public T dato() {
+            return dato;
+        }
+
+        /**
+         * Instante de vencimiento (System.nanoTime()).
+         */
+        public long venceNanos() {
+            return venceNanos;
+        }
+
+        /**
+         * Cancela el temporizador. Devuelve false si ya había vencido o estaba cancelado.
+         */
+        public boolean cancelar() {
+            if (!ESTADO.compareAndSet(this, PENDIENTE, CANCELADO)) return false;
+            rueda.pendientes.decrementAndGet();
+            rueda.cancelados.add(this);
+            return true;
+        }
+
+        public boolean cancelado() {
+            return estado == CANCELADO;
+        }
+    }
+
+    /**
+     * Lista doblemente enlazada de los temporizadores de una ranura (sólo la toca el hilo de la rueda).
+     */
+    private static final class Ranura<T> {
+        private Temporizador<T> cabeza;
+        private Temporizador<T> cola;
+
+        void agregar(Temporizador<T> t) {
+            t.ranura = this;
+            if (cola == null) {
+                cabeza = cola = t;
+            } else {
+                cola.siguiente = t;
+                t.anterior = cola;
+                cola = t;
+            }
+        }
+
+        void quitar(Temporizador<T> t) {
+            if (t.anterior != null) t.anterior.siguiente = t.siguiente; else cabeza = t.siguiente;
+            if (t.siguiente != null) t.siguiente.anterior = t.anterior; else cola = t.anterior;
+            t.anterior = t.siguiente = null;
+            t.ranura = null;
+        }
+
+        List<Temporizador<T>> vencer() {
+            List<Temporizador<T>> vencidos = List.of();
+            Temporizador<T> t = cabeza;
+            while (t != null) {
+                Temporizador<T> siguiente = t.siguiente;
+                if (t.estado != PENDIENTE) {
+                    quitar(t);
+                } else if (t.vueltas <= 0) {
+                    quitar(t);
+                    if (Temporizador.ESTADO.compareAndSet(t, PENDIENTE, VENCIDO)) {
+                        if (vencidos.isEmpty()) vencidos = new ArrayList<>();
+                        vencidos.add(t);
+                    }
+                } else {
+                    t.vueltas--;
+                }
+                t = siguiente;
+            }
+            return vencidos;
+        }
+    }
+}
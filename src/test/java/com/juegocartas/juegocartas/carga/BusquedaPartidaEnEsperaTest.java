@@ -0,0 +1,174 @@
+package com.juegocartas.juegocartas.carga;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.bson.Document;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import com.juegocartas.juegocartas.config.IndicesMongo;
+import com.juegocartas.juegocartas.model.EstadoPartida;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaMutationRepositoryImpl;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+
+/**
+ * Búsqueda de "mi partida en espera" (PartidaServiceImpl.reconectarAPartidaEnEspera) sobre una
+ * colección grande: la consulta por índice estado + jugadores.userId frente al recorrido
+ * completo que se hacía antes (findAll y filtrar en memoria).
+ *
+ * Necesita un MongoDB (carga.mongo.uri); sin él la prueba se omite. La base de datos se llena
+ * una vez con carga.partidas partidas (5% EN_ESPERA, 5% EN_CURSO, el resto FINALIZADA, de 2 a 7
+ * jugadores) y se reutiliza en las siguientes ejecuciones.
+ *
+ * No se ejecuta con el build normal (tag "carga"). Ejecutar con:
+ *   mvn -Pcarga test -Dtest=BusquedaPartidaEnEsperaTest
+ *   mvn -Pcarga test -Dtest=BusquedaPartidaEnEsperaTest -Dcarga.partidas=1000000 -Dcarga.busquedas=1000
+ */
+@Tag("carga")
+public class BusquedaPartidaEnEsperaTest {
+
+    private static final int LOTE = 10_000;
+    private static final int USUARIOS = 200_000;
+
+    @Test
+    public void busquedaPorIndiceFrenteARecorrido() throws Exception {
+        String uri = System.getProperty("carga.mongo.uri",
+                "mongodb://localhost:27017/carga_partidas?serverSelectionTimeoutMS=2000");
+        int partidas = Integer.getInteger("carga.partidas", 1_000_000);
+        int busquedas = Integer.getInteger("carga.busquedas", 1000);
+        int recorridos = Integer.getInteger("carga.recorridos", 3);
+
+        SimpleMongoClientDatabaseFactory factory = new SimpleMongoClientDatabaseFactory(uri);
+        try {
+            MongoTemplate template = new MongoTemplate(factory);
+            assumeTrue(disponible(template), "MongoDB no disponible en " + uri);
+
+            MongoCollection<Document> coleccion = template.getCollection("partidas");
+            if (coleccion.countDocuments() != partidas) {
+                llenar(coleccion, partidas);
+            }
+            IndicesMongo.crear(template, IndicesMongo.Verificacion.FALLO);
+            PartidaRepository repositorio = new MongoRepositoryFactory(template).getRepository(
+                    PartidaRepository.class, RepositoryFragments.just(new PartidaMutationRepositoryImpl(template)));
+
+            String enEspera = EstadoPartida.EN_ESPERA.name();
+            Random random = new Random(42);
+            Latencias indice = new Latencias();
+            for (int b = 0; b < busquedas; b++) {
+                int i = random.nextInt(partidas / 20) * 20;
+                long inicio = System.nanoTime();
+                List<Partida> encontradas = repositorio.findByEstadoAndJugadorUserId(enEspera, creador(i));
+                indice.registrar(System.nanoTime() - inicio);
+
+                assertEquals(1, encontradas.size());
+                assertEquals(codigo(i), encontradas.get(0).getCodigo());
+                assertEquals(List.of(creador(i)),
+                        encontradas.get(0).getJugadores().stream().map(Jugador::getUserId).toList());
+            }
+
+            Document plan = coleccion.find(Filters.and(Filters.eq("estado", enEspera),
+                            Filters.eq("jugadores.userId", creador(0))))
+                    .projection(Projections.include("codigo"))
+                    .explain(ExplainVerbosity.EXECUTION_STATS);
+            String ganador = plan.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+            int examinados = plan.get("executionStats", Document.class).getInteger("totalDocsExamined");
+
+            // lo que hacía antes reconectarAPartidaEnEspera, leyendo en streaming para no cargar
+            // toda la colección en el heap a la vez
+            Latencias recorrido = new Latencias();
+            for (int r = 0; r < recorridos; r++) {
+                String buscado = creador(random.nextInt(partidas / 20) * 20);
+                long inicio = System.nanoTime();
+                try (var stream = template.stream(new Query(), Partida.class)) {
+                    stream.filter(p -> enEspera.equals(p.getEstado()))
+                            .filter(p -> p.getJugadores().stream().anyMatch(j -> buscado.equals(j.getUserId())))
+                            .findFirst();
+                }
+                recorrido.registrar(System.nanoTime() - inicio);
+            }
+
+            System.out.printf("=== Búsqueda de partida en espera: %d partidas ===%n", partidas);
+            System.out.println(indice.resumen("indice"));
+            System.out.println(recorrido.resumen("recorrido"));
+            System.out.printf("Plan: %s, documentos examinados: %d%n", ganador, examinados);
+
+            assertTrue(ganador.contains("IXSCAN"), "la consulta no usa el índice: " + ganador);
+            assertTrue(examinados <= 1, "documentos examinados: " + examinados);
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static boolean disponible(MongoTemplate template) {
+        try {
+            template.executeCommand(new Document("ping", 1));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void llenar(MongoCollection<Document> coleccion, int partidas) {
+        coleccion.drop();
+        Random random = new Random(7);
+        List<Document> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < partidas; i++) {
+            String estado = i % 20 == 0 ? EstadoPartida.EN_ESPERA.name()
+                    : i % 20 == 1 ? EstadoPartida.EN_CURSO.name() : EstadoPartida.FINALIZADA.name();
+            List<Document> jugadores = new ArrayList<>();
+            int numero = 2 + i % 6;
+            for (int k = 0; k < numero; k++) {
+                // el creador de cada partida en espera es un usuario que no juega en ninguna otra
+                String userId = k == 0 && i % 20 == 0 ? creador(i) : "u" + random.nextInt(USUARIOS);
+                jugadores.add(new Document("_id", i + "-" + k)
+                        .append("userId", userId)
+                        .append("nombre", "Jugador " + k)
+                        .append("cartasEnMano", List.of("1A", "2B", "3C", "4D"))
+                        .append("numeroCartas", 4)
+                        .append("orden", k + 1)
+                        .append("conectado", true)
+                        .append("indiceTransformacion", -1));
+            }
+            lote.add(new Document("codigo", codigo(i))
+                    .append("version", 0L)
+                    .append("estado", estado)
+                    .append("jugadores", jugadores)
+                    .append("cartasEnMesa", List.of())
+                    .append("rondasJugadas", 0)
+                    .append("tiempoLimite", 1800)
+                    .append("fechaCreacion", Instant.now().minusSeconds(partidas - i))
+                    .append("minJugadores", 2)
+                    .append("maxJugadores", 7));
+            if (lote.size() == LOTE) {
+                coleccion.insertMany(lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) coleccion.insertMany(lote);
+    }
+
+    private static String codigo(int i) {
+        return "P" + i;
+    }
+
+    private static String creador(int i) {
+        return "espera-" + i;
+    }
+}
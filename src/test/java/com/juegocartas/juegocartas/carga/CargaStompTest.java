@@ -0,0 +1,60 @@
+package com.juegocartas.juegocartas.carga;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Prueba de carga: partidas simultáneas de 7 jugadores sobre STOMP contra la aplicación
+ * completa, con MongoDB sustituido por {@link RepositoriosEnMemoria}.
+ *
+ * No se ejecuta con el build normal (tag "carga"). Ejecutar con:
+ *   mvn -Pcarga test
+ *   mvn -Pcarga test -Dcarga.partidas=300 -Dcarga.rondas=30
+ *   mvn -Pcarga test -Dapp.eventos.lotes.modo=LOTES   (clientes suscritos a {topic}/lote)
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.autoconfigure.exclude="
+                + "org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration,"
+                + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration,"
+                + "org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration",
+        "logging.level.com.juegocartas.juegocartas=WARN",
+        // cada sesión STOMP es una conexión Tomcat
+        "server.tomcat.max-connections=20000"
+})
+@Import(RepositoriosEnMemoria.class)
+public class CargaStompTest {
+
+    @LocalServerPort
+    private int puerto;
+
+    @Test
+    public void partidasSimultaneas() throws Exception {
+        GeneradorCargaStomp.Parametros parametros = new GeneradorCargaStomp.Parametros(
+                Integer.getInteger("carga.partidas", 20),
+                Integer.getInteger("carga.jugadores", 7),
+                Integer.getInteger("carga.rondas", 20),
+                Integer.getInteger("carga.preparacionesConcurrentes", 16),
+                Duration.ofSeconds(Integer.getInteger("carga.timeoutRondaSegundos", 10)),
+                Duration.ofSeconds(Integer.getInteger("carga.duracionMaximaSegundos", 300)),
+                !"INDIVIDUAL".equals(System.getProperty("app.eventos.lotes.modo", "INDIVIDUAL")));
+
+        GeneradorCargaStomp generador = new GeneradorCargaStomp(puerto);
+        try {
+            GeneradorCargaStomp.Resultado resultado = generador.ejecutar(parametros);
+            System.out.println(resultado.informe());
+
+            assertEquals(0, resultado.erroresInternos(), "errores internos del servidor");
+            assertTrue(resultado.partidasJugadas() > 0, "ninguna partida llegó a jugarse");
+        } finally {
+            generador.cerrar();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.juegocartas.juegocartas.carga;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.juegocartas.juegocartas.JuegocartasApplication;
+import com.juegocartas.juegocartas.config.WebSocketConfig;
+import com.juegocartas.juegocartas.service.EventPublisher;
+
+/**
+ * Latencia de fan-out de los eventos de partida con cada broker (app.websocket.broker.modo).
+ *
+ * SIMPLE levanta un nodo con el broker en memoria. RELAY levanta un ActiveMQ Artemis embebido
+ * (STOMP) y dos nodos que lo usan como relay; los suscriptores se reparten entre ambos nodos y
+ * se publica desde el primero, como dos réplicas tras un balanceador sin sesiones pegajosas.
+ *
+ * No se ejecuta con el build normal (tag "carga"). Ejecutar con:
+ *   mvn -Pcarga test -Dtest=FanoutStompTest
+ *   mvn -Pcarga test -Dtest=FanoutStompTest -Dcarga.broker=RELAY
+ *   mvn -Pcarga test -Dtest=FanoutStompTest -Dcarga.salas=300 -Dcarga.mensajes=100
+ */
+@Tag("carga")
+public class FanoutStompTest {
+
+    @Test
+    public void latenciaDeFanout() throws Exception {
+        WebSocketConfig.ModoBroker modo = WebSocketConfig.ModoBroker.valueOf(
+                System.getProperty("carga.broker", "SIMPLE"));
+        MedidorFanoutStomp.Parametros parametros = new MedidorFanoutStomp.Parametros(
+                Integer.getInteger("carga.salas", 50),
+                Integer.getInteger("carga.jugadores", 7),
+                Integer.getInteger("carga.mensajes", 50),
+                Duration.ofMillis(Integer.getInteger("carga.intervaloMs", 100)));
+
+        EmbeddedActiveMQ artemis = null;
+        List<ConfigurableApplicationContext> nodos = new ArrayList<>();
+        MedidorFanoutStomp medidor = null;
+        try {
+            List<String> propiedades = new ArrayList<>(List.of(
+                    "server.port=0",
+                    "spring.autoconfigure.exclude="
+                            + "org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration,"
+                            + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration,"
+                            + "org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration",
+                    "logging.level.com.juegocartas.juegocartas=WARN",
+                    "server.tomcat.max-connections=20000",
+                    "app.websocket.broker.modo=" + modo));
+            int numeroNodos = 1;
+            if (modo == WebSocketConfig.ModoBroker.RELAY) {
+                int puertoStomp = puertoLibre();
+                artemis = arrancarArtemis(puertoStomp);
+                propiedades.add("app.websocket.broker.relay.host=127.0.0.1");
+                propiedades.add("app.websocket.broker.relay.port=" + puertoStomp);
+                numeroNodos = 2;
+            }
+
+            List<Integer> puertos = new ArrayList<>();
+            for (int i = 0; i < numeroNodos; i++) {
+                ConfigurableApplicationContext nodo = new SpringApplicationBuilder(
+                        JuegocartasApplication.class, RepositoriosEnMemoria.class)
+                        .properties(propiedades.toArray(String[]::new))
+                        .run();
+                nodos.add(nodo);
+                puertos.add(((WebServerApplicationContext) nodo).getWebServer().getPort());
+            }
+
+            medidor = new MedidorFanoutStomp(puertos);
+            MedidorFanoutStomp.Resultado resultado = medidor.ejecutar(modo.name(),
+                    nodos.get(0).getBean(EventPublisher.class), parametros);
+            System.out.println(resultado.informe());
+
+            assertEquals(resultado.esperados(), resultado.recibidos(), "entregas perdidas");
+        } finally {
+            if (medidor != null) medidor.cerrar();
+            for (ConfigurableApplicationContext nodo : nodos) nodo.close();
+            if (artemis != null) artemis.stop();
+        }
+    }
+
+    /**
+     * Artemis en memoria con un acceptor STOMP; /topic/ y /queue/ se mapean a direcciones
+     * multicast y anycast, como espera el relay de Spring.
+     */
+    private static EmbeddedActiveMQ arrancarArtemis(int puerto) throws Exception {
+        ConfigurationImpl configuracion = new ConfigurationImpl();
+        configuracion.setPersistenceEnabled(false);
+        configuracion.setSecurityEnabled(false);
+        configuracion.setJMXManagementEnabled(false);
+        configuracion.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + puerto
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        EmbeddedActiveMQ artemis = new EmbeddedActiveMQ();
+        artemis.setConfiguration(configuracion);
+        artemis.start();
+        return artemis;
+    }
+
+    private static int puertoLibre() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package com.juegocartas.juegocartas.carga;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.juegocartas.juegocartas.service.EventBatcher;
+
+/**
+ * Generador de carga: juega partidas completas contra una instancia levantada, con una sesión
+ * STOMP (SockJS sobre WebSocket, como el frontend) por jugador.
+ *
+ * Por cada partida se registran los usuarios (/auth/register), el primero crea la partida
+ * (/api/partidas/crear) y el resto se une (/api/partidas/{codigo}/unirse); cada jugador se
+ * suscribe a /topic/partida/{codigo} antes de unirse. Con la partida iniciada, el jugador con
+ * el turno envía SELECCIONAR_ATRIBUTO y, al llegar ATRIBUTO_SELECCIONADO, todos los jugadores
+ * con cartas envían JUGAR_CARTA por /app/partida/{codigo}/accion.
+ *
+ * La latencia de una acción es el tiempo entre el envío del frame y la llegada, a la sesión del
+ * propio jugador, del evento que la confirma (ATRIBUTO_SELECCIONADO o CARTA_JUGADA con su id).
+ * Una partida que no avanza en {@code timeoutRonda} se da por atascada y deja de jugarse.
+ */
+public class GeneradorCargaStomp {
+
+    private static final String[] ATRIBUTOS = { "poder", "velocidad", "ki", "defensa" };
+
+    /**
+     * @param lotes suscribirse a {topic}/lote y recibir EventBatch (servidor con
+     *              app.eventos.lotes.modo=AMBOS o LOTES) en lugar de eventos individuales
+     */
+    public record Parametros(int partidas, int jugadoresPorPartida, int rondasPorPartida,
+                             int preparacionesConcurrentes, Duration timeoutRonda, Duration duracionMaxima,
+                             boolean lotes) {
+    }
+
+    private final String url;
+    private final RestClient rest;
+    private final WebSocketStompClient stompClient;
+    private final String ejecucion = Long.toString(System.nanoTime() % 46656, 36);
+
+    private final Latencias latenciaSeleccionar = new Latencias();
+    private final Latencias latenciaJugar = new Latencias();
+    private final AtomicLong accionesEnviadas = new AtomicLong();
+    private final AtomicLong framesRecibidos = new AtomicLong();
+    private final AtomicLong eventosRecibidos = new AtomicLong();
+    private final AtomicLong eventosError = new AtomicLong();
+    private final AtomicLong erroresInternos = new AtomicLong();
+    private final AtomicLong erroresTransporte = new AtomicLong();
+    private final AtomicLong rondas = new AtomicLong();
+    private final ConcurrentLinkedQueue<StompSession> abiertas = new ConcurrentLinkedQueue<>();
+
+    public GeneradorCargaStomp(int puerto) {
+        this.url = "http://localhost:" + puerto;
+        this.rest = RestClient.create(url);
+        this.stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        // sin heartbeats: cada sesión sólo envía desde el hilo que conduce su partida
+        this.stompClient.setDefaultHeartbeat(new long[] { 0, 0 });
+    }
+
+    public Resultado ejecutar(Parametros parametros) throws InterruptedException {
+        List<PartidaSimulada> partidas = new ArrayList<>();
+        CountDownLatch terminadas = new CountDownLatch(parametros.partidas());
+        long inicioPreparacion = System.nanoTime();
+
+        // preparar en paralelo (registro, creación, conexiones y uniones)
+        Semaphore concurrencia = new Semaphore(parametros.preparacionesConcurrentes());
+        List<Future<PartidaSimulada>> preparadas = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int n = 0; n < parametros.partidas(); n++) {
+                int numero = n;
+                preparadas.add(executor.submit(() -> {
+                    concurrencia.acquire();
+                    try {
+                        return preparar(numero, parametros, terminadas);
+                    } finally {
+                        concurrencia.release();
+                    }
+                }));
+            }
+        }
+        int fallidas = 0;
+        for (Future<PartidaSimulada> f : preparadas) {
+            try {
+                partidas.add(f.get());
+            } catch (Exception e) {
+                fallidas++;
+                terminadas.countDown();
+                System.err.println("No se pudo preparar una partida: " + e.getMessage());
+            }
+        }
+        long finPreparacion = System.nanoTime();
+
+        // vigilar partidas que no avanzan
+        long timeoutNanos = parametros.timeoutRonda().toNanos();
+        var vigilante = Executors.newSingleThreadScheduledExecutor();
+        vigilante.scheduleAtFixedRate(() -> {
+            long ahora = System.nanoTime();
+            for (PartidaSimulada p : partidas) p.vigilar(ahora, timeoutNanos);
+        }, 1, 1, TimeUnit.SECONDS);
+
+        long inicioJuego = System.nanoTime();
+        for (PartidaSimulada p : partidas) p.arrancar();
+        boolean aTiempo = terminadas.await(parametros.duracionMaxima().toMillis(), TimeUnit.MILLISECONDS);
+        long finJuego = System.nanoTime();
+        vigilante.shutdownNow();
+
+        Map<Estado, Integer> porEstado = new LinkedHashMap<>();
+        for (PartidaSimulada p : partidas) porEstado.merge(p.estado(), 1, Integer::sum);
+        if (fallidas > 0) porEstado.put(Estado.SIN_PREPARAR, fallidas);
+
+        return new Resultado(parametros, porEstado, aTiempo, finPreparacion - inicioPreparacion,
+                finJuego - inicioJuego, rondas.get(), accionesEnviadas.get(), framesRecibidos.get(), eventosRecibidos.get(),
+                eventosError.get(), erroresInternos.get(), erroresTransporte.get(),
+                latenciaSeleccionar, latenciaJugar);
+    }
+
+    public void cerrar() {
+        for (StompSession s : abiertas) {
+            try {
+                if (s.isConnected()) s.disconnect();
+            } catch (Exception ignored) {
+                // la sesión ya estaba cerrada
+            }
+        }
+        stompClient.stop();
+    }
+
+    private PartidaSimulada preparar(int numero, Parametros parametros, CountDownLatch terminadas) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < parametros.jugadoresPorPartida(); i++) {
+            tokens.add(registrar("c" + ejecucion + "_" + numero + "_" + i));
+        }
+
+        Map<?, ?> creada = post("/api/partidas/crear", tokens.get(0));
+        String codigo = (String) creada.get("codigo");
+        PartidaSimulada partida = new PartidaSimulada(codigo, parametros.rondasPorPartida(), terminadas);
+
+        String sufijo = parametros.lotes() ? EventBatcher.SUFIJO_LOTE : "";
+        JugadorSimulado creador = partida.agregar(conectar(codigo, sufijo, partida, true));
+        creador.id = (String) creada.get("jugadorId");
+        for (int i = 1; i < tokens.size(); i++) {
+            JugadorSimulado jugador = partida.agregar(conectar(codigo, sufijo, partida, false));
+            Map<?, ?> unido = post("/api/partidas/" + codigo + "/unirse", tokens.get(i));
+            jugador.id = (String) unido.get("jugadorId");
+        }
+        return partida;
+    }
+
+    private String registrar(String username) {
+        Map<?, ?> respuesta = rest.post().uri("/auth/register")
+                .body(Map.of("username", username, "email", username + "@carga.local", "password", "carga123"))
+                .retrieve().body(Map.class);
+        return (String) respuesta.get("token");
+    }
+
+    private Map<?, ?> post(String ruta, String token) {
+        return rest.post().uri(ruta)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .body(Map.of())
+                .retrieve().body(Map.class);
+    }
+
+    private JugadorSimulado conectar(String codigo, String sufijo, PartidaSimulada partida, boolean conduce)
+            throws Exception {
+        JugadorSimulado jugador = new JugadorSimulado(partida, conduce);
+        StompSession sesion = stompClient.connectAsync(url + "/ws", jugador).get(30, TimeUnit.SECONDS);
+        abiertas.add(sesion);
+        jugador.sesion = sesion;
+        sesion.subscribe("/topic/partida/" + codigo + sufijo, jugador);
+        if (conduce) {
+            sesion.subscribe("/topic/partida/" + codigo + "/counts" + sufijo, jugador);
+        }
+        return jugador;
+    }
+
+    enum Estado { PREPARADA, EN_JUEGO, COMPLETADA, FINALIZADA, ATASCADA, SIN_PREPARAR }
+
+    /**
+     * Jugador simulado: su sesión STOMP y los envíos pendientes de confirmar.
+     */
+    private final class JugadorSimulado extends StompSessionHandlerAdapter {
+        private final PartidaSimulada partida;
+        // la sesión del creador decide el ritmo de la partida; el resto sólo mide
+        private final boolean conduce;
+        volatile String id;
+        volatile StompSession sesion;
+        private final AtomicLong seleccionEnviada = new AtomicLong();
+        private final AtomicLong cartaEnviada = new AtomicLong();
+
+        JugadorSimulado(PartidaSimulada partida, boolean conduce) {
+            this.partida = partida;
+            this.conduce = conduce;
+        }
+
+        void enviar(String accion, String atributo, AtomicLong pendiente) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("accion", accion);
+            payload.put("jugadorId", id);
+            if (atributo != null) payload.put("atributo", atributo);
+            pendiente.set(System.nanoTime());
+            sesion.send("/app/partida/" + partida.codigo + "/accion", payload);
+            accionesEnviadas.incrementAndGet();
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long ahora = System.nanoTime();
+            framesRecibidos.incrementAndGet();
+            Map<?, ?> frame = (Map<?, ?>) payload;
+            if ("EVENT_BATCH".equals(frame.get("tipo"))) {
+                for (Object evento : (List<?>) frame.get("eventos")) recibir((Map<?, ?>) evento, ahora);
+            } else {
+                recibir(frame, ahora);
+            }
+        }
+
+        private void recibir(Map<?, ?> evento, long ahora) {
+            eventosRecibidos.incrementAndGet();
+            String tipo = String.valueOf(evento.get("tipo"));
+            String jugadorId = (String) evento.get("jugadorId");
+
+            if (id != null && id.equals(jugadorId)) {
+                if ("ATRIBUTO_SELECCIONADO".equals(tipo)) medir(seleccionEnviada, ahora, latenciaSeleccionar);
+                else if ("CARTA_JUGADA".equals(tipo)) medir(cartaEnviada, ahora, latenciaJugar);
+            }
+            if (conduce) {
+                if ("ERROR".equals(tipo)) {
+                    eventosError.incrementAndGet();
+                    if ("INTERNAL_ERROR".equals(evento.get("codigo"))) erroresInternos.incrementAndGet();
+                }
+                partida.procesar(tipo, evento);
+            }
+        }
+
+        private void medir(AtomicLong pendiente, long ahora, Latencias latencias) {
+            long enviado = pendiente.getAndSet(0);
+            if (enviado != 0) latencias.registrar(ahora - enviado);
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            erroresTransporte.incrementAndGet();
+        }
+    }
+
+    /**
+     * Partida simulada. Los eventos los procesa sólo la sesión del creador y todos los envíos se
+     * hacen bajo el monitor de la partida, así que nunca hay dos envíos a la vez por sesión.
+     */
+    private final class PartidaSimulada {
+        private final String codigo;
+        private final int rondasMaximas;
+        private final CountDownLatch terminadas;
+        private final Map<String, JugadorSimulado> jugadores = new LinkedHashMap<>();
+        private final Map<String, Integer> cartas = new HashMap<>();
+        private final List<JugadorSimulado> pendientesDeId = new ArrayList<>();
+
+        private Estado estado = Estado.PREPARADA;
+        private boolean arrancada;
+        private String turno;
+        private int rondasJugadas;
+        private volatile long ultimoProgreso = System.nanoTime();
+
+        PartidaSimulada(String codigo, int rondasMaximas, CountDownLatch terminadas) {
+            this.codigo = codigo;
+            this.rondasMaximas = rondasMaximas;
+            this.terminadas = terminadas;
+        }
+
+        synchronized JugadorSimulado agregar(JugadorSimulado jugador) {
+            pendientesDeId.add(jugador);
+            return jugador;
+        }
+
+        synchronized Estado estado() {
+            return estado;
+        }
+
+        synchronized void arrancar() {
+            for (JugadorSimulado j : pendientesDeId) jugadores.put(j.id, j);
+            pendientesDeId.clear();
+            arrancada = true;
+            ultimoProgreso = System.nanoTime();
+            estado = Estado.EN_JUEGO;
+            // si PARTIDA_INICIADA llegó durante la preparación ya se conoce el turno
+            if (turno != null) seleccionar();
+        }
+
+        synchronized void procesar(String tipo, Map<?, ?> evento) {
+            if (estado == Estado.COMPLETADA || estado == Estado.FINALIZADA || estado == Estado.ATASCADA) return;
+            switch (tipo) {
+                case "PARTIDA_INICIADA" -> {
+                    turno = (String) evento.get("turnoActual");
+                    if (arrancada) seleccionar();
+                }
+                case "ATRIBUTO_SELECCIONADO" -> {
+                    ultimoProgreso = System.nanoTime();
+                    for (JugadorSimulado j : jugadores.values()) {
+                        if (cartas.getOrDefault(j.id, 1) > 0) j.enviar("JUGAR_CARTA", null, j.cartaEnviada);
+                    }
+                }
+                case "CARD_COUNTS" -> {
+                    if (evento.get("counts") instanceof List<?> counts) {
+                        for (Object c : counts) {
+                            Map<?, ?> count = (Map<?, ?>) c;
+                            cartas.put((String) count.get("jugadorId"), ((Number) count.get("count")).intValue());
+                        }
+                    }
+                }
+                case "RONDA_RESUELTA" -> {
+                    ultimoProgreso = System.nanoTime();
+                    rondas.incrementAndGet();
+                    rondasJugadas++;
+                    if (!Boolean.TRUE.equals(evento.get("empate"))) turno = (String) evento.get("ganadorId");
+                    if (rondasJugadas >= rondasMaximas) terminar(Estado.COMPLETADA);
+                    else seleccionar();
+                }
+                case "JUEGO_FINALIZADO" -> terminar(Estado.FINALIZADA);
+                default -> {
+                    // resto de eventos (TURNO_CAMBIADO, estado de la partida...) sólo cuentan como recibidos
+                }
+            }
+        }
+
+        void vigilar(long ahora, long timeoutNanos) {
+            if (ahora - ultimoProgreso < timeoutNanos) return;
+            synchronized (this) {
+                if (estado == Estado.EN_JUEGO) terminar(Estado.ATASCADA);
+            }
+        }
+
+        private void seleccionar() {
+            JugadorSimulado jugador = jugadores.get(turno);
+            if (jugador == null) return; // el vigilante la dará por atascada
+            String atributo = ATRIBUTOS[ThreadLocalRandom.current().nextInt(ATRIBUTOS.length)];
+            jugador.enviar("SELECCIONAR_ATRIBUTO", atributo, jugador.seleccionEnviada);
+        }
+
+        private void terminar(Estado fin) {
+            if (estado != Estado.EN_JUEGO) return;
+            estado = fin;
+            terminadas.countDown();
+        }
+    }
+
+    /**
+     * Resultado de una ejecución.
+     */
+    public record Resultado(Parametros parametros, Map<Estado, Integer> partidasPorEstado, boolean aTiempo,
+                            long preparacionNanos, long juegoNanos, long rondas, long accionesEnviadas,
+                            long framesRecibidos, long eventosRecibidos, long eventosError, long erroresInternos, long erroresTransporte,
+                            Latencias latenciaSeleccionar, Latencias latenciaJugar) {
+
+        public int partidasJugadas() {
+            return partidasPorEstado.getOrDefault(Estado.COMPLETADA, 0)
+                    + partidasPorEstado.getOrDefault(Estado.FINALIZADA, 0);
+        }
+
+        public String informe() {
+            double segundos = juegoNanos / 1e9;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("=== Carga STOMP: %d partidas x %d jugadores (%d sesiones)%s ===%n",
+                    parametros.partidas(), parametros.jugadoresPorPartida(),
+                    parametros.partidas() * parametros.jugadoresPorPartida(), parametros.lotes() ? ", lotes" : ""));
+            sb.append(String.format("Preparación: %.1f s   Juego: %.1f s%s%n", preparacionNanos / 1e9, segundos,
+                    aTiempo ? "" : " (agotada la duración máxima)"));
+            sb.append("Partidas: ").append(partidasPorEstado).append(System.lineSeparator());
+            sb.append(String.format("Rondas: %d (%.1f/s)%n", rondas, rondas / segundos));
+            sb.append(String.format("Acciones enviadas: %d (%.1f/s)%n", accionesEnviadas, accionesEnviadas / segundos));
+            sb.append(String.format("Frames recibidos: %d (%.1f/s)   Eventos: %d (%.1f/s)%n",
+                    framesRecibidos, framesRecibidos / segundos, eventosRecibidos, eventosRecibidos / segundos));
+            sb.append(String.format("Errores: %d eventos ERROR (%d internos), %d de transporte%n",
+                    eventosError, erroresInternos, erroresTransporte));
+            sb.append(latenciaSeleccionar.resumen("SELECCIONAR_ATRIBUTO")).append(System.lineSeparator());
+            sb.append(latenciaJugar.resumen("JUGAR_CARTA")).append(System.lineSeparator());
+            return sb.toString();
+        }
+    }
+}
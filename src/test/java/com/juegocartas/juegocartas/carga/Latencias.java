@@ -0,0 +1,45 @@
+package com.juegocartas.juegocartas.carga;
+
+import java.util.Arrays;
+
+/**
+ * Muestras de latencia (ns) de un tipo de acción. Guarda todas las muestras para calcular
+ * percentiles exactos al final; con miles de jugadores son unos pocos MB.
+ */
+class Latencias {
+
+    private long[] muestras = new long[1024];
+    private int total;
+
+    synchronized void registrar(long nanos) {
+        if (total == muestras.length) {
+            muestras = Arrays.copyOf(muestras, total * 2);
+        }
+        muestras[total++] = nanos;
+    }
+
+    synchronized int total() {
+        return total;
+    }
+
+    /**
+     * Percentiles (0..100) en milisegundos, en el mismo orden que se piden.
+     */
+    synchronized double[] percentilesMs(double... percentiles) {
+        double[] resultado = new double[percentiles.length];
+        if (total == 0) return resultado;
+        long[] ordenadas = Arrays.copyOf(muestras, total);
+        Arrays.sort(ordenadas);
+        for (int i = 0; i < percentiles.length; i++) {
+            int idx = (int) Math.ceil(percentiles[i] / 100.0 * total) - 1;
+            resultado[i] = ordenadas[Math.max(0, Math.min(idx, total - 1))] / 1_000_000.0;
+        }
+        return resultado;
+    }
+
+    String resumen(String nombre) {
+        double[] p = percentilesMs(50, 90, 99, 99.9, 100);
+        return String.format("%-20s n=%-8d p50=%8.2f ms  p90=%8.2f ms  p99=%8.2f ms  p99.9=%8.2f ms  max=%8.2f ms",
+                nombre, total(), p[0], p[1], p[2], p[3], p[4]);
+    }
+}
@@ -0,0 +1,142 @@
+package com.juegocartas.juegocartas.carga;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.juegocartas.juegocartas.service.EventPublisher;
+
+/**
+ * Mide la latencia de fan-out del broker: el tiempo entre publicar un evento en
+ * /topic/partida/{codigo} (con el EventPublisher del servidor, como la lógica del juego) y su
+ * llegada a cada sesión suscrita.
+ *
+ * Cada sala simula una partida con {@code suscriptoresPorSala} sesiones STOMP. Con varios nodos
+ * las sesiones se reparten entre ellos por turno y se publica siempre en el primero, así que en
+ * modo RELAY la mayoría de entregas cruzan el broker externo. Antes de medir se publican
+ * eventos de prueba hasta que todas las sesiones reciben uno (las suscripciones ya están
+ * activas en todos los nodos). Publicador y clientes comparten la JVM, así que el instante de
+ * envío viaja en el propio evento.
+ */
+public class MedidorFanoutStomp {
+
+    public record Parametros(int salas, int suscriptoresPorSala, int mensajesPorSala, Duration intervalo) {
+    }
+
+    private final List<String> urls;
+    private final WebSocketStompClient stompClient;
+    private final String ejecucion = Long.toString(System.nanoTime() % 46656, 36);
+
+    private final Latencias latencias = new Latencias();
+    private final AtomicLong recibidos = new AtomicLong();
+    private final List<Suscriptor> suscriptores = new ArrayList<>();
+
+    public MedidorFanoutStomp(List<Integer> puertos) {
+        this.urls = puertos.stream().map(p -> "http://localhost:" + p + "/ws").toList();
+        this.stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        this.stompClient.setDefaultHeartbeat(new long[] { 0, 0 });
+    }
+
+    public Resultado ejecutar(String modo, EventPublisher publicador, Parametros parametros) throws Exception {
+        List<String> topics = new ArrayList<>();
+        for (int s = 0; s < parametros.salas(); s++) {
+            String topic = "/topic/partida/F" + ejecucion + s;
+            topics.add(topic);
+            for (int i = 0; i < parametros.suscriptoresPorSala(); i++) {
+                Suscriptor suscriptor = new Suscriptor();
+                String url = urls.get(suscriptores.size() % urls.size());
+                suscriptor.sesion = stompClient.connectAsync(url, suscriptor).get(30, TimeUnit.SECONDS);
+                suscriptor.sesion.subscribe(topic, suscriptor);
+                suscriptores.add(suscriptor);
+            }
+        }
+
+        // esperar a que todas las suscripciones reciban (en RELAY, a que el broker las conozca)
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (suscriptores.stream().anyMatch(s -> !s.listo)) {
+            if (System.nanoTime() > limite) throw new IllegalStateException("suscripciones sin confirmar");
+            for (String topic : topics) publicador.publish(topic, Map.of("tipo", "FANOUT_PRUEBA"));
+            Thread.sleep(100);
+        }
+
+        long esperados = (long) parametros.salas() * parametros.suscriptoresPorSala() * parametros.mensajesPorSala();
+        long inicio = System.nanoTime();
+        for (int m = 0; m < parametros.mensajesPorSala(); m++) {
+            for (String topic : topics) {
+                publicador.publish(topic, Map.of("tipo", "FANOUT", "enviado", System.nanoTime()));
+            }
+            Thread.sleep(parametros.intervalo().toMillis());
+        }
+        limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (recibidos.get() < esperados && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        return new Resultado(parametros, modo, urls.size(), esperados, recibidos.get(), System.nanoTime() - inicio,
+                latencias);
+    }
+
+    public void cerrar() {
+        for (Suscriptor s : suscriptores) {
+            try {
+                if (s.sesion != null && s.sesion.isConnected()) s.sesion.disconnect();
+            } catch (Exception ignored) {
+                // la sesión ya estaba cerrada
+            }
+        }
+        stompClient.stop();
+    }
+
+    private final class Suscriptor extends StompSessionHandlerAdapter {
+        volatile StompSession sesion;
+        volatile boolean listo;
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long ahora = System.nanoTime();
+            Map<?, ?> evento = (Map<?, ?>) payload;
+            if ("FANOUT".equals(evento.get("tipo"))) {
+                latencias.registrar(ahora - ((Number) evento.get("enviado")).longValue());
+                recibidos.incrementAndGet();
+            } else {
+                listo = true;
+            }
+        }
+    }
+
+    /**
+     * Resultado de una medición.
+     */
+    public record Resultado(Parametros parametros, String modo, int nodos, long esperados, long recibidos,
+                            long duracionNanos, Latencias latencias) {
+
+        public String informe() {
+            double segundos = duracionNanos / 1e9;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("=== Fan-out STOMP (%s, %d nodo%s): %d salas x %d suscriptores ===%n",
+                    modo, nodos, nodos == 1 ? "" : "s", parametros.salas(), parametros.suscriptoresPorSala()));
+            sb.append(String.format("Entregas: %d de %d (%.1f/s)%n", recibidos, esperados, recibidos / segundos));
+            sb.append(latencias.resumen("FANOUT")).append(System.lineSeparator());
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.juegocartas.juegocartas.carga;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+
+import com.juegocartas.juegocartas.model.Carta;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.model.Ronda;
+import com.juegocartas.juegocartas.repository.CartaRepository;
+import com.juegocartas.juegocartas.repository.JugadorRepository;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.juegocartas.juegocartas.repository.RondaRepository;
+import com.juegocartas.juegocartas.repository.UsuarioRepository;
+
+/**
+ * Repositorios en memoria que sustituyen a MongoDB en la prueba de carga.
+ *
+ * Cada repositorio es un proxy sobre un ConcurrentHashMap por id: implementa el CRUD de
+ * MongoRepository, los métodos derivados findBy/findFirstBy/existsBy de una sola propiedad y
+ * la búsqueda de partidas por estado y usuario y la página de rondas de una partida.
+ * Las lecturas devuelven la misma instancia guardada, así que los updates parciales de
+ * PartidaMutationRepository no tienen nada que escribir y responden al instante; la carga mide
+ * el servidor (STOMP, locks, serialización) y no la base de datos.
+ *
+ * Se cargan 32 cartas (paquetes 1..4, letras A..H) para que las partidas puedan repartir.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class RepositoriosEnMemoria {
+
+    @Bean
+    public PartidaRepository partidaRepository() {
+        return repositorio(PartidaRepository.class, new ConcurrentHashMap<>());
+    }
+
+    @Bean
+    public CartaRepository cartaRepository() {
+        Map<String, Object> cartas = new ConcurrentHashMap<>();
+        for (Carta c : cartas()) {
+            cartas.put(c.getId(), c);
+        }
+        return repositorio(CartaRepository.class, cartas);
+    }
+
+    @Bean
+    public UsuarioRepository usuarioRepository() {
+        return repositorio(UsuarioRepository.class, new ConcurrentHashMap<>());
+    }
+
+    @Bean
+    public RondaRepository rondaRepository() {
+        return repositorio(RondaRepository.class, new ConcurrentHashMap<>());
+    }
+
+    @Bean
+    public JugadorRepository jugadorRepository() {
+        return repositorio(JugadorRepository.class, new ConcurrentHashMap<>());
+    }
+
+    static List<Carta> cartas() {
+        List<Carta> cartas = new ArrayList<>();
+        int idx = 0;
+        for (int paquete = 1; paquete <= 4; paquete++) {
+            for (char letra = 'A'; letra <= 'H'; letra++) {
+                Carta c = new Carta(paquete + String.valueOf(letra), "Carta " + paquete + letra);
+                c.setId(new ObjectId().toHexString());
+                c.setPaquete(paquete);
+                c.setAtributos(Map.of(
+                        "poder", 5000 + idx * 37 % 900,
+                        "velocidad", 4000 + idx * 53 % 700,
+                        "ki", 4500 + idx * 71 % 800,
+                        "defensa", 3000 + idx * 29 % 600));
+                cartas.add(c);
+                idx++;
+            }
+        }
+        return cartas;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R> R repositorio(Class<R> tipo, Map<String, Object> datos) {
+        return (R) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo },
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "save" -> guardar(datos, args[0]);
+                    case "saveAll" -> {
+                        List<Object> guardados = new ArrayList<>();
+                        for (Object o : (Iterable<?>) args[0]) guardados.add(guardar(datos, o));
+                        yield guardados;
+                    }
+                    case "findById" -> Optional.ofNullable(datos.get((String) args[0]));
+                    case "existsById" -> datos.containsKey((String) args[0]);
+                    case "findAll" -> new ArrayList<>(datos.values());
+                    case "count" -> (long) datos.size();
+                    case "deleteById" -> datos.remove((String) args[0]);
+                    case "delete" -> datos.remove(id(args[0]));
+                    case "deleteAll" -> {
+                        if (args == null) datos.clear();
+                        else for (Object o : (Iterable<?>) args[0]) datos.remove(id(o));
+                        yield null;
+                    }
+                    // proyecciones de VistasPartida: la partida completa
+                    case "findPublicaByCodigo", "findDetalleByCodigo" -> consultaDerivada(datos, "Codigo", metodo, args);
+                    case "findByEstadoAndJugadorUserId" -> partidasDeUsuario(datos, (String) args[0], (String) args[1]);
+                    // PartidaMutationRepository: la instancia en memoria ya tiene los cambios
+                    case "actualizarAtributo", "registrarCartaJugada", "actualizarJugador", "agregarJugador",
+                            "actualizarJugadores", "guardarCambios" -> null;
+                    case "cambios" -> new Document();
+                    case "escribirCambios" -> Set.of();
+                    case "inicializarVersiones", "migrarHistorialRondas", "inicializarActividad" -> 0L;
+                    // sin colección de archivo: las partidas finalizadas se quedan donde están
+                    case "archivarFinalizadas" -> List.of();
+                    case "buscarArchivada" -> Optional.empty();
+                    case "contarArchivadas" -> 0L;
+                    case "contarPorEstado" -> datos.values().stream()
+                            .map(Partida.class::cast)
+                            .collect(Collectors.groupingBy(Partida::getEstado, Collectors.counting()));
+                    case "findCodigosByCodigoIn" -> datos.values().stream()
+                            .map(Partida.class::cast)
+                            .filter(p -> ((Collection<?>) args[0]).contains(p.getCodigo()))
+                            .toList();
+                    case "findByPartidaIdAndNumeroGreaterThanOrderByNumeroAsc" ->
+                            rondasDePartida(datos, (String) args[0], (int) args[1], (Limit) args[2]);
+                    case "toString" -> tipo.getSimpleName() + "(en memoria)";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> consultaDerivada(datos, propiedad(metodo.getName()), metodo, args);
+                });
+    }
+
+    private static List<Partida> partidasDeUsuario(Map<String, Object> datos, String estado, String userId) {
+        return datos.values().stream()
+                .map(Partida.class::cast)
+                .filter(p -> estado.equals(p.getEstado()))
+                .filter(p -> p.getJugadores().stream().anyMatch(j -> userId.equals(j.getUserId())))
+                .toList();
+    }
+
+    private static List<Ronda> rondasDePartida(Map<String, Object> datos, String partidaId, int desde, Limit limite) {
+        return datos.values().stream()
+                .map(Ronda.class::cast)
+                .filter(r -> partidaId.equals(r.getPartidaId()) && r.getNumero() > desde)
+                .sorted(Comparator.comparingInt(Ronda::getNumero))
+                .limit(limite.max())
+                .toList();
+    }
+
+    private static Object guardar(Map<String, Object> datos, Object entidad) {
+        BeanWrapperImpl bean = new BeanWrapperImpl(entidad);
+        if (bean.getPropertyValue("id") == null) {
+            bean.setPropertyValue("id", new ObjectId().toHexString());
+        }
+        datos.put((String) bean.getPropertyValue("id"), entidad);
+        return entidad;
+    }
+
+    private static String id(Object entidad) {
+        return (String) new BeanWrapperImpl(entidad).getPropertyValue("id");
+    }
+
+    /**
+     * findByX / findFirstByX / existsByX sobre una propiedad, comparando con equals.
+     */
+    private static Object consultaDerivada(Map<String, Object> datos, String propiedad, Method metodo, Object[] args) {
+        String campo = Character.toLowerCase(propiedad.charAt(0)) + propiedad.substring(1);
+        List<Object> encontrados = datos.values().stream()
+                .filter(e -> args[0].equals(new BeanWrapperImpl(e).getPropertyValue(campo)))
+                .toList();
+
+        if (metodo.getReturnType() == boolean.class) return !encontrados.isEmpty();
+        if (metodo.getReturnType() == Optional.class) return encontrados.stream().findFirst();
+        return encontrados;
+    }
+
+    private static String propiedad(String nombre) {
+        if (nombre.startsWith("findFirstBy")) return nombre.substring("findFirstBy".length());
+        if (nombre.startsWith("findBy")) return nombre.substring("findBy".length());
+        if (nombre.startsWith("existsBy")) return nombre.substring("existsBy".length());
+        throw new UnsupportedOperationException(nombre);
+    }
+}
@@ -0,0 +1,255 @@
+package com.juegocartas.juegocartas.config;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.Query;
+
+import com.juegocartas.juegocartas.repository.CartaRepository;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.juegocartas.juegocartas.repository.RondaRepository;
+import com.juegocartas.juegocartas.repository.UsuarioRepository;
+import com.mongodb.MongoException;
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+
+public class IndicesMongoTest {
+
+    /**
+     * Prefijos de las consultas derivadas del nombre en Spring Data.
+     */
+    private static final Pattern CONSULTA_DERIVADA =
+            Pattern.compile("(find|read|get|query|search|stream|count|exists)[A-Z]");
+
+    private MongoTemplate mongoTemplate;
+    private MongoCollection<Document> coleccion;
+    private FindIterable<Document> consulta;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        mongoTemplate = mock(MongoTemplate.class);
+        coleccion = mock(MongoCollection.class);
+        consulta = mock(FindIterable.class);
+        when(mongoTemplate.getCollection(anyString())).thenReturn(coleccion);
+        when(coleccion.find(any(Bson.class))).thenReturn(consulta);
+    }
+
+    @SuppressWarnings("unchecked")
+    private IndicesMongo indices(IndicesMongo.Verificacion verificacion) {
+        return new IndicesMongo(mock(ObjectProvider.class), verificacion, 120, 90);
+    }
+
+    private static Document plan(String etapa) {
+        return new Document("queryPlanner", new Document("winningPlan",
+                new Document("stage", "FETCH").append("inputStage", new Document("stage", etapa))));
+    }
+
+    @Test
+    public void crear_codigoDePartidasYCartasEsUnico() {
+        IndicesMongo.crear(mongoTemplate, IndicesMongo.Verificacion.AVISO);
+
+        ArgumentCaptor<IndexOptions> opciones = ArgumentCaptor.forClass(IndexOptions.class);
+        verify(coleccion, times(IndicesMongo.INDICES.size())).createIndex(any(Bson.class), opciones.capture());
+        List<String> unicos = opciones.getAllValues().stream()
+                .filter(IndexOptions::isUnique).map(IndexOptions::getName).toList();
+        assertEquals(List.of("codigo_1", "codigo_1", "username_1", "email_1"), unicos);
+    }
+
+    @Test
+    public void crear_conValoresRepetidos_noCreaElIndiceSinUnique() {
+        when(coleccion.createIndex(any(Bson.class), argThat(IndexOptions::isUnique)))
+                .thenThrow(new MongoException(11000, "E11000 duplicate key error"));
+
+        IndicesMongo.crear(mongoTemplate, IndicesMongo.Verificacion.AVISO);
+
+        // sólo los que nunca fueron únicos: uno sin unique con el mismo nombre impediría el único después
+        List<String> sinUnique = mockingDetails(coleccion).getInvocations().stream()
+                .filter(i -> i.getMethod().getName().equals("createIndex") && i.getArguments().length == 2)
+                .map(i -> (IndexOptions) i.getArgument(1))
+                .filter(o -> !o.isUnique())
+                .map(IndexOptions::getName)
+                .toList();
+        assertEquals(IndicesMongo.INDICES.stream().filter(i -> !i.unico()).map(IndicesMongo.Indice::nombre).toList(),
+                sinUnique);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void crear_reemplazaUnIndiceSinUniqueConElMismoNombre() {
+        when(coleccion.createIndex(any(Bson.class), argThat(o -> o != null && o.isUnique()
+                && "username_1".equals(o.getName()))))
+                .thenThrow(new MongoException(85, "Index with name: username_1 already exists with different options"))
+                .thenReturn("username_1");
+        ListIndexesIterable<Document> existentes = mock(ListIndexesIterable.class);
+        when(coleccion.listIndexes()).thenReturn(existentes);
+        when(existentes.into(any())).thenAnswer(inv -> {
+            List<Document> destino = inv.getArgument(0);
+            destino.add(new Document("name", "_id_"));
+            destino.add(new Document("name", "username_1").append("key", new Document("username", 1)));
+            return destino;
+        });
+
+        IndicesMongo.crear(mongoTemplate, IndicesMongo.Verificacion.AVISO);
+
+        verify(coleccion).dropIndex("username_1");
+        verify(coleccion, times(2)).createIndex(any(Bson.class),
+                argThat(o -> o != null && o.isUnique() && "username_1".equals(o.getName())));
+    }
+
+    @Test
+    public void sinConexion_seDetieneEnElPrimerError() {
+        when(mongoTemplate.executeCommand(any(Document.class)))
+                .thenThrow(new MongoTimeoutException("Timed out while waiting for a server"));
+
+        indices(IndicesMongo.Verificacion.FALLO).preparar(mongoTemplate);
+
+        verify(coleccion, never()).createIndex(any(Bson.class), any(IndexOptions.class));
+        verify(coleccion, never()).find(any(Bson.class));
+    }
+
+    @Test
+    public void sinConexion_aMitadDeLosIndices_noSigueConElResto() {
+        when(coleccion.createIndex(any(Bson.class), any(IndexOptions.class)))
+                .thenThrow(new MongoSocketOpenException("Exception opening socket", new ServerAddress()));
+
+        indices(IndicesMongo.Verificacion.AVISO).preparar(mongoTemplate);
+
+        verify(coleccion, times(1)).createIndex(any(Bson.class), any(IndexOptions.class));
+        verify(coleccion, never()).find(any(Bson.class));
+    }
+
+    @Test
+    public void fallo_conValoresRepetidos_detieneElArranqueSinCrearloSinUnique() {
+        when(coleccion.createIndex(any(Bson.class), argThat(IndexOptions::isUnique)))
+                .thenThrow(new MongoException(11000, "E11000 duplicate key error"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> indices(IndicesMongo.Verificacion.FALLO).preparar(mongoTemplate));
+
+        assertTrue(e.getMessage().contains("codigo_1"));
+        verify(coleccion, never()).createIndex(any(Bson.class),
+                argThat(o -> o != null && !o.isUnique() && "codigo_1".equals(o.getName())));
+    }
+
+    @Test
+    public void consultas_cubrenTodosLosMetodosDeConsultaDeLosRepositorios() {
+        Set<String> declaradas = IndicesMongo.CONSULTAS.stream().map(IndicesMongo.Consulta::nombre)
+                .collect(Collectors.toSet());
+        List<String> sinDeclarar = new ArrayList<>();
+        for (Class<?> repositorio : List.of(PartidaRepository.class, RondaRepository.class,
+                CartaRepository.class, UsuarioRepository.class)) {
+            for (Method metodo : repositorio.getDeclaredMethods()) {
+                if (metodo.isDefault() || Modifier.isStatic(metodo.getModifiers())) continue;
+                boolean consulta = metodo.isAnnotationPresent(Query.class)
+                        || CONSULTA_DERIVADA.matcher(metodo.getName()).lookingAt();
+                String nombre = repositorio.getSimpleName() + "." + metodo.getName();
+                if (consulta && !declaradas.contains(nombre)) sinDeclarar.add(nombre);
+            }
+        }
+        assertEquals(List.of(), sinDeclarar, "Añadir a IndicesMongo.CONSULTAS");
+    }
+
+    @Test
+    public void consultas_nombranMetodosQueExisten() {
+        for (IndicesMongo.Consulta consulta : IndicesMongo.CONSULTAS) {
+            String[] partes = consulta.nombre().split("\\.");
+            Class<?> repositorio = switch (partes[0]) {
+                case "PartidaRepository" -> PartidaRepository.class;
+                case "RondaRepository" -> RondaRepository.class;
+                case "CartaRepository" -> CartaRepository.class;
+                case "UsuarioRepository" -> UsuarioRepository.class;
+                default -> throw new AssertionError("Repositorio desconocido: " + consulta.nombre());
+            };
+            assertTrue(Arrays.stream(repositorio.getMethods()).anyMatch(m -> m.getName().equals(partes[1])),
+                    consulta.nombre());
+        }
+    }
+
+    @Test
+    public void preparar_creaElIndiceTtlParcialDeLasPartidasEnEspera() {
+        when(consulta.explain()).thenReturn(plan("IXSCAN"));
+
+        indices(IndicesMongo.Verificacion.AVISO).preparar(mongoTemplate);
+
+        verify(coleccion).createIndex(any(Bson.class), argThat(o -> o != null
+                && IndicesMongo.INDICE_ESPERA.equals(o.getName())
+                && o.getExpireAfter(TimeUnit.SECONDS) == 7200L
+                && o.getPartialFilterExpression() != null));
+    }
+
+    @Test
+    public void preparar_creaElIndiceTtlDeSesiones() {
+        when(consulta.explain()).thenReturn(plan("IXSCAN"));
+
+        indices(IndicesMongo.Verificacion.AVISO).preparar(mongoTemplate);
+
+        verify(coleccion).createIndex(any(Bson.class), argThat(o -> o != null
+                && IndicesMongo.INDICE_SESIONES.equals(o.getName())
+                && o.getExpireAfter(TimeUnit.SECONDS) == 90L));
+    }
+
+    @Test
+    public void caducidadEspera_conOtroPlazo_loCambiaConCollMod() {
+        when(coleccion.createIndex(any(Bson.class), argThat(o -> o != null && IndicesMongo.INDICE_ESPERA.equals(o.getName()))))
+                .thenThrow(new MongoException(85, "IndexOptionsConflict"));
+
+        IndicesMongo.caducidadEspera(mongoTemplate, 30);
+
+        verify(mongoTemplate).executeCommand(argThat((Document d) -> "partidas".equals(d.get("collMod"))
+                && Long.valueOf(1800L).equals(d.get("index", Document.class).get("expireAfterSeconds"))));
+    }
+
+    @Test
+    public void consultasSinIndice_detectaCollscan() {
+        when(consulta.explain()).thenReturn(plan("IXSCAN"), plan("COLLSCAN"), plan("IXSCAN"));
+
+        List<String> sinIndice = IndicesMongo.consultasSinIndice(mongoTemplate);
+
+        assertEquals(List.of("PartidaRepository.findByEstado"), sinIndice);
+    }
+
+    @Test
+    public void fallo_detieneElArranqueConCollscan() {
+        when(consulta.explain()).thenReturn(plan("COLLSCAN"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> indices(IndicesMongo.Verificacion.FALLO).preparar(mongoTemplate));
+        assertTrue(e.getMessage().contains("CartaRepository.findFirstByCodigo"));
+
+        // AVISO sólo lo registra
+        indices(IndicesMongo.Verificacion.AVISO).preparar(mongoTemplate);
+    }
+}
@@ -0,0 +1,297 @@
+package com.juegocartas.juegocartas.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.juegocartas.juegocartas.model.CartaEnMesa;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.model.Ronda;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * Compara los bytes enviados a MongoDB por save() (documento completo) y por las
+ * escrituras parciales en una partida avanzada (150 rondas jugadas). El historial de rondas
+ * está en su propia colección, así que el documento de la partida no crece con las rondas.
+ */
+public class PartidaMutationRepositoryImplTest {
+
+    private static final int RONDAS = 150;
+
+    private MappingMongoConverter converter;
+    private MongoCollection<Document> coleccion;
+    private MongoTemplate mongoTemplate;
+    private PartidaMutationRepositoryImpl repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        coleccion = mock(MongoCollection.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(Partida.class)).thenReturn("partidas");
+        when(mongoTemplate.getCollection("partidas")).thenReturn(coleccion);
+
+        repository = new PartidaMutationRepositoryImpl(mongoTemplate);
+    }
+
+    private Partida partidaAvanzada() {
+        Partida p = new Partida("LATE01");
+        p.setId("65f1a2b3c4d5e6f7a8b9c0d1");
+        p.setEstado("EN_CURSO");
+        p.setVersion(150L);
+        for (int i = 1; i <= 7; i++) {
+            Jugador j = new Jugador("j" + i, "u" + i, "Jugador" + i);
+            j.setOrden(i);
+            j.setConectado(true);
+            j.setCartasEnMano(new ArrayList<>(List.of(i + "A", i + "B", i + "C", i + "D")));
+            j.setNumeroCartas(4);
+            j.setCartaActual(i + "A");
+            p.getJugadores().add(j);
+        }
+        p.setRondasJugadas(RONDAS);
+        p.setTurnoActual("j1");
+        p.setAtributoSeleccionado("poder");
+        return p;
+    }
+
+    private static int bytes(Document documento) {
+        return new RawBsonDocument(documento, new DocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private int bytesSave(Partida p) {
+        Document documento = new Document();
+        converter.write(p, documento);
+        return bytes(documento);
+    }
+
+    @Test
+    public void cartaJugada_escribeMenosQueSave() {
+        Partida p = partidaAvanzada();
+        Jugador jugador = p.getJugadores().get(0);
+        String codigo = jugador.getCartasEnMano().remove(0);
+        jugador.setNumeroCartas(jugador.getCartasEnMano().size());
+        CartaEnMesa carta = new CartaEnMesa(jugador.getId(), codigo, 9000);
+        p.getCartasEnMesa().add(carta);
+
+        int completo = bytesSave(p);
+        int parcial = bytes(repository.updateCartaJugada(p, jugador, carta));
+        System.out.printf("carta jugada (%d rondas): save=%d bytes, parcial=%d bytes (x%.1f)%n",
+                RONDAS, completo, parcial, completo / (double) parcial);
+
+        assertTrue(parcial * 5 <= completo, "parcial=" + parcial + " completo=" + completo);
+    }
+
+    @Test
+    public void save_noCreceConLasRondasJugadas() {
+        Partida inicio = partidaAvanzada();
+        inicio.setRondasJugadas(1);
+
+        assertEquals(bytesSave(inicio), bytesSave(partidaAvanzada()));
+    }
+
+    @Test
+    public void cambios_escribeTodoMenosIdYVersion() {
+        Partida p = partidaAvanzada();
+
+        Document set = repository.cambios(p).get("$set", Document.class);
+
+        assertEquals(RONDAS, set.getInteger("rondasJugadas"));
+        assertFalse(set.containsKey("historialRondas"));
+        assertFalse(set.containsKey("_id"));
+        assertFalse(set.containsKey("version"));
+        // la fija el servidor con $currentDate
+        assertFalse(set.containsKey("ultimaActividad"));
+        // mismo formato que save(): sin alias de tipo en los elementos
+        assertFalse(set.getList("jugadores", Document.class).get(0).containsKey("_class"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void migrarHistorialRondas_copiaLasRondasYLasQuitaDeLaPartida() {
+        MongoCollection<Document> rondas = mock(MongoCollection.class);
+        when(mongoTemplate.getCollectionName(Ronda.class)).thenReturn("rondas");
+        when(mongoTemplate.getCollection("rondas")).thenReturn(rondas);
+        FindIterable<Document> consulta = mock(FindIterable.class);
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        when(coleccion.find(any(Bson.class))).thenReturn(consulta);
+        when(consulta.projection(any(Bson.class))).thenReturn(consulta);
+        when(consulta.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", "p1").append("codigo", "ABC123")
+                .append("historialRondas", List.of(
+                        new Document("numero", 1).append("ganador", "j1"),
+                        new Document("numero", 2).append("ganador", "j2"))));
+
+        assertEquals(1L, repository.migrarHistorialRondas());
+
+        ArgumentCaptor<List<WriteModel<Document>>> escrituras = ArgumentCaptor.forClass(List.class);
+        verify(rondas).bulkWrite(escrituras.capture(), any(BulkWriteOptions.class));
+        List<String> ids = escrituras.getValue().stream()
+                .map(m -> ((ReplaceOneModel<Document>) m).getReplacement().getString("_id")).toList();
+        assertEquals(List.of("p1:1", "p1:2"), ids);
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(coleccion).updateOne(any(Bson.class), update.capture());
+        String json = update.getValue().toBsonDocument().toJson();
+        assertTrue(json.contains("$unset") && json.contains("historialRondas"), json);
+        assertTrue(json.contains("rondasJugadas"), json);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void archivarFinalizadas_copiaAlArchivoYDevuelveSoloLasBorradas() {
+        MongoCollection<Document> archivo = mock(MongoCollection.class);
+        when(mongoTemplate.getCollection("partidas_archivo")).thenReturn(archivo);
+        FindIterable<Document> consulta = mock(FindIterable.class);
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        when(coleccion.find(any(Bson.class))).thenReturn(consulta);
+        when(consulta.limit(anyInt())).thenReturn(consulta);
+        when(consulta.into(any(Collection.class))).thenAnswer(i -> {
+            List<Document> destino = i.getArgument(0);
+            destino.add(new Document("_id", "p1").append("codigo", "FIN001").append("version", 7L));
+            destino.add(new Document("_id", "p2").append("codigo", "FIN002").append("version", 3L));
+            return destino;
+        });
+        // p2 se escribió después de leerla: no se borra
+        when(coleccion.bulkWrite(any(List.class), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.acknowledged(0, 0, 1, 0, List.of(), List.of()));
+        when(consulta.projection(any(Bson.class))).thenReturn(consulta);
+        when(consulta.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", "p2"));
+
+        List<String> archivadas = repository.archivarFinalizadas(Instant.now(), 100);
+
+        assertEquals(List.of("FIN001"), archivadas);
+        ArgumentCaptor<List<WriteModel<Document>>> copias = ArgumentCaptor.forClass(List.class);
+        verify(archivo).bulkWrite(copias.capture(), any(BulkWriteOptions.class));
+        assertEquals(2, copias.getValue().size());
+        assertTrue(((ReplaceOneModel<Document>) copias.getValue().get(0)).getReplacement().containsKey("archivadaEn"));
+        // la copia de p2 ya no es la última versión
+        ArgumentCaptor<Bson> quitadas = ArgumentCaptor.forClass(Bson.class);
+        verify(archivo).deleteMany(quitadas.capture());
+        assertTrue(quitadas.getValue().toBsonDocument().toJson().contains("p2"));
+    }
+
+    @Test
+    public void registrarCartaJugada_usaElOperadorPosicionalSobreElJugador() {
+        Partida p = partidaAvanzada();
+        Jugador jugador = p.getJugadores().get(2);
+        when(coleccion.updateOne(any(Bson.class), any(Bson.class))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        repository.registrarCartaJugada(p, jugador, new CartaEnMesa(jugador.getId(), "3A", 100));
+
+        ArgumentCaptor<Bson> filtro = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(coleccion).updateOne(filtro.capture(), update.capture());
+        assertTrue(filtro.getValue().toBsonDocument().toJson().contains("\"jugadores._id\""));
+        Document aplicado = (Document) update.getValue();
+        assertTrue(aplicado.get("$set", Document.class).containsKey("jugadores.$.cartasEnMano"));
+        assertTrue(aplicado.get("$push", Document.class).containsKey("cartasEnMesa"));
+    }
+
+    @Test
+    public void actualizar_filtraPorVersionYLaIncrementa() {
+        Partida p = partidaAvanzada();
+        when(coleccion.updateOne(any(Bson.class), any(Bson.class))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        repository.actualizarAtributo(p);
+
+        ArgumentCaptor<Bson> filtro = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(coleccion).updateOne(filtro.capture(), update.capture());
+        assertEquals(150L, ((Document) filtro.getValue()).get("version"));
+        assertEquals(1L, ((Document) update.getValue()).get("$inc", Document.class).get("version"));
+        assertEquals(true, ((Document) update.getValue()).get("$currentDate", Document.class).get("ultimaActividad"));
+        assertEquals(151L, p.getVersion());
+    }
+
+    @Test
+    public void actualizar_versionDesactualizada_lanzaConflicto() {
+        Partida p = partidaAvanzada();
+        when(coleccion.updateOne(any(Bson.class), any(Bson.class))).thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> repository.actualizarAtributo(p));
+        assertEquals(150L, p.getVersion());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void escribirCambios_otraEscrituraConLaMismaVersion_esConflicto() {
+        FindIterable<Document> consulta = mock(FindIterable.class);
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        List<Document> enMongo = new ArrayList<>();
+        when(coleccion.bulkWrite(any(List.class), any(BulkWriteOptions.class))).thenAnswer(i -> {
+            List<WriteModel<Document>> modelos = i.getArgument(0);
+            // p1 se aplicó; p2 no, pero otra instancia la escribió y también quedó en versión 6
+            Document aplicado = (Document) ((UpdateOneModel<Document>) modelos.get(0)).getUpdate();
+            enMongo.add(new Document("_id", "p1").append("version", 8L)
+                    .append("escritura", aplicado.get("$set", Document.class).get("escritura")));
+            enMongo.add(new Document("_id", "p2").append("version", 6L).append("escritura", new ObjectId()));
+            return BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of());
+        });
+        when(coleccion.find(any(Bson.class))).thenReturn(consulta);
+        when(consulta.projection(any(Bson.class))).thenReturn(consulta);
+        when(consulta.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(i -> !enMongo.isEmpty());
+        when(cursor.next()).thenAnswer(i -> enMongo.remove(0));
+
+        Set<String> conflictos = repository.escribirCambios(List.of(
+                new CambiosPartida("p1", 7L, new Document("$set", new Document("turnoActual", "j2"))),
+                new CambiosPartida("p2", 5L, new Document("$set", new Document("turnoActual", "j3")))));
+
+        assertEquals(Set.of("p2"), conflictos);
+    }
+
+    @Test
+    public void escribirCambios_sinCambios_noEscribe() {
+        repository.escribirCambios(List.of());
+        verify(coleccion, never()).bulkWrite(any());
+    }
+}
@@ -0,0 +1,253 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+public class ActiveGameRegistryTest {
+
+    private PartidaRepository partidaRepository;
+    private MetricsService metricsService;
+    private ActiveGameRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        partidaRepository = mock(PartidaRepository.class);
+        metricsService = new MetricsService();
+        when(partidaRepository.cambios(any(Partida.class))).thenReturn(new Document("$set", new Document()));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of());
+
+        registry = new ActiveGameRegistry(partidaRepository, metricsService,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, true, 100, 3);
+    }
+
+    private Partida partidaEnCurso(String codigo) {
+        Partida p = new Partida(codigo);
+        p.setId("id-" + codigo);
+        p.setEstado("EN_CURSO");
+        p.setVersion(0L);
+        Jugador a = new Jugador(); a.setId("p1"); a.setNombre("Player1");
+        Jugador b = new Jugador(); b.setId("p2"); b.setNombre("Player2");
+        p.setJugadores(new ArrayList<>(Arrays.asList(a, b)));
+        return p;
+    }
+
+    @Test
+    public void buscar_partidaEnCurso_quedaRegistradaYNoVuelveALeer() {
+        Partida p = partidaEnCurso("ACT1");
+        when(partidaRepository.findByCodigo("ACT1")).thenReturn(Optional.of(p));
+
+        Partida primera = registry.buscar("ACT1").orElseThrow();
+        Partida segunda = registry.buscar("ACT1").orElseThrow();
+
+        assertSame(primera, segunda);
+        assertTrue(registry.esActiva("ACT1"));
+        verify(partidaRepository, times(1)).findByCodigo("ACT1");
+    }
+
+    @Test
+    public void guardar_partidaEnCurso_seEscribeEnElFlushYNoEnElRepositorio() {
+        Partida p = partidaEnCurso("ACT2");
+        when(partidaRepository.findByCodigo("ACT2")).thenReturn(Optional.of(p));
+        registry.buscar("ACT2");
+
+        p.setAtributoSeleccionado("poder");
+        registry.guardar(p);
+        registry.guardar(p);
+
+        verify(partidaRepository, never()).save(any(Partida.class));
+        verify(partidaRepository, never()).escribirCambios(anyList());
+
+        registry.flushPendientes();
+        verify(partidaRepository, times(1)).escribirCambios(anyList());
+        assertEquals(1L, metricsService.contador("partidas.flush.documentos"));
+
+        // sin cambios nuevos no se vuelve a escribir
+        registry.flushPendientes();
+        verify(partidaRepository, times(1)).escribirCambios(anyList());
+    }
+
+    @Test
+    public void sinWriteBehind_unConflictoRepiteLaAccionEnLugarDePerderla() {
+        ActiveGameRegistry inmediato = new ActiveGameRegistry(partidaRepository, metricsService,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, false, 100, 3);
+        Partida original = partidaEnCurso("INM1");
+        Partida recargada = partidaEnCurso("INM1");
+        recargada.setVersion(1L);
+        when(partidaRepository.findByCodigo("INM1")).thenReturn(Optional.of(original), Optional.of(recargada));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of("id-INM1"), Set.of());
+
+        Partida escrita = inmediato.ejecutar("INM1", () -> {
+            Partida p = inmediato.buscar("INM1").orElseThrow();
+            p.setAtributoSeleccionado("poder");
+            inmediato.guardar(p);
+            return p;
+        });
+
+        // la acción se escribió (sobre la partida recargada) antes de terminar la operación
+        assertSame(recargada, escrita);
+        verify(partidaRepository, times(2)).escribirCambios(anyList());
+        assertEquals(0L, ((Number) metricsService.snapshot().get("partidas.modificadas")).longValue());
+        inmediato.flushPendientes();
+        verify(partidaRepository, times(2)).escribirCambios(anyList());
+    }
+
+    @Test
+    public void rehidratar_migraElHistorialDeRondasAunqueFalleLaVersion() {
+        when(partidaRepository.inicializarVersiones()).thenThrow(new RuntimeException("mongo"));
+        when(partidaRepository.findByEstado("EN_CURSO")).thenReturn(List.of(partidaEnCurso("R3")));
+
+        registry.rehidratar();
+
+        verify(partidaRepository).migrarHistorialRondas();
+        assertTrue(registry.esActiva("R3"));
+    }
+
+    @Test
+    public void guardar_conEscrituraParcial_partidaEnEspera_noReescribeElDocumento() {
+        Partida p = new Partida("ESP2");
+        p.setId("id-ESP2");
+        p.setEstado("EN_ESPERA");
+        Jugador nuevo = new Jugador(); nuevo.setId("p3");
+
+        registry.guardar(p, m -> m.agregarJugador(p, nuevo));
+
+        verify(partidaRepository).agregarJugador(eq(p), eq(nuevo));
+        verify(partidaRepository, never()).save(any(Partida.class));
+    }
+
+    @Test
+    public void guardarInmediato_partidaFinalizada_seEscribeYSeRetiraDelRegistro() {
+        Partida p = partidaEnCurso("ACT3");
+        when(partidaRepository.findByCodigo("ACT3")).thenReturn(Optional.of(p));
+        registry.buscar("ACT3");
+
+        p.setEstado("FINALIZADA");
+        registry.guardarInmediato(p);
+
+        verify(partidaRepository, times(1)).escribirCambios(anyList());
+        assertFalse(registry.esActiva("ACT3"));
+    }
+
+    @Test
+    public void guardar_partidaEnEspera_vaDirectoAlRepositorio() {
+        Partida p = new Partida("ESP1");
+        p.setEstado("EN_ESPERA");
+
+        registry.guardar(p);
+
+        verify(partidaRepository).save(p);
+        assertFalse(registry.esActiva("ESP1"));
+    }
+
+    @Test
+    public void olvidar_retiraLockYVersionDePartidasInexistentesPeroNoLasActivas() {
+        Partida espera = new Partida("ESP2");
+        espera.setEstado("EN_ESPERA");
+        registry.ejecutarVoid("ESP2", () -> registry.guardar(espera));
+        Partida enCurso = partidaEnCurso("ACT9");
+        when(partidaRepository.findByCodigo("ACT9")).thenReturn(Optional.of(enCurso));
+        registry.ejecutarVoid("ACT9", () -> registry.buscar("ACT9"));
+        long antes = registry.versionEstado("ESP2");
+
+        assertEquals(Set.of("ESP2"), registry.codigosRetenidos());
+        assertEquals(1, registry.olvidar(List.of("ESP2", "ACT9")));
+
+        assertTrue(registry.codigosRetenidos().isEmpty());
+        assertTrue(registry.esActiva("ACT9"));
+        // una vista construida con la versión anterior no vuelve a coincidir
+        assertNotEquals(antes, registry.versionEstado("ESP2"));
+        assertEquals("ok", registry.ejecutar("ESP2", () -> "ok"));
+    }
+
+    @Test
+    public void rehidratar_cargaLasPartidasEnCurso() {
+        when(partidaRepository.findByEstado("EN_CURSO"))
+                .thenReturn(List.of(partidaEnCurso("R1"), partidaEnCurso("R2")));
+
+        registry.rehidratar();
+
+        assertTrue(registry.esActiva("R1"));
+        assertTrue(registry.esActiva("R2"));
+        assertEquals(2L, metricsService.contador("partidas.rehidratadas"));
+    }
+
+    @Test
+    public void flush_conflictoDeVersion_descartaLaCopiaEnMemoria() {
+        Partida p = partidaEnCurso("CAS1");
+        when(partidaRepository.findByCodigo("CAS1")).thenReturn(Optional.of(p));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of("id-CAS1"));
+        registry.buscar("CAS1");
+
+        registry.guardar(p);
+        registry.flushPendientes();
+
+        assertFalse(registry.esActiva("CAS1"));
+        assertEquals(1L, metricsService.contador("partidas.flush.conflictos"));
+    }
+
+    @Test
+    public void ejecutar_conflicto_recargaLaPartidaYReintenta() {
+        Partida original = partidaEnCurso("CAS2");
+        Partida recargada = partidaEnCurso("CAS2");
+        recargada.setVersion(1L);
+        when(partidaRepository.findByCodigo("CAS2")).thenReturn(Optional.of(original), Optional.of(recargada));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of("id-CAS2"), Set.of());
+
+        AtomicInteger intentos = new AtomicInteger();
+        Partida escrita = registry.ejecutar("CAS2", () -> {
+            intentos.incrementAndGet();
+            Partida p = registry.buscar("CAS2").orElseThrow();
+            p.setAtributoSeleccionado("poder");
+            registry.guardarInmediato(p);
+            return p;
+        });
+
+        assertEquals(2, intentos.get());
+        assertNotSame(original, escrita);
+        assertEquals(2L, escrita.getVersion());
+        assertEquals(1L, metricsService.contador("partidas.cas.conflictos"));
+    }
+
+    @Test
+    public void ejecutar_conflictoPersistente_agotaLosIntentos() {
+        Partida p = partidaEnCurso("CAS3");
+        when(partidaRepository.findByCodigo("CAS3")).thenReturn(Optional.of(p));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of("id-CAS3"));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> registry.ejecutarVoid("CAS3", () -> {
+            Partida actual = registry.buscar("CAS3").orElseThrow();
+            registry.guardarInmediato(actual);
+        }));
+
+        verify(partidaRepository, times(3)).escribirCambios(anyList());
+        assertEquals(1L, metricsService.contador("partidas.cas.agotados"));
+    }
+}
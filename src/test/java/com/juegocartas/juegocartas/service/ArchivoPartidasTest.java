@@ -0,0 +1,109 @@
+package com.juegocartas.juegocartas.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+public class ArchivoPartidasTest {
+
+    private PartidaRepository partidaRepository;
+    private MetricsService metricsService;
+    private ActiveGameRegistry registry;
+    private SecuenciaEventos secuenciaEventos;
+
+    @BeforeEach
+    public void setup() {
+        partidaRepository = mock(PartidaRepository.class);
+        metricsService = new MetricsService();
+        when(partidaRepository.cambios(any(Partida.class))).thenReturn(new Document("$set", new Document()));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of());
+        registry = new ActiveGameRegistry(partidaRepository, metricsService,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, true, 100, 3);
+        secuenciaEventos = new SecuenciaEventos(metricsService, "SIMPLE", true);
+    }
+
+    private ArchivoPartidas archivo(long retencionMin, int loteMax) {
+        return new ArchivoPartidas(partidaRepository, registry, secuenciaEventos, metricsService, retencionMin, loteMax);
+    }
+
+    @Test
+    public void archivar_pideLotesHastaQueQuedaUnoIncompleto() {
+        when(partidaRepository.archivarFinalizadas(any(Instant.class), anyInt()))
+                .thenReturn(List.of("F1", "F2"), List.of("F3"));
+
+        assertEquals(3, archivo(60, 2).archivarFinalizadas());
+
+        verify(partidaRepository, times(2)).archivarFinalizadas(any(Instant.class), anyInt());
+        assertEquals(3L, metricsService.contador("partidas.archivo.archivadas"));
+    }
+
+    @Test
+    public void archivar_conRetencionCero_noArchiva() {
+        assertEquals(0, archivo(0, 2).archivarFinalizadas());
+
+        verify(partidaRepository, never()).archivarFinalizadas(any(Instant.class), anyInt());
+    }
+
+    @Test
+    public void purgarMemoria_retiraSoloLasPartidasQueNoEstanEnMongo() {
+        Partida espera = new Partida("ESP1");
+        espera.setEstado("EN_ESPERA");
+        registry.ejecutarVoid("ESP1", () -> registry.guardar(espera));
+        registry.ejecutarVoid("BORRADA", () -> { });
+        secuenciaEventos.siguiente("BORRADA");
+        secuenciaEventos.siguiente("ESP1");
+        when(partidaRepository.findCodigosByCodigoIn(anyCollection())).thenReturn(List.of(espera));
+
+        assertEquals(1, archivo(60, 500).purgarMemoria());
+
+        assertEquals(Set.of("ESP1"), registry.codigosRetenidos());
+        assertEquals(Set.of("ESP1"), secuenciaEventos.codigos());
+        assertEquals(1L, metricsService.contador("partidas.memoria.olvidadas"));
+    }
+
+    @Test
+    public void ejecutar_publicaLosConteosDePartidasVivasYArchivadas() {
+        when(partidaRepository.archivarFinalizadas(any(Instant.class), anyInt())).thenReturn(List.of());
+        when(partidaRepository.contarPorEstado()).thenReturn(Map.of("EN_ESPERA", 4L, "EN_CURSO", 2L));
+        when(partidaRepository.contarArchivadas()).thenReturn(9L);
+
+        archivo(60, 500).ejecutar();
+
+        Map<String, Object> metricas = metricsService.snapshot();
+        assertEquals(4L, ((Number) metricas.get("partidas.vivas.en_espera")).longValue());
+        assertEquals(2L, ((Number) metricas.get("partidas.vivas.en_curso")).longValue());
+        assertEquals(0L, ((Number) metricas.get("partidas.vivas.finalizada")).longValue());
+        assertEquals(9L, ((Number) metricas.get("partidas.archivadas")).longValue());
+    }
+
+    @Test
+    public void ejecutar_unFalloAlArchivarNoImpideContar() {
+        when(partidaRepository.archivarFinalizadas(any(Instant.class), anyInt()))
+                .thenThrow(new IllegalStateException("sin conexión"));
+        when(partidaRepository.contarPorEstado()).thenReturn(Map.of());
+
+        archivo(60, 500).ejecutar();
+
+        assertEquals(1L, metricsService.contador("partidas.archivo.errores"));
+        verify(partidaRepository).contarPorEstado();
+        verify(partidaRepository).contarArchivadas();
+    }
+}
@@ -0,0 +1,232 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juegocartas.juegocartas.service.impl.AsyncEventPublisher;
+import com.juegocartas.juegocartas.service.impl.SimpEventPublisher;
+
+public class AsyncEventPublisherTest {
+
+    private SimpEventPublisher delegado;
+    private MetricsService metricsService;
+    private List<String> enviados;
+
+    @BeforeEach
+    public void setup() {
+        delegado = mock(SimpEventPublisher.class);
+        metricsService = new MetricsService();
+        enviados = Collections.synchronizedList(new ArrayList<>());
+        // el delegado recibe los eventos ya serializados: se registra su JSON
+        doAnswer(inv -> enviados.add(inv.getArgument(0) + " " + inv.getArgument(1)))
+                .when(delegado).publish(anyString(), any());
+    }
+
+    private AsyncEventPublisher publisher(EventBatcher.Modo modo, int maxDragPendientes) {
+        return publisher(new EventBatcher(modo, metricsService), maxDragPendientes);
+    }
+
+    private AsyncEventPublisher publisher(EventBatcher batcher, int maxDragPendientes) {
+        return new AsyncEventPublisher(delegado, batcher, new EventSerializer(new ObjectMapper(), metricsService),
+                new SecuenciaEventos(metricsService, "SIMPLE", true), metricsService, maxDragPendientes);
+    }
+
+    private static Object json(String json) {
+        return argThat(evento -> evento != null && json.equals(evento.toString()));
+    }
+
+    @Test
+    public void mantieneElOrdenDeCadaPartidaEntreTopics() {
+        AsyncEventPublisher publisher = publisher(EventBatcher.Modo.INDIVIDUAL, 32);
+        List<String> esperados = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String topic = i % 3 == 0 ? "/topic/partida/ABC/counts" : "/topic/partida/ABC";
+            publisher.publish(topic, i);
+            publisher.publish("/topic/partida/XYZ", i);
+            esperados.add(topic + " " + i);
+        }
+
+        publisher.cerrar();
+
+        List<String> deAbc = enviados.stream().filter(e -> e.startsWith("/topic/partida/ABC")).toList();
+        assertEquals(esperados, deAbc);
+        assertEquals(1000, enviados.size());
+        assertEquals(0L, metricsService.snapshot().get("eventos.cola.pendientes"));
+        assertEquals(0, metricsService.snapshot().get("eventos.cola.partidas"));
+    }
+
+    @Test
+    public void encolaElLoteCerradoNoCadaEvento() {
+        EventBatcher batcher = new EventBatcher(EventBatcher.Modo.LOTES, metricsService);
+        AsyncEventPublisher publisher = publisher(batcher, 32);
+
+        batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "e1");
+            publisher.publish("/topic/partida/ABC", "e2");
+            return null;
+        });
+        publisher.cerrar();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object>> lote = ArgumentCaptor.forClass(List.class);
+        verify(delegado).publicarLote(eq("/topic/partida/ABC"), lote.capture());
+        assertEquals(List.of("\"e1\"", "\"e2\""), lote.getValue().stream().map(Object::toString).toList());
+        verify(delegado, never()).publish(eq("/topic/partida/ABC"), any());
+    }
+
+    @Test
+    public void serializaAlPublicarNoAlEnviar() {
+        CountDownLatch liberar = new CountDownLatch(1);
+        doAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegado).publish(eq("/topic/partida/ABC"), json("\"bloqueo\""));
+        AsyncEventPublisher publisher = publisher(EventBatcher.Modo.INDIVIDUAL, 32);
+        List<String> jugadores = new ArrayList<>(List.of("p1"));
+
+        publisher.publish("/topic/partida/ABC", "bloqueo");
+        publisher.publish("/topic/partida/ABC", jugadores);
+        // la partida sigue cambiando mientras el evento espera en la cola
+        jugadores.add("p2");
+        liberar.countDown();
+        publisher.cerrar();
+
+        assertEquals(List.of("/topic/partida/ABC [\"p1\"]"), enviados);
+    }
+
+    @Test
+    public void descartaDragCuandoLaColaEstaLlena() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        doAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegado).publish(eq("/topic/partida/ABC"), json("\"bloqueo\""));
+        AsyncEventPublisher publisher = publisher(EventBatcher.Modo.INDIVIDUAL, 2);
+
+        publisher.publish("/topic/partida/ABC", "bloqueo");
+        for (int i = 0; i < 5; i++) {
+            publisher.publish("/topic/partida/ABC/drag", i);
+        }
+        publisher.publish("/topic/partida/ABC", "juego");
+        liberar.countDown();
+        publisher.cerrar();
+
+        assertEquals(3L, metricsService.contador("eventos.cola.drag.descartados"));
+        verify(delegado, times(2)).publish(eq("/topic/partida/ABC/drag"), any());
+        assertTrue(enviados.contains("/topic/partida/ABC \"juego\""));
+    }
+
+    @Test
+    public void conLaColaDeDragLlena_elInicioYLaSueltaNoSeDescartan() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        doAnswer(inv -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegado).publish(eq("/topic/partida/ABC"), json("\"bloqueo\""));
+        AsyncEventPublisher publisher = publisher(EventBatcher.Modo.INDIVIDUAL, 2);
+
+        publisher.publish("/topic/partida/ABC", "bloqueo");
+        publisher.publishSinDescartar("/topic/partida/ABC/drag", "inicio");
+        publisher.publish("/topic/partida/ABC/drag", "movimiento1");
+        publisher.publish("/topic/partida/ABC/drag", "movimiento2");
+        publisher.publishSinDescartar("/topic/partida/ABC/drag", "suelta");
+        liberar.countDown();
+        publisher.cerrar();
+
+        assertEquals(1L, metricsService.contador("eventos.cola.drag.descartados"));
+        assertEquals(List.of(
+                "/topic/partida/ABC/drag \"inicio\"",
+                "/topic/partida/ABC/drag \"movimiento1\"",
+                "/topic/partida/ABC/drag \"suelta\""),
+                enviados.stream().filter(e -> e.startsWith("/topic/partida/ABC/drag")).toList());
+    }
+
+    @Test
+    public void unErrorDeEnvioNoDetieneLaCola() {
+        doAnswer(inv -> {
+            throw new IllegalStateException("sesión cerrada");
+        }).when(delegado).publish(eq("/topic/partida/ABC"), json("\"falla\""));
+        AsyncEventPublisher publisher = publisher(EventBatcher.Modo.INDIVIDUAL, 32);
+
+        publisher.publish("/topic/partida/ABC", "falla");
+        publisher.publish("/topic/partida/ABC", "sigue");
+        publisher.cerrar();
+
+        assertEquals(1L, metricsService.contador("eventos.cola.errores"));
+        assertEquals(List.of("/topic/partida/ABC \"sigue\""), enviados);
+    }
+
+    @Test
+    public void numeraLosEventosDeCadaPartida() {
+        AsyncEventPublisher publisher = publisher(EventBatcher.Modo.INDIVIDUAL, 32);
+
+        publisher.publish("/topic/partida/ABC", Map.of("tipo", "A"));
+        publisher.publish("/topic/partida/ABC/counts", Map.of("tipo", "B"));
+        publisher.publish("/topic/partida/ABC/drag", Map.of("tipo", "D"));
+        publisher.publish("/topic/partida/XYZ", Map.of("tipo", "C"));
+        publisher.publish("/topic/partida/ABC", Map.of());
+        publisher.cerrar();
+
+        assertEquals(List.of(
+                "/topic/partida/ABC {\"seq\":1,\"tipo\":\"A\"}",
+                "/topic/partida/ABC/counts {\"seq\":2,\"tipo\":\"B\"}",
+                "/topic/partida/ABC/drag {\"tipo\":\"D\"}",
+                "/topic/partida/ABC {\"seq\":3}"),
+                enviados.stream().filter(e -> e.startsWith("/topic/partida/ABC")).toList());
+        assertTrue(enviados.contains("/topic/partida/XYZ {\"seq\":1,\"tipo\":\"C\"}"));
+    }
+
+    @Test
+    public void conBrokerRelay_noNumera() {
+        AsyncEventPublisher publisher = new AsyncEventPublisher(delegado,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService),
+                new EventSerializer(new ObjectMapper(), metricsService),
+                new SecuenciaEventos(metricsService, "RELAY", true), metricsService, 32);
+
+        publisher.publish("/topic/partida/ABC", Map.of("tipo", "A"));
+        publisher.publish("/topic/partida/ABC/counts", Map.of("tipo", "B"));
+        publisher.cerrar();
+
+        assertEquals(List.of("/topic/partida/ABC {\"tipo\":\"A\"}", "/topic/partida/ABC/counts {\"tipo\":\"B\"}"),
+                enviados);
+    }
+
+    @Test
+    public void numeraCadaEventoDelLote() {
+        EventBatcher batcher = new EventBatcher(EventBatcher.Modo.LOTES, metricsService);
+        AsyncEventPublisher publisher = publisher(batcher, 32);
+
+        batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", Map.of("tipo", "A"));
+            publisher.publish("/topic/partida/ABC", Map.of("tipo", "B"));
+            return null;
+        });
+        publisher.cerrar();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object>> lote = ArgumentCaptor.forClass(List.class);
+        verify(delegado).publicarLote(eq("/topic/partida/ABC"), lote.capture());
+        assertEquals(List.of("{\"seq\":1,\"tipo\":\"A\"}", "{\"seq\":2,\"tipo\":\"B\"}"),
+                lote.getValue().stream().map(Object::toString).toList());
+    }
+}
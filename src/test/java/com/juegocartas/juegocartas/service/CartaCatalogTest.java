@@ -0,0 +1,106 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juegocartas.juegocartas.model.Carta;
+import com.juegocartas.juegocartas.repository.CartaRepository;
+import com.juegocartas.juegocartas.util.TransformacionMultiplicador;
+
+public class CartaCatalogTest {
+
+    private CartaRepository cartaRepository;
+    private MetricsService metricsService;
+    private CartaCatalog catalog;
+
+    @BeforeEach
+    public void setup() {
+        cartaRepository = mock(CartaRepository.class);
+        metricsService = new MetricsService();
+        catalog = new CartaCatalog(cartaRepository, metricsService);
+    }
+
+    private static Carta carta(String codigo, int poder) {
+        Carta c = new Carta(codigo, "DB_" + codigo);
+        c.setAtributos(Map.of("poder", poder, "velocidad", poder / 2));
+        return c;
+    }
+
+    @Test
+    public void buscar_cargaUnaVezYNoVuelveAConsultarMongo() {
+        Carta goku = carta("1A", 9000);
+        when(cartaRepository.findAll()).thenReturn(List.of(goku, carta("1B", 8000)));
+
+        assertSame(goku, catalog.buscar("1A").orElseThrow());
+        assertSame(goku, catalog.buscar("1A").orElseThrow());
+
+        verify(cartaRepository, times(1)).findAll();
+        verify(cartaRepository, never()).findFirstByCodigo("1A");
+        assertEquals(2L, metricsService.contador("cartas.catalogo.aciertos"));
+        assertEquals(List.of("1A", "1B"), catalog.codigos());
+    }
+
+    @Test
+    public void buscar_codigoDesconocido_consultaElRepositorioYCuentaFallo() {
+        Carta externa = carta("9Z", 100);
+        when(cartaRepository.findAll()).thenReturn(List.of(carta("1A", 9000)));
+        when(cartaRepository.findFirstByCodigo("9Z")).thenReturn(Optional.of(externa));
+
+        assertSame(externa, catalog.buscar("9Z").orElseThrow());
+        assertEquals(1L, metricsService.contador("cartas.catalogo.fallos"));
+    }
+
+    @Test
+    public void valorAtributo_usaLosValoresPrecalculados() {
+        Carta goku = carta("1A", 9000);
+        when(cartaRepository.findAll()).thenReturn(List.of(goku));
+
+        assertEquals(9000, catalog.valorAtributo(goku, "poder"));
+        assertEquals(4500, catalog.valorAtributo(goku, "velocidad"));
+        assertEquals(0, catalog.valorAtributo(goku, "defensa"));
+    }
+
+    @Test
+    public void recargar_sustituyeElSnapshotCompleto() {
+        when(cartaRepository.findAll()).thenReturn(List.of(carta("1A", 9000)));
+        catalog.recargar();
+
+        Carta nueva = carta("1A", 12000);
+        when(cartaRepository.findAll()).thenReturn(List.of(nueva, carta("2A", 500)));
+        catalog.recargar();
+
+        assertSame(nueva, catalog.buscar("1A").orElseThrow());
+        assertEquals(12000, catalog.valorAtributo(nueva, "poder"));
+        assertEquals(2, catalog.todas().size());
+        assertEquals(2L, metricsService.contador("cartas.catalogo.recargas"));
+        assertTrue(metricsService.snapshot().containsKey("cartas.catalogo.recarga"));
+    }
+
+    @Test
+    public void multiplicador_precalculadoIgualAlCalculado() {
+        Carta goku = carta("1A", 9000);
+        goku.setKiOriginal("60.000.000");
+        goku.setTransformaciones(List.of(
+                new Carta.Transformacion("Super Saiyan", null, "3 Billion"),
+                new Carta.Transformacion("Super Saiyan Blue", null, "100 Septillion")));
+        when(cartaRepository.findAll()).thenReturn(List.of(goku));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(TransformacionMultiplicador.calcularMultiplicador(goku, i), catalog.multiplicador(goku, i));
+        }
+        assertEquals(1.0, catalog.multiplicador(goku, 2));
+        assertEquals(1.0, catalog.multiplicador(goku, -1));
+    }
+}
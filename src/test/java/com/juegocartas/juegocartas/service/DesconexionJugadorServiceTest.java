@@ -0,0 +1,102 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+import com.juegocartas.juegocartas.service.impl.InMemorySessionRegistry;
+
+public class DesconexionJugadorServiceTest {
+
+    private EstadoPartidaPublisher estadoPartidaPublisher;
+    private SessionRegistry sessionRegistry;
+    private DesconexionJugadorService service;
+    private Jugador jugador;
+    private Jugador otro;
+    private Jugador tercero;
+
+    @BeforeEach
+    public void setup() {
+        PartidaRepository partidaRepository = mock(PartidaRepository.class);
+        MetricsService metricsService = new MetricsService();
+        when(partidaRepository.cambios(any(Partida.class))).thenReturn(new Document("$set", new Document()));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of());
+        ActiveGameRegistry registry = new ActiveGameRegistry(partidaRepository, metricsService,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, true, 100, 3);
+
+        Partida partida = new Partida("ABC");
+        partida.setId("id-ABC");
+        partida.setEstado("EN_CURSO");
+        jugador = new Jugador(); jugador.setId("p1"); jugador.setNombre("Player1");
+        jugador.setConectado(true);
+        otro = new Jugador(); otro.setId("p2"); otro.setNombre("Player2");
+        otro.setConectado(true);
+        tercero = new Jugador(); tercero.setId("p3"); tercero.setNombre("Player3");
+        tercero.setConectado(true);
+        partida.setJugadores(new ArrayList<>(List.of(jugador, otro, tercero)));
+        when(partidaRepository.findByCodigo("ABC")).thenReturn(Optional.of(partida));
+
+        estadoPartidaPublisher = mock(EstadoPartidaPublisher.class);
+        sessionRegistry = new InMemorySessionRegistry(metricsService);
+        service = new DesconexionJugadorService(registry, estadoPartidaPublisher, sessionRegistry, metricsService);
+    }
+
+    @Test
+    public void sinSesiones_marcaDesconectadoYPublica() {
+        service.marcarDesconectado("p1", "ABC");
+
+        assertFalse(jugador.isConectado());
+        verify(estadoPartidaPublisher).desconectados(any(Partida.class), eq(List.of(jugador)));
+    }
+
+    @Test
+    public void conOtraSesionAbierta_noLoMarca() {
+        sessionRegistry.registrarJugador("s2", "p1");
+
+        service.marcarDesconectado("p1", "ABC");
+
+        assertTrue(jugador.isConectado());
+        verify(estadoPartidaPublisher, never()).desconectados(any(Partida.class), anyList());
+    }
+
+    @Test
+    public void variosDeLaMismaPartida_unaSolaPublicacion() {
+        sessionRegistry.registrarJugador("s3", "p3");
+
+        service.marcarDesconectados("ABC", List.of("p1", "p2", "p3"));
+
+        assertFalse(jugador.isConectado());
+        assertFalse(otro.isConectado());
+        assertTrue(tercero.isConectado());
+        verify(estadoPartidaPublisher).desconectados(any(Partida.class), eq(List.of(jugador, otro)));
+    }
+
+    @Test
+    public void registroEnMemoria_conservaJugadorYPartida() {
+        sessionRegistry.registrarJugador("s1", "p1");
+        sessionRegistry.registrarPartida("s1", "ABC");
+
+        SessionRegistry.Sesion sesion = sessionRegistry.eliminar("s1").orElseThrow();
+        assertEquals("p1", sesion.jugadorId());
+        assertEquals("ABC", sesion.partidaCodigo());
+        assertFalse(sessionRegistry.tieneSesiones("p1"));
+    }
+}
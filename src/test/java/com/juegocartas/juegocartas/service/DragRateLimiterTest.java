@@ -0,0 +1,110 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DragRateLimiterTest {
+
+    private final AtomicLong reloj = new AtomicLong(1_000_000_000L);
+    private MetricsService metricsService;
+    private DragRateLimiter limiter;
+
+    @BeforeEach
+    public void setup() {
+        metricsService = new MetricsService();
+        // 20/s (un token cada 50 ms), ráfaga de 5, inactivo tras 1 s
+        limiter = new DragRateLimiter(metricsService, 20, 5, 1000, reloj::get);
+    }
+
+    private void avanzar(long ms) {
+        reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    @Test
+    public void rafagaYLuegoUnTokenCada50ms() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.intentar("p1"));
+        }
+        assertFalse(limiter.intentar("p1"));
+
+        avanzar(49);
+        assertFalse(limiter.intentar("p1"));
+        avanzar(1);
+        assertTrue(limiter.intentar("p1"));
+        assertFalse(limiter.intentar("p1"));
+
+        assertEquals(6, metricsService.contador("drag.aceptados"));
+        assertEquals(3, metricsService.contador("drag.limitados"));
+    }
+
+    @Test
+    public void cadaJugadorTieneSuBucket() {
+        for (int i = 0; i < 5; i++) {
+            limiter.intentar("p1");
+        }
+        assertFalse(limiter.intentar("p1"));
+        assertTrue(limiter.intentar("p2"));
+    }
+
+    @Test
+    public void tiempoSinEventos_rellenaHastaLaRafaga() {
+        for (int i = 0; i < 5; i++) {
+            limiter.intentar("p1");
+        }
+        avanzar(10_000);
+
+        int aceptados = 0;
+        while (limiter.intentar("p1")) aceptados++;
+        assertEquals(5, aceptados);
+    }
+
+    @Test
+    public void concurrentes_noGastanDosVecesElMismoToken() throws Exception {
+        int hilos = 8;
+        AtomicInteger aceptados = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Thread t = new Thread(() -> {
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.intentar("p1")) aceptados.incrementAndGet();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        salida.countDown();
+        for (Thread t : threads) t.join();
+
+        // el reloj no avanza: sólo la ráfaga
+        assertEquals(5, aceptados.get());
+        assertEquals(hilos * 1000 - 5, metricsService.contador("drag.limitados"));
+    }
+
+    @Test
+    public void purgar_retiraLosInactivos() {
+        limiter.intentar("p1");
+        avanzar(600);
+        limiter.intentar("p2");
+        avanzar(500);
+
+        limiter.purgar();
+
+        assertEquals(1, limiter.jugadores());
+    }
+}
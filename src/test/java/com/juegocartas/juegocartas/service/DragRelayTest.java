@@ -0,0 +1,122 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.juegocartas.juegocartas.dto.event.DragFrameEvent;
+import com.juegocartas.juegocartas.dto.event.PlayerDragEvent;
+
+public class DragRelayTest {
+
+    private static final String TOPIC = "/topic/partida/ABC/drag";
+
+    private final List<Object> publicados = new ArrayList<>();
+    private final List<Object> sinDescartar = new ArrayList<>();
+    private MetricsService metricsService;
+    private DragRelay relay;
+
+    private final EventPublisher publicador = new EventPublisher() {
+        @Override
+        public void publish(String topic, Object payload) {
+            assertEquals(TOPIC, topic);
+            publicados.add(payload);
+        }
+
+        @Override
+        public void publishSinDescartar(String topic, Object payload) {
+            publish(topic, payload);
+            sinDescartar.add(payload);
+        }
+
+        @Override
+        public void publishToUser(String user, String destination, Object payload) {
+        }
+
+        @Override
+        public void publishToSession(String sessionId, String subscriptionId, String destination, Object payload) {
+        }
+    };
+
+    @BeforeEach
+    public void setup() {
+        metricsService = new MetricsService();
+        // intervalo largo: los fotogramas se emiten a mano con emitir()
+        relay = new DragRelay(publicador, metricsService, DragRelay.Modo.FOTOGRAMAS, 3_600_000);
+    }
+
+    private static PlayerDragEvent evento(String jugadorId, boolean dragging, double x) {
+        PlayerDragEvent e = new PlayerDragEvent(jugadorId, jugadorId, dragging);
+        e.setNormalizedX(x);
+        e.setNormalizedY(0.5);
+        return e;
+    }
+
+    @Test
+    public void directo_reenviaCadaEvento() {
+        DragRelay directo = new DragRelay(publicador, metricsService, DragRelay.Modo.DIRECTO, 33);
+        directo.reenviar("ABC", evento("p1", true, 0.1));
+        directo.reenviar("ABC", evento("p1", true, 0.2));
+        PlayerDragEvent suelta = evento("p1", false, 0.3);
+        directo.reenviar("ABC", suelta);
+
+        assertEquals(3, publicados.size());
+        // sólo la suelta no puede descartarse
+        assertEquals(List.of(suelta), sinDescartar);
+    }
+
+    @Test
+    public void inicioAlMomento_movimientosEnUnFotogramaConLaUltimaPosicion() {
+        PlayerDragEvent inicio = evento("p1", true, 0.1);
+        relay.reenviar("ABC", inicio);
+        assertEquals(1, publicados.size());
+        assertSame(inicio, publicados.get(0));
+
+        relay.reenviar("ABC", evento("p1", true, 0.2));
+        PlayerDragEvent ultimo = evento("p1", true, 0.3);
+        relay.reenviar("ABC", ultimo);
+        relay.reenviar("ABC", evento("p2", true, 0.7));
+        PlayerDragEvent p2 = evento("p2", true, 0.8);
+        relay.reenviar("ABC", p2);
+        // el inicio de p2 también sale al momento
+        assertEquals(2, publicados.size());
+
+        relay.emitir();
+        assertEquals(3, publicados.size());
+        DragFrameEvent fotograma = (DragFrameEvent) publicados.get(2);
+        // los inicios no pueden descartarse; el fotograma sí
+        assertEquals(List.of(inicio, publicados.get(1)), sinDescartar);
+        assertEquals("DRAG_FRAME", fotograma.getTipo());
+        assertEquals(List.of(ultimo, p2), fotograma.getPosiciones());
+        assertEquals(1, metricsService.contador("drag.relay.descartados"));
+
+        // sin movimientos nuevos no hay fotograma
+        relay.emitir();
+        assertEquals(3, publicados.size());
+    }
+
+    @Test
+    public void suelta_descartaElMovimientoPendienteYSaleAlMomento() {
+        relay.reenviar("ABC", evento("p1", true, 0.1));
+        relay.reenviar("ABC", evento("p1", true, 0.2));
+        PlayerDragEvent suelta = evento("p1", false, 0.3);
+        relay.reenviar("ABC", suelta);
+
+        assertEquals(2, publicados.size());
+        assertSame(suelta, publicados.get(1));
+        assertSame(suelta, sinDescartar.get(1));
+
+        relay.emitir();
+        assertEquals(2, publicados.size());
+
+        // el siguiente arrastre vuelve a empezar con un inicio inmediato
+        relay.reenviar("ABC", evento("p1", true, 0.4));
+        assertEquals(3, publicados.size());
+        assertTrue(publicados.get(2) instanceof PlayerDragEvent);
+    }
+}
@@ -0,0 +1,155 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juegocartas.juegocartas.dto.event.JugadorConexionEvent;
+import com.juegocartas.juegocartas.dto.event.JugadorSalioEvent;
+import com.juegocartas.juegocartas.dto.event.JugadorUnidoEvent;
+import com.juegocartas.juegocartas.dto.event.JugadoresDesconectadosEvent;
+import com.juegocartas.juegocartas.dto.event.ManoActualizadaEvent;
+import com.juegocartas.juegocartas.dto.response.PartidaResponse;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+
+public class EstadoPartidaPublisherTest {
+
+    private EventPublisher eventPublisher;
+    private Partida partida;
+    private Jugador jugador;
+
+    @BeforeEach
+    public void setup() {
+        eventPublisher = mock(EventPublisher.class);
+        partida = new Partida("ABC");
+        jugador = new Jugador(); jugador.setId("p2"); jugador.setNombre("Player2"); jugador.setOrden(2);
+        jugador.setUserId("u2");
+        jugador.setConectado(true);
+        jugador.setCartasEnMano(new ArrayList<>(List.of("1A", "2B")));
+        jugador.setNumeroCartas(2);
+        partida.setJugadores(new ArrayList<>(List.of(jugador)));
+    }
+
+    private Object publicado() {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publish(eq("/topic/partida/ABC"), payload.capture());
+        return payload.getValue();
+    }
+
+    @Test
+    public void modoCompleto_publicaPartidaResponse() {
+        EstadoPartidaPublisher publisher = new EstadoPartidaPublisher(eventPublisher, EstadoPartidaPublisher.Modo.COMPLETO);
+
+        publisher.jugadorUnido(partida, jugador);
+
+        assertTrue(publicado() instanceof PartidaResponse);
+    }
+
+    @Test
+    public void modoDeltas_jugadorUnidoSinCartas() {
+        EstadoPartidaPublisher publisher = new EstadoPartidaPublisher(eventPublisher, EstadoPartidaPublisher.Modo.DELTAS);
+
+        publisher.jugadorUnido(partida, jugador);
+
+        JugadorUnidoEvent evento = (JugadorUnidoEvent) publicado();
+        assertEquals("p2", evento.getJugador().getId());
+        assertEquals(2, evento.getJugador().getNumeroCartas());
+        assertEquals(1, evento.getTotalJugadores());
+    }
+
+    @Test
+    public void modoDeltas_conexionYSalida() {
+        EstadoPartidaPublisher publisher = new EstadoPartidaPublisher(eventPublisher, EstadoPartidaPublisher.Modo.DELTAS);
+        jugador.setConectado(false);
+
+        publisher.conexionCambiada(partida, jugador);
+
+        JugadorConexionEvent conexion = (JugadorConexionEvent) publicado();
+        assertEquals("p2", conexion.getJugadorId());
+        assertFalse(conexion.isConectado());
+
+        EventPublisher otro = mock(EventPublisher.class);
+        partida.setTurnoActual("p2");
+        new EstadoPartidaPublisher(otro, EstadoPartidaPublisher.Modo.DELTAS).jugadorSalio(partida, "p3");
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(otro).publish(eq("/topic/partida/ABC"), payload.capture());
+        JugadorSalioEvent salida = (JugadorSalioEvent) payload.getValue();
+        assertEquals("p3", salida.getJugadorId());
+        assertEquals("p2", salida.getTurnoActual());
+    }
+
+    @Test
+    public void modoDeltas_reordenarManoSoloEnviaLaManoAlJugador() {
+        EstadoPartidaPublisher publisher = new EstadoPartidaPublisher(eventPublisher, EstadoPartidaPublisher.Modo.DELTAS);
+
+        publisher.manoReordenada(partida, jugador);
+
+        verify(eventPublisher, never()).publish(anyString(), any());
+        verify(eventPublisher).publishToUser(eq("u2"), eq("/queue/partida/ABC/mano"), any(ManoActualizadaEvent.class));
+    }
+
+    @Test
+    public void manoSoloAlUsuarioDelJugador() throws Exception {
+        EstadoPartidaPublisher publisher = new EstadoPartidaPublisher(eventPublisher, EstadoPartidaPublisher.Modo.COMPLETO);
+
+        publisher.manoReordenada(partida, jugador);
+
+        String topic = new ObjectMapper().writeValueAsString(publicado());
+        assertFalse(topic.contains("1A"));
+        assertFalse(topic.contains("u2"));
+
+        ArgumentCaptor<Object> mano = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishToUser(eq("u2"), eq("/queue/partida/ABC/mano"), mano.capture());
+        ManoActualizadaEvent evento = (ManoActualizadaEvent) mano.getValue();
+        assertEquals(List.of("1A", "2B"), evento.getJugador().getCartasEnMano());
+
+        // la copia no cambia con la partida
+        jugador.getCartasEnMano().clear();
+        assertEquals(2, evento.getJugador().getCartasEnMano().size());
+    }
+
+    @Test
+    public void reconexion_enviaLaManoYDesconexionNo() {
+        EstadoPartidaPublisher publisher = new EstadoPartidaPublisher(eventPublisher, EstadoPartidaPublisher.Modo.DELTAS);
+        jugador.setConectado(false);
+        publisher.conexionCambiada(partida, jugador);
+        verify(eventPublisher, never()).publishToUser(anyString(), anyString(), any());
+
+        jugador.setConectado(true);
+        publisher.conexionCambiada(partida, jugador);
+        verify(eventPublisher).publishToUser(eq("u2"), eq("/queue/partida/ABC/mano"), any(ManoActualizadaEvent.class));
+    }
+
+    @Test
+    public void variosDesconectados_unSoloMensaje() {
+        Jugador otro = new Jugador(); otro.setId("p3"); otro.setNombre("Player3");
+        partida.getJugadores().add(otro);
+        jugador.setConectado(false);
+
+        new EstadoPartidaPublisher(eventPublisher, EstadoPartidaPublisher.Modo.DELTAS)
+                .desconectados(partida, List.of(jugador, otro));
+
+        JugadoresDesconectadosEvent evento = (JugadoresDesconectadosEvent) publicado();
+        assertEquals(List.of("p2", "p3"), evento.getJugadorIds());
+        verify(eventPublisher, never()).publishToUser(anyString(), anyString(), any());
+
+        EventPublisher completo = mock(EventPublisher.class);
+        new EstadoPartidaPublisher(completo, EstadoPartidaPublisher.Modo.COMPLETO)
+                .desconectados(partida, List.of(jugador, otro));
+        verify(completo).publish(eq("/topic/partida/ABC"), any(PartidaResponse.class));
+    }
+}
@@ -0,0 +1,223 @@
+package com.juegocartas.juegocartas.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juegocartas.juegocartas.service.impl.SimpEventPublisher;
+
+public class EventBatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpMessagingTemplate template;
+    private MessageChannel clientOutboundChannel;
+    private MetricsService metricsService;
+
+    @BeforeEach
+    public void setup() {
+        template = mock(SimpMessagingTemplate.class);
+        clientOutboundChannel = mock(MessageChannel.class);
+        metricsService = new MetricsService();
+    }
+
+    private EventBatcher batcher(EventBatcher.Modo modo) {
+        return new EventBatcher(modo, metricsService);
+    }
+
+    private SimpEventPublisher publisher(EventBatcher batcher) {
+        return new SimpEventPublisher(template, batcher, new EventSerializer(objectMapper, metricsService),
+                clientOutboundChannel);
+    }
+
+    /**
+     * JSON de los mensajes enviados a un destino, en orden.
+     */
+    private List<String> enviados(String destino) {
+        return mockingDetails(template).getInvocations().stream()
+                .filter(i -> i.getMethod().getName().equals("send") && i.getArguments().length == 2)
+                .filter(i -> destino.equals(i.getArgument(0)))
+                .map(i -> new String((byte[]) ((Message<?>) i.getArgument(1)).getPayload(), StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    /**
+     * Eventos (como texto) de cada EventBatch enviado a un destino.
+     */
+    private List<List<String>> lotes(String destino) throws Exception {
+        List<List<String>> lotes = new ArrayList<>();
+        for (String json : enviados(destino)) {
+            JsonNode lote = objectMapper.readTree(json);
+            assertEquals("EVENT_BATCH", lote.get("tipo").asText());
+            List<String> eventos = new ArrayList<>();
+            lote.get("eventos").forEach(e -> eventos.add(e.asText()));
+            assertEquals(eventos.size(), lote.get("total").asInt());
+            lotes.add(eventos);
+        }
+        return lotes;
+    }
+
+    @Test
+    public void modoIndividual_publicaCadaEventoAlTerminarLaOperacion() {
+        EventBatcher batcher = batcher(EventBatcher.Modo.INDIVIDUAL);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "e1");
+            publisher.publish("/topic/partida/ABC/counts", "c1");
+            verifyNoInteractions(template);
+            return null;
+        });
+
+        assertEquals(List.of("\"e1\""), enviados("/topic/partida/ABC"));
+        assertEquals(List.of("\"c1\""), enviados("/topic/partida/ABC/counts"));
+        assertTrue(enviados("/topic/partida/ABC/lote").isEmpty());
+    }
+
+    @Test
+    public void modoIndividual_conflictoDeVersion_noEnviaNadaDelIntento() {
+        EventBatcher batcher = batcher(EventBatcher.Modo.INDIVIDUAL);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "e1");
+            publisher.publishToUser("u1", "/queue/partida/ABC/mano", "mano");
+            throw new OptimisticLockingFailureException("conflicto");
+        }));
+
+        assertTrue(mockingDetails(template).getInvocations().stream()
+                .noneMatch(i -> i.getMethod().getName().equals("send")));
+    }
+
+    @Test
+    public void modoLotes_unFramePorTopicEnOrdenAlTerminar() throws Exception {
+        EventBatcher batcher = batcher(EventBatcher.Modo.LOTES);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "carta");
+            publisher.publish("/topic/partida/ABC/counts", "counts");
+            publisher.publish("/topic/partida/ABC", "turno");
+            verifyNoInteractions(template);
+            return null;
+        });
+
+        assertEquals(List.of(List.of("carta", "turno")), lotes("/topic/partida/ABC/lote"));
+        assertEquals(List.of(List.of("counts")), lotes("/topic/partida/ABC/counts/lote"));
+        assertTrue(enviados("/topic/partida/ABC").isEmpty());
+        assertEquals(2L, metricsService.contador("eventos.lotes.enviados"));
+        assertEquals(3L, metricsService.contador("eventos.lotes.eventos"));
+    }
+
+    @Test
+    public void modoAmbos_enviaIndividualesYLote() throws Exception {
+        EventBatcher batcher = batcher(EventBatcher.Modo.AMBOS);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "e1");
+            publisher.publish("/topic/partida/ABC", "e2");
+            return null;
+        });
+
+        assertEquals(List.of("\"e1\"", "\"e2\""), enviados("/topic/partida/ABC"));
+        assertEquals(List.of(List.of("e1", "e2")), lotes("/topic/partida/ABC/lote"));
+        // cada evento se serializa una vez (el lote reutiliza su JSON) más el propio lote
+        assertEquals(3L, ((Map<?, ?>) metricsService.snapshot().get("eventos.serializacion")).get("count"));
+    }
+
+    @Test
+    public void lotesAnidados_seSumanAlExterior() throws Exception {
+        EventBatcher batcher = batcher(EventBatcher.Modo.LOTES);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "e1");
+            batcher.enLote(() -> {
+                publisher.publish("/topic/partida/ABC", "e2");
+                return null;
+            });
+            verifyNoInteractions(template);
+            return null;
+        });
+
+        assertEquals(List.of(List.of("e1", "e2")), lotes("/topic/partida/ABC/lote"));
+    }
+
+    @Test
+    public void conflictoDeVersion_descartaElLote() {
+        EventBatcher batcher = batcher(EventBatcher.Modo.LOTES);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "e1");
+            throw new OptimisticLockingFailureException("conflicto");
+        }));
+
+        verifyNoInteractions(template);
+        assertEquals(1L, metricsService.contador("eventos.lotes.descartados"));
+    }
+
+    @Test
+    public void otroError_enviaLoPublicadoAntes() throws Exception {
+        EventBatcher batcher = batcher(EventBatcher.Modo.LOTES);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        assertThrows(IllegalStateException.class, () -> batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC", "e1");
+            throw new IllegalStateException("Jugador sin cartas");
+        }));
+
+        assertEquals(List.of(List.of("e1")), lotes("/topic/partida/ABC/lote"));
+    }
+
+    @Test
+    public void dragYEventosFueraDeOperacion() throws Exception {
+        EventBatcher batcher = batcher(EventBatcher.Modo.LOTES);
+        SimpEventPublisher publisher = publisher(batcher);
+
+        batcher.enLote(() -> {
+            publisher.publish("/topic/partida/ABC/drag", "drag");
+            return null;
+        });
+        publisher.publish("/topic/partida/ABC", "suelto");
+
+        assertEquals(List.of("\"drag\""), enviados("/topic/partida/ABC/drag"));
+        assertEquals(List.of(List.of("suelto")), lotes("/topic/partida/ABC/lote"));
+        assertTrue(enviados("/topic/partida/ABC").isEmpty());
+    }
+
+    @Test
+    public void publishToSession_soloALaSuscripcionYSinBroker() {
+        SimpEventPublisher publisher = publisher(batcher(EventBatcher.Modo.LOTES));
+
+        publisher.publishToSession("s1", "sub-0", "/topic/partida/ABC", "estado");
+
+        ArgumentCaptor<Message<?>> mensaje = ArgumentCaptor.forClass(Message.class);
+        verify(clientOutboundChannel).send(mensaje.capture());
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(mensaje.getValue());
+        assertEquals("s1", headers.getSessionId());
+        assertEquals("sub-0", headers.getSubscriptionId());
+        assertEquals("/topic/partida/ABC", headers.getDestination());
+        assertEquals("\"estado\"", new String((byte[]) mensaje.getValue().getPayload(), StandardCharsets.UTF_8));
+        verifyNoInteractions(template);
+    }
+}
@@ -44,7 +44,10 @@ public class GameServiceEmpateTest {
         deckService = mock(DeckService.class);
         eventPublisher = mock(EventPublisher.class);
 
-        gameService = new GameServiceImpl(partidaRepository, cartaRepository, deckService, eventPublisher);
+        // registro deshabilitado: las lecturas y escrituras van directamente al repositorio
+        ActiveGameRegistry registry = new ActiveGameRegistry(partidaRepository, new MetricsService(),
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, new MetricsService()), false, false, 100, 3);
+        gameService = new GameServiceImpl(registry, new CartaCatalog(cartaRepository, new MetricsService()), deckService, eventPublisher, mock(HistorialRondas.class));
     }
 
     @Test
@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -16,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -45,7 +47,10 @@ public class GameServiceImplTest {
         deckService = mock(DeckService.class);
         eventPublisher = mock(EventPublisher.class);
 
-        gameService = new GameServiceImpl(partidaRepository, cartaRepository, deckService, eventPublisher);
+        // registro deshabilitado: las lecturas y escrituras van directamente al repositorio
+        ActiveGameRegistry registry = new ActiveGameRegistry(partidaRepository, new MetricsService(),
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, new MetricsService()), false, false, 100, 3);
+        gameService = new GameServiceImpl(registry, new CartaCatalog(cartaRepository, new MetricsService()), deckService, eventPublisher, mock(HistorialRondas.class));
     }
 
     @Test
@@ -137,4 +142,37 @@ public class GameServiceImplTest {
         // verify RONDA_FINALIZADA event published
         verify(eventPublisher, atLeastOnce()).publish(contains("/topic/partida/XYZ"), any());
     }
+
+    @Test
+    public void jugarCarta_quienJuegaSuUltimaCartaSigueContandoHastaResolverLaRonda() {
+        Partida p = new Partida();
+        p.setCodigo("ULT");
+        Jugador a = new Jugador(); a.setId("p1"); a.setNombre("Player1"); a.setCartasEnMano(new ArrayList<>(List.of("1A"))); a.setNumeroCartas(1); a.setOrden(1);
+        Jugador b = new Jugador(); b.setId("p2"); b.setNombre("Player2"); b.setCartasEnMano(new ArrayList<>(List.of("2A", "2B"))); b.setNumeroCartas(2); b.setOrden(2);
+        Jugador c = new Jugador(); c.setId("p3"); c.setNombre("Player3"); c.setCartasEnMano(new ArrayList<>(List.of("3A", "3B"))); c.setNumeroCartas(2); c.setOrden(3);
+        p.setJugadores(new ArrayList<>(Arrays.asList(a, b, c)));
+        p.setTurnoActual("p1");
+        p.setAtributoSeleccionado("poder");
+
+        when(partidaRepository.findByCodigo("ULT")).thenReturn(Optional.of(p));
+        Map<String, Integer> poder = Map.of("1A", 9000, "2A", 8000, "3A", 7000);
+        poder.forEach((codigo, valor) -> {
+            Carta carta = new Carta(); carta.setCodigo(codigo); carta.setAtributos(new HashMap<>(Map.of("poder", valor)));
+            when(cartaRepository.findFirstByCodigo(codigo)).thenReturn(Optional.of(carta));
+        });
+
+        // p1 se queda sin cartas en mano, pero su carta está en la mesa
+        gameService.jugarCarta("ULT", "p1");
+        gameService.jugarCarta("ULT", "p2");
+        assertEquals(2, p.getCartasEnMesa().size());
+
+        // con p3 ya jugaron los tres: la ronda se resuelve aunque p1 no tenga cartas en mano
+        gameService.jugarCarta("ULT", "p3");
+
+        assertTrue(p.getCartasEnMesa().isEmpty());
+        verify(eventPublisher).publish(eq("/topic/partida/ULT"),
+                any(com.juegocartas.juegocartas.dto.event.RondaResueltaEvent.class));
+        // p1 gana la ronda y se lleva las tres cartas
+        assertEquals(3, a.getNumeroCartas());
+    }
 }
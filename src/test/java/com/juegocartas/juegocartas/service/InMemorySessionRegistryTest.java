@@ -0,0 +1,46 @@
+package com.juegocartas.juegocartas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.juegocartas.juegocartas.service.impl.InMemorySessionRegistry;
+
+public class InMemorySessionRegistryTest {
+
+    private final InMemorySessionRegistry registro = new InMemorySessionRegistry(new MetricsService());
+
+    @Test
+    public void tieneSesiones_mientrasQuedeAlgunaDelJugador() {
+        registro.registrarJugador("s1", "p1");
+        registro.registrarJugador("s2", "p1");
+        registro.registrarPartida("s1", "ABC");
+
+        registro.eliminar("s1");
+        assertTrue(registro.tieneSesiones("p1"));
+
+        registro.eliminar("s2");
+        assertFalse(registro.tieneSesiones("p1"));
+        // eliminar una sesión que ya no está no descuenta nada
+        assertTrue(registro.eliminar("s2").isEmpty());
+    }
+
+    @Test
+    public void reasignarLaSesionAOtroJugador_laDescuentaDelAnterior() {
+        registro.registrarPartida("s1", "ABC");
+        assertFalse(registro.tieneSesiones("p1"));
+
+        registro.registrarJugador("s1", "p1");
+        registro.registrarJugador("s1", "p1");
+        registro.registrarJugador("s1", "p2");
+
+        assertFalse(registro.tieneSesiones("p1"));
+        assertTrue(registro.tieneSesiones("p2"));
+        assertEquals("ABC", registro.buscar("s1").orElseThrow().partidaCodigo());
+
+        registro.eliminar("s1");
+        assertFalse(registro.tieneSesiones("p2"));
+        assertFalse(registro.tieneSesiones(null));
+    }
+}
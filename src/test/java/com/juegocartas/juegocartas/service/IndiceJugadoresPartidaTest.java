@@ -0,0 +1,100 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+public class IndiceJugadoresPartidaTest {
+
+    private PartidaRepository partidaRepository;
+    private ActiveGameRegistry registry;
+    private MetricsService metricsService;
+    private IndiceJugadoresPartida indice;
+    private Partida partida;
+
+    @BeforeEach
+    public void setup() {
+        partidaRepository = mock(PartidaRepository.class);
+        metricsService = new MetricsService();
+        when(partidaRepository.cambios(any(Partida.class))).thenReturn(new Document("$set", new Document()));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of());
+        registry = new ActiveGameRegistry(partidaRepository, metricsService,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, true, 100, 3);
+        indice = new IndiceJugadoresPartida(registry, metricsService);
+
+        partida = new Partida("ABC");
+        partida.setId("id-ABC");
+        partida.setEstado("EN_CURSO");
+        Jugador a = new Jugador(); a.setId("p1"); a.setNombre("Player1");
+        a.setConectado(true);
+        a.setCartasEnMano(new ArrayList<>(List.of("1A", "2B", "3C")));
+        Jugador b = new Jugador(); b.setId("p2"); b.setNombre("Player2");
+        partida.setJugadores(new ArrayList<>(List.of(a, b)));
+        when(partidaRepository.findByCodigo("ABC")).thenReturn(Optional.of(partida));
+    }
+
+    @Test
+    public void consultasRepetidas_unaSolaLectura() {
+        for (int i = 0; i < 100; i++) {
+            IndiceJugadoresPartida.Miembro p1 = indice.buscar("ABC", "p1");
+            assertTrue(p1.conectado());
+            assertEquals(3, p1.cartasEnMano());
+        }
+        assertFalse(indice.buscar("ABC", "p2").conectado());
+        assertNull(indice.buscar("ABC", "intruso"));
+
+        verify(partidaRepository, times(1)).findByCodigo("ABC");
+    }
+
+    @Test
+    public void cambioGuardadoEnElRegistro_seVeSinReleer() {
+        indice.buscar("ABC", "p1");
+
+        registry.ejecutarVoid("ABC", () -> {
+            Partida p = registry.buscar("ABC").orElseThrow();
+            Jugador j = p.getJugadores().get(0);
+            j.getCartasEnMano().remove(0);
+            j.setConectado(false);
+            registry.guardar(p);
+        });
+
+        IndiceJugadoresPartida.Miembro p1 = indice.buscar("ABC", "p1");
+        assertFalse(p1.conectado());
+        assertEquals(2, p1.cartasEnMano());
+        verify(partidaRepository, times(1)).findByCodigo("ABC");
+    }
+
+    @Test
+    public void partidaInexistente_sinMiembrosYSinEntrada() {
+        when(partidaRepository.findByCodigo(anyString())).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 50; i++) {
+            assertNull(indice.buscar("NOPE" + i, "p1"));
+        }
+        assertNull(indice.buscar("NOPE0", "p1"));
+
+        // los códigos inexistentes no se guardan: cada consulta vuelve a buscar
+        verify(partidaRepository, times(2)).findByCodigo("NOPE0");
+        assertEquals(0, metricsService.snapshot().get("drag.indice.partidas"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.juegocartas.juegocartas.service.impl.MongoDisconnectGraceService;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.result.DeleteResult;
+
+public class MongoDisconnectGraceServiceTest {
+
+    private MongoCollection<Document> coleccion;
+    private DesconexionJugadorService desconexionJugadorService;
+    private MongoDisconnectGraceService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        coleccion = mock(MongoCollection.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollection("desconexiones_pendientes")).thenReturn(coleccion);
+        when(coleccion.deleteOne(any(Bson.class))).thenReturn(DeleteResult.acknowledged(1));
+        desconexionJugadorService = mock(DesconexionJugadorService.class);
+        service = new MongoDisconnectGraceService(mongoTemplate, desconexionJugadorService, new MetricsService(), 30000);
+    }
+
+    private Document reclamada(String jugadorId, String partidaCodigo, String reclamo) {
+        return new Document("_id", jugadorId).append("partidaCodigo", partidaCodigo)
+                .append("venceEn", new Date()).append("reclamo", reclamo);
+    }
+
+    @Test
+    public void programar_reemplazaElPendienteDelJugador() {
+        service.scheduleDisconnect("p1", "ABC", 5);
+
+        ArgumentCaptor<Document> pendiente = ArgumentCaptor.forClass(Document.class);
+        ArgumentCaptor<ReplaceOptions> opciones = ArgumentCaptor.forClass(ReplaceOptions.class);
+        verify(coleccion).replaceOne(any(Bson.class), pendiente.capture(), opciones.capture());
+        assertEquals("p1", pendiente.getValue().get("_id"));
+        assertEquals("ABC", pendiente.getValue().get("partidaCodigo"));
+        assertEquals(true, opciones.getValue().isUpsert());
+    }
+
+    @Test
+    public void vencidasDeUnaPartida_seEjecutanJuntasYSeBorranConSuReclamo() {
+        when(coleccion.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(reclamada("p1", "ABC", "r1"), reclamada("p2", "ABC", "r2"), null);
+
+        service.procesarVencidas();
+
+        verify(desconexionJugadorService).marcarDesconectados("ABC", List.of("p1", "p2"));
+        ArgumentCaptor<Bson> filtro = ArgumentCaptor.forClass(Bson.class);
+        verify(coleccion, times(2)).deleteOne(filtro.capture());
+        BsonDocument primero = filtro.getAllValues().get(0).toBsonDocument();
+        assertEquals("r1", primero.getArray("$and").get(1).asDocument().getString("reclamo").getValue());
+    }
+
+    @Test
+    public void errorEnUnaPartida_sueltaSuReclamoSinBorrarloYSigueConOtra() {
+        when(coleccion.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(reclamada("p1", "ABC", "r1"), reclamada("p2", "XYZ", "r2"), null);
+        doThrow(new IllegalStateException("boom")).when(desconexionJugadorService).marcarDesconectados(eq("ABC"), any());
+
+        service.procesarVencidas();
+
+        verify(desconexionJugadorService).marcarDesconectados("XYZ", List.of("p2"));
+        ArgumentCaptor<Bson> borrado = ArgumentCaptor.forClass(Bson.class);
+        verify(coleccion).deleteOne(borrado.capture());
+        assertEquals("p2", borrado.getValue().toBsonDocument().getArray("$and").get(0).asDocument()
+                .getString("_id").getValue());
+
+        ArgumentCaptor<Bson> filtro = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> cambios = ArgumentCaptor.forClass(Bson.class);
+        verify(coleccion).updateOne(filtro.capture(), cambios.capture());
+        assertEquals("r1", filtro.getValue().toBsonDocument().getArray("$and").get(1).asDocument()
+                .getString("reclamo").getValue());
+        BsonDocument soltar = cambios.getValue().toBsonDocument().getDocument("$unset");
+        assertEquals(Set.of("reclamo", "reclamoHasta"), soltar.keySet());
+    }
+}
@@ -0,0 +1,136 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+public class PartidaSnapshotCacheTest {
+
+    private PartidaRepository partidaRepository;
+    private MetricsService metricsService;
+    private ActiveGameRegistry registry;
+    private EventSerializer serializer;
+    private SecuenciaEventos secuencia;
+
+    @BeforeEach
+    public void setup() {
+        partidaRepository = mock(PartidaRepository.class);
+        metricsService = new MetricsService();
+        when(partidaRepository.cambios(any(Partida.class))).thenReturn(new Document("$set", new Document()));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of());
+        registry = new ActiveGameRegistry(partidaRepository, metricsService,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, true, 100, 3);
+        serializer = new EventSerializer(new ObjectMapper(), metricsService);
+        secuencia = new SecuenciaEventos(metricsService, "SIMPLE", true);
+    }
+
+    private Partida partidaEnEspera(String codigo) {
+        Partida p = new Partida(codigo);
+        p.setId("id-" + codigo);
+        p.setEstado("EN_ESPERA");
+        Jugador a = new Jugador(); a.setId("p1"); a.setNombre("Player1");
+        p.setJugadores(new ArrayList<>(List.of(a)));
+        when(partidaRepository.findByCodigo(codigo)).thenReturn(Optional.of(p));
+        return p;
+    }
+
+    @Test
+    public void rafagaDeSuscripciones_unaLecturaYUnaSerializacion() {
+        partidaEnEspera("SNP1");
+        PartidaSnapshotCache cache = new PartidaSnapshotCache(registry, serializer, secuencia, metricsService, 60_000);
+
+        EventoSerializado primero = cache.obtener("SNP1").orElseThrow();
+        for (int i = 0; i < 20; i++) {
+            assertSame(primero, cache.obtener("SNP1").orElseThrow());
+        }
+
+        verify(partidaRepository, times(1)).findByCodigo("SNP1");
+        assertEquals(1L, metricsService.contador("partidas.snapshot.fallos"));
+        assertEquals(20L, metricsService.contador("partidas.snapshot.aciertos"));
+        assertTrue(primero.toString().contains("\"PARTIDA_STATE\""));
+    }
+
+    @Test
+    public void cambioDeEstado_invalidaElSnapshot() {
+        Partida p = partidaEnEspera("SNP2");
+        PartidaSnapshotCache cache = new PartidaSnapshotCache(registry, serializer, secuencia, metricsService, 60_000);
+        EventoSerializado antes = cache.obtener("SNP2").orElseThrow();
+
+        Jugador b = new Jugador(); b.setId("p2"); b.setNombre("Player2");
+        registry.ejecutarVoid("SNP2", () -> {
+            p.getJugadores().add(b);
+            registry.guardar(p);
+        });
+
+        EventoSerializado despues = cache.obtener("SNP2").orElseThrow();
+        assertNotSame(antes, despues);
+        assertTrue(despues.toString().contains("Player2"));
+    }
+
+    @Test
+    public void snapshotLlevaElSeqDelUltimoEvento() {
+        partidaEnEspera("SNP4");
+        PartidaSnapshotCache cache = new PartidaSnapshotCache(registry, serializer, secuencia, metricsService, 60_000);
+        secuencia.siguiente("SNP4");
+        secuencia.siguiente("SNP4");
+
+        EventoSerializado antes = cache.obtener("SNP4").orElseThrow();
+        assertTrue(antes.toString().startsWith("{\"seq\":2,"));
+
+        // un evento nuevo invalida el snapshot aunque la versión local no haya cambiado
+        secuencia.siguiente("SNP4");
+        EventoSerializado despues = cache.obtener("SNP4").orElseThrow();
+        assertNotSame(antes, despues);
+        assertTrue(despues.toString().startsWith("{\"seq\":3,"));
+    }
+
+    @Test
+    public void sinEnvioAsincrono_elSnapshotNoLlevaSeq() {
+        partidaEnEspera("SNP5");
+        SecuenciaEventos sinAsync = new SecuenciaEventos(metricsService, "SIMPLE", false);
+        PartidaSnapshotCache cache = new PartidaSnapshotCache(registry, serializer, sinAsync, metricsService, 60_000);
+
+        assertFalse(cache.obtener("SNP5").orElseThrow().toString().contains("\"seq\""));
+    }
+
+    @Test
+    public void ttlVencido_vuelveALeer() {
+        partidaEnEspera("SNP3");
+        PartidaSnapshotCache cache = new PartidaSnapshotCache(registry, serializer, secuencia, metricsService, 0);
+
+        cache.obtener("SNP3");
+        cache.obtener("SNP3");
+
+        verify(partidaRepository, times(2)).findByCodigo("SNP3");
+    }
+
+    @Test
+    public void partidaInexistente_vacio() {
+        when(partidaRepository.findByCodigo("NOPE")).thenReturn(Optional.empty());
+        PartidaSnapshotCache cache = new PartidaSnapshotCache(registry, serializer, secuencia, metricsService, 60_000);
+
+        assertTrue(cache.obtener("NOPE").isEmpty());
+    }
+}
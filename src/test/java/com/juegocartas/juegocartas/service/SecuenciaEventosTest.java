@@ -0,0 +1,42 @@
+package com.juegocartas.juegocartas.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+
+public class SecuenciaEventosTest {
+
+    @Test
+    public void secuenciaPorPartida() {
+        SecuenciaEventos secuencia = new SecuenciaEventos(new MetricsService(), "SIMPLE", true);
+
+        assertEquals(0L, secuencia.actual("ABC"));
+        assertEquals(1L, secuencia.siguiente("ABC"));
+        assertEquals(2L, secuencia.siguiente("ABC"));
+        assertEquals(1L, secuencia.siguiente("XYZ"));
+        assertEquals(2L, secuencia.actual("ABC"));
+    }
+
+    @Test
+    public void partidaSecuenciada() {
+        assertEquals("ABC", SecuenciaEventos.partidaSecuenciada("/topic/partida/ABC"));
+        assertEquals("ABC", SecuenciaEventos.partidaSecuenciada("/topic/partida/ABC/counts"));
+        assertNull(SecuenciaEventos.partidaSecuenciada("/topic/partida/ABC/drag"));
+        assertNull(SecuenciaEventos.partidaSecuenciada("/topic/partida/"));
+        assertNull(SecuenciaEventos.partidaSecuenciada("/topic/otra"));
+        assertNull(SecuenciaEventos.partidaSecuenciada(null));
+    }
+
+    @Test
+    public void conSecuencia_primerCampoDelObjeto() {
+        assertEquals("{\"seq\":7,\"tipo\":\"A\"}",
+                new EventoSerializado("{\"tipo\":\"A\"}".getBytes()).conSecuencia(7).toString());
+        assertEquals("{\"seq\":7}", new EventoSerializado("{}".getBytes()).conSecuencia(7).toString());
+
+        EventoSerializado lista = new EventoSerializado("[1]".getBytes());
+        assertSame(lista, lista.conSecuencia(7));
+    }
+}
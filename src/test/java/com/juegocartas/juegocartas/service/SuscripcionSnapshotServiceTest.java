@@ -0,0 +1,99 @@
+package com.juegocartas.juegocartas.service;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.juegocartas.juegocartas.dto.event.EventBatch;
+import com.juegocartas.juegocartas.dto.event.EventoSerializado;
+
+public class SuscripcionSnapshotServiceTest {
+
+    private PartidaSnapshotCache cache;
+    private EventPublisher eventPublisher;
+    private MetricsService metricsService;
+    private SuscripcionSnapshotService service;
+    private EventoSerializado estado;
+
+    @BeforeEach
+    public void setup() {
+        cache = mock(PartidaSnapshotCache.class);
+        eventPublisher = mock(EventPublisher.class);
+        metricsService = new MetricsService();
+        service = new SuscripcionSnapshotService(cache, eventPublisher, metricsService);
+        estado = new EventoSerializado("{\"tipo\":\"PARTIDA_STATE\"}".getBytes());
+        when(cache.obtener("ABC")).thenReturn(Optional.of(estado));
+    }
+
+    @Test
+    public void topicPrincipal_enviaSoloALaSesion() {
+        assertTrue(service.alSuscribirse("s1", "sub-0", "/topic/partida/ABC"));
+
+        verify(eventPublisher).publishToSession("s1", "sub-0", "/topic/partida/ABC", estado);
+        verify(eventPublisher, never()).publish(anyString(), any());
+    }
+
+    @Test
+    public void subtopics_noRecibenEstado() {
+        assertFalse(service.alSuscribirse("s1", "sub-1", "/topic/partida/ABC/counts"));
+        assertFalse(service.alSuscribirse("s1", "sub-2", "/topic/partida/ABC/drag"));
+        assertFalse(service.alSuscribirse("s1", "sub-3", "/topic/otra"));
+
+        verifyNoInteractions(eventPublisher, cache);
+    }
+
+    @Test
+    public void mismaSesionYPartida_unaSolaVez() {
+        service.alSuscribirse("s1", "sub-0", "/topic/partida/ABC");
+        assertFalse(service.alSuscribirse("s1", "sub-1", "/topic/partida/ABC/lote"));
+        assertTrue(service.alSuscribirse("s2", "sub-0", "/topic/partida/ABC"));
+
+        verify(cache, times(2)).obtener("ABC");
+        assertEquals(1L, metricsService.contador("partidas.snapshot.suscripcion.duplicadas"));
+    }
+
+    @Test
+    public void trasDesuscribirse_vuelveARecibirlo() {
+        service.alSuscribirse("s1", "sub-0", "/topic/partida/ABC");
+        service.alDesuscribirse("s1", "sub-0");
+
+        assertTrue(service.alSuscribirse("s1", "sub-4", "/topic/partida/ABC"));
+
+        service.alDesconectar("s1");
+        assertTrue(service.alSuscribirse("s1", "sub-5", "/topic/partida/ABC"));
+    }
+
+    @Test
+    public void topicDeLotes_recibeUnEventBatch() {
+        service.alSuscribirse("s1", "sub-0", "/topic/partida/ABC/lote");
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishToSession(eq("s1"), eq("sub-0"), eq("/topic/partida/ABC/lote"), payload.capture());
+        assertSame(estado, ((EventBatch) payload.getValue()).getEventos().get(0));
+    }
+
+    @Test
+    public void codigoConEstado() {
+        assertEquals("ABC", SuscripcionSnapshotService.codigoConEstado("/topic/partida/ABC"));
+        assertEquals("ABC", SuscripcionSnapshotService.codigoConEstado("/topic/partida/ABC/lote"));
+        assertNull(SuscripcionSnapshotService.codigoConEstado("/topic/partida/ABC/counts/lote"));
+        assertNull(SuscripcionSnapshotService.codigoConEstado("/topic/partida/"));
+        assertNull(SuscripcionSnapshotService.codigoConEstado(null));
+    }
+}
@@ -0,0 +1,178 @@
+package com.juegocartas.juegocartas.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.juegocartas.juegocartas.dto.response.PartidaDetailResponse;
+import com.juegocartas.juegocartas.dto.response.PartidaResponse;
+import com.juegocartas.juegocartas.model.Jugador;
+import com.juegocartas.juegocartas.model.Partida;
+import com.juegocartas.juegocartas.repository.PartidaRepository;
+
+public class VistasPartidaTest {
+
+    private PartidaRepository partidaRepository;
+    private MetricsService metricsService;
+    private ActiveGameRegistry registry;
+    private VistasPartida vistas;
+
+    @BeforeEach
+    public void setup() {
+        partidaRepository = mock(PartidaRepository.class);
+        metricsService = new MetricsService();
+        when(partidaRepository.cambios(any(Partida.class))).thenReturn(new Document("$set", new Document()));
+        when(partidaRepository.escribirCambios(anyList())).thenReturn(Set.of());
+        registry = new ActiveGameRegistry(partidaRepository, metricsService,
+                new EventBatcher(EventBatcher.Modo.INDIVIDUAL, metricsService), true, true, 100, 3);
+        vistas = new VistasPartida(registry, partidaRepository, metricsService);
+    }
+
+    private Partida partida(String codigo, String estado) {
+        Partida p = new Partida(codigo);
+        p.setId("id-" + codigo);
+        p.setEstado(estado);
+        p.setVersion(3L);
+        Jugador a = new Jugador("p1", "u1", "Player1");
+        a.setCartasEnMano(new ArrayList<>(List.of("1A", "2B")));
+        a.setNumeroCartas(2);
+        Jugador b = new Jugador("p2", "u2", "Player2");
+        b.setCartasEnMano(new ArrayList<>(List.of("3C")));
+        b.setNumeroCartas(1);
+        p.setJugadores(new ArrayList<>(List.of(a, b)));
+        return p;
+    }
+
+    @Test
+    public void enEspera_leeLaProyeccionYRespondeNoModificadaConElMismoEtag() {
+        when(partidaRepository.findPublicaByCodigo("VIS1")).thenReturn(Optional.of(partida("VIS1", "EN_ESPERA")));
+
+        VistasPartida.Vista<PartidaResponse> primera = vistas.publica("VIS1", null);
+        assertEquals("v3", primera.etag());
+        assertEquals(2, primera.cuerpo().getJugadores().size());
+
+        VistasPartida.Vista<PartidaResponse> segunda = vistas.publica("VIS1", "\"v3\"");
+        assertTrue(segunda.noModificada());
+        assertEquals(1L, metricsService.contador("partidas.lectura.noModificadas"));
+        verify(partidaRepository, times(2)).findPublicaByCodigo("VIS1");
+        verify(partidaRepository, never()).findByCodigo(anyString());
+    }
+
+    @Test
+    public void enCurso_elEtagCambiaConCadaCambioGuardado() {
+        Partida p = partida("VIS2", "EN_CURSO");
+        when(partidaRepository.findPublicaByCodigo("VIS2")).thenReturn(Optional.of(partida("VIS2", "EN_CURSO")));
+        when(partidaRepository.findByCodigo("VIS2")).thenReturn(Optional.of(p));
+
+        // la primera lectura la carga en el registro; las siguientes no van a MongoDB
+        String etag = vistas.publica("VIS2", null).etag();
+        assertTrue(registry.esActiva("VIS2"));
+        assertTrue(vistas.publica("VIS2", etag).noModificada());
+        verify(partidaRepository, times(1)).findPublicaByCodigo("VIS2");
+
+        registry.ejecutarVoid("VIS2", () -> {
+            p.getJugadores().get(1).setConectado(false);
+            registry.guardar(p);
+        });
+
+        VistasPartida.Vista<PartidaResponse> tras = vistas.publica("VIS2", etag);
+        assertFalse(tras.noModificada());
+        assertNotEquals(etag, tras.etag());
+        assertFalse(tras.cuerpo().getJugadores().get(1).isConectado());
+    }
+
+    @Test
+    public void enCurso_otraInstanciaNoCoincide() {
+        Partida p = partida("VIS3", "EN_CURSO");
+        when(partidaRepository.findPublicaByCodigo("VIS3")).thenReturn(Optional.of(p));
+        when(partidaRepository.findByCodigo("VIS3")).thenReturn(Optional.of(p));
+        String etag = vistas.publica("VIS3", null).etag();
+
+        VistasPartida otra = new VistasPartida(registry, partidaRepository, metricsService);
+        assertFalse(otra.publica("VIS3", etag).noModificada());
+    }
+
+    @Test
+    public void detalle_soloIncluyeLaManoDelSolicitanteYElTiempoEnElEtag() {
+        Partida p = partida("VIS4", "FINALIZADA");
+        p.setTiempoInicio(Instant.now().minusSeconds(60));
+        when(partidaRepository.findDetalleByCodigo("VIS4")).thenReturn(Optional.of(p));
+
+        VistasPartida.Vista<PartidaDetailResponse> vista = vistas.detalle("VIS4", "p1", null);
+
+        assertEquals("v3-0", vista.etag());
+        assertEquals(List.of("1A", "2B"), vista.cuerpo().getMiJugador().getCartasEnMano());
+        assertEquals(1, vista.cuerpo().getJugadores().size());
+        assertEquals("p2", vista.cuerpo().getJugadores().get(0).getId());
+    }
+
+    @Test
+    public void detalle_enCurso_copiaLaManoBajoElLockDeLaPartida() throws Exception {
+        Partida p = partida("VIS5", "EN_CURSO");
+        when(partidaRepository.findDetalleByCodigo("VIS5")).thenReturn(Optional.of(p));
+        when(partidaRepository.findByCodigo("VIS5")).thenReturn(Optional.of(p));
+
+        VistasPartida.Vista<PartidaDetailResponse> vista = vistas.detalle("VIS5", "p1", null);
+        p.getJugadores().get(0).getCartasEnMano().add("4D");
+        assertEquals(List.of("1A", "2B"), vista.cuerpo().getMiJugador().getCartasEnMano());
+
+        // mientras una jugada tiene el lock, la lectura espera a que termine
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread jugada = Thread.ofVirtual().start(() -> registry.ejecutarVoid("VIS5", () -> {
+            dentro.countDown();
+            try {
+                soltar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        CompletableFuture<VistasPartida.Vista<PartidaDetailResponse>> lectura =
+                CompletableFuture.supplyAsync(() -> vistas.detalle("VIS5", "p1", null));
+        Thread.sleep(100);
+        assertFalse(lectura.isDone());
+        soltar.countDown();
+        jugada.join();
+        assertEquals(3, lectura.get(5, TimeUnit.SECONDS).cuerpo().getMiJugador().getCartasEnMano().size());
+    }
+
+    @Test
+    public void partidaInexistente_lanza() {
+        when(partidaRepository.findPublicaByCodigo("NOPE")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> vistas.publica("NOPE", null));
+    }
+
+    @Test
+    public void coincide_aceptaListasEtagsDebilesYAsterisco() {
+        assertTrue(VistasPartida.coincide("\"a\", W/\"v3\"", "v3"));
+        assertTrue(VistasPartida.coincide("*", "v3"));
+        assertFalse(VistasPartida.coincide("\"v30\"", "v3"));
+        assertFalse(VistasPartida.coincide(null, "v3"));
+        assertNull(new VistasPartida.Vista<String>("v3", null).cuerpo());
+    }
+}
@@ -0,0 +1,78 @@
+package com.juegocartas.juegocartas.util;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class RuedaTemporizadoresTest {
+
+    @Test
+    public void venceDespuesDelRetraso() throws Exception {
+        CountDownLatch vencido = new CountDownLatch(1);
+        long inicio = System.nanoTime();
+        try (RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>("test-rueda", 10, 8,
+                vencidos -> vencido.countDown())) {
+            rueda.programar(50, "p1");
+
+            assertTrue(vencido.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - inicio >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertEquals(0, rueda.pendientes());
+        }
+    }
+
+    @Test
+    public void masLargoQueUnaVuelta() throws Exception {
+        CountDownLatch vencido = new CountDownLatch(1);
+        long inicio = System.nanoTime();
+        // 4 ranuras de 10 ms: 100 ms son dos vueltas y media
+        try (RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>("test-rueda", 10, 4,
+                vencidos -> vencido.countDown())) {
+            rueda.programar(100, "p1");
+
+            assertTrue(vencido.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - inicio >= TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    @Test
+    public void cancelado_noVence() throws Exception {
+        ConcurrentLinkedQueue<String> vencidos = new ConcurrentLinkedQueue<>();
+        try (RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>("test-rueda", 10, 8,
+                lote -> lote.forEach(t -> vencidos.add(t.dato())))) {
+            RuedaTemporizadores.Temporizador<String> cancelado = rueda.programar(30, "p1");
+            rueda.programar(30, "p2");
+
+            assertTrue(cancelado.cancelar());
+            assertFalse(cancelado.cancelar());
+            assertEquals(1, rueda.pendientes());
+
+            Thread.sleep(200);
+            assertEquals(List.of("p2"), List.copyOf(vencidos));
+        }
+    }
+
+    @Test
+    public void desconexionMasiva_unLotePorTick() throws Exception {
+        AtomicInteger vencidos = new AtomicInteger();
+        AtomicInteger lotes = new AtomicInteger();
+        CountDownLatch todos = new CountDownLatch(1);
+        try (RuedaTemporizadores<Integer> rueda = new RuedaTemporizadores<>("test-rueda", 50, 8, lote -> {
+            lotes.incrementAndGet();
+            if (vencidos.addAndGet(lote.size()) == 10_000) todos.countDown();
+        })) {
+            for (int i = 0; i < 10_000; i++) {
+                rueda.programar(100, i);
+            }
+
+            assertTrue(todos.await(2, TimeUnit.SECONDS));
+            assertTrue(lotes.get() <= 3, "lotes: " + lotes.get());
+        }
+    }
+}